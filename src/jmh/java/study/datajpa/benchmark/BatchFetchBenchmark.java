@@ -0,0 +1,95 @@
+package study.datajpa.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.metrics.QueryCounters;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.repository.TeamRepository;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// 지연로딩 배치 fetch 비교 (회원 1만 명, 팀 1천 개)
+// - memberTeams: 회원 전체를 조회하고 `member.getTeam().getName()`으로 팀 프록시를 초기화
+// - teamMembers: 팀 전체를 조회하고 `team.getMembers().size()`로 컬렉션을 초기화
+// `batchFetchSize=1`이면 프록시/컬렉션마다 select 가 한 번씩 나간다. (N+1)
+// 실행된 select 수는 `selects` 보조 지표로 같이 나온다.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class BatchFetchBenchmark {
+
+    static final int TEAMS = 1_000;
+    static final int MEMBERS = 10_000;
+
+    @Param({"1", "100"})
+    int batchFetchSize;
+
+    ConfigurableApplicationContext context;
+    MemberRepository memberRepository;
+    TeamRepository teamRepository;
+    TransactionTemplate readOnly;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start(
+                "spring.jpa.properties.hibernate.default_batch_fetch_size=" + batchFetchSize,
+                "app.query.n-plus-one.mode=off");
+        memberRepository = context.getBean(MemberRepository.class);
+        teamRepository = context.getBean(TeamRepository.class);
+
+        readOnly = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnly.setReadOnly(true);
+
+        BenchmarkDataset.seed(context, TEAMS, MEMBERS);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class SelectCounter {
+        public long selects;
+    }
+
+    @Benchmark
+    public long memberTeams(SelectCounter counter) {
+        long before = QueryCounters.current().getSelects();
+        Long length = readOnly.execute(status -> {
+            // `findAll()`은 `@EntityGraph`로 팀을 같이 가져오기 때문에 지연로딩이 되는 쿼리를 쓴다.
+            List<Member> members = memberRepository.findMemberList(Pageable.unpaged());
+            long sum = 0;
+            for (Member member : members) {
+                sum += member.getTeam().getName().length();
+            }
+            return sum;
+        });
+        counter.selects += QueryCounters.current().getSelects() - before;
+        return length;
+    }
+
+    @Benchmark
+    public long teamMembers(SelectCounter counter) {
+        long before = QueryCounters.current().getSelects();
+        Long size = readOnly.execute(status -> {
+            List<Team> teams = teamRepository.findAll();
+            long sum = 0;
+            for (Team team : teams) {
+                sum += team.getMembers().size();
+            }
+            return sum;
+        });
+        counter.selects += QueryCounters.current().getSelects() - before;
+        return size;
+    }
+}
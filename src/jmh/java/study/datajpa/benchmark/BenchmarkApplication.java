@@ -0,0 +1,47 @@
+package study.datajpa.benchmark;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import study.datajpa.JakeSeoApplication;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// 벤치마크용 스프링 컨텍스트
+// H2 서버(`jdbc:h2:tcp://...`) 없이도 돌 수 있도록 메모리 DB를 띄우고, SQL 로그처럼 측정에 방해되는 것들은 끈다.
+// 커맨드라인 인자로 넘겨야 `application.properties`보다 우선순위가 높다.
+public final class BenchmarkApplication {
+
+    private BenchmarkApplication() {
+    }
+
+    public static ConfigurableApplicationContext start(String... overrides) {
+        return run(WebApplicationType.NONE, overrides);
+    }
+
+    // 부하 테스트용 - 톰캣까지 띄운다. 포트는 `local.server.port`로 알 수 있다.
+    public static ConfigurableApplicationContext startWeb(String... overrides) {
+        List<String> args = new ArrayList<>(Arrays.asList(overrides));
+        args.add(0, "server.port=0");
+        return run(WebApplicationType.SERVLET, args.toArray(new String[0]));
+    }
+
+    private static ConfigurableApplicationContext run(WebApplicationType webApplicationType, String... overrides) {
+        List<String> args = new ArrayList<>(Arrays.asList(
+                "--spring.datasource.url=jdbc:h2:mem:bench;DB_CLOSE_DELAY=-1",
+                "--decorator.datasource.enabled=false",
+                "--logging.level.org.hibernate.SQL=warn",
+                "--spring.jpa.properties.hibernate.format_sql=false"
+        ));
+
+        for (String override : overrides) {
+            args.add("--" + override);
+        }
+
+        return new SpringApplicationBuilder(JakeSeoApplication.class)
+                .web(webApplicationType)
+                .run(args.toArray(new String[0]));
+    }
+}
@@ -0,0 +1,41 @@
+package study.datajpa.benchmark;
+
+import org.springframework.context.ConfigurableApplicationContext;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.repository.BulkJpaRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+// 벤치마크에서 같이 쓰는 데이터셋
+// 매번 같은 결과가 나오도록 랜덤 없이 나머지 연산으로만 만든다.
+// - username: "member0" ~ "member99" (같은 이름이 `members / 100`명씩)
+// - age: 0 ~ 49
+public final class BenchmarkDataset {
+
+    public static final int USERNAME_CARDINALITY = 100;
+    public static final int AGE_CARDINALITY = 50;
+
+    private BenchmarkDataset() {
+    }
+
+    public static void seed(ConfigurableApplicationContext context, int teamCount, int memberCount) {
+        BulkJpaRepository bulkJpaRepository = context.getBean(BulkJpaRepository.class);
+
+        List<Team> teams = new ArrayList<>();
+        for (int i = 0; i < teamCount; i++) {
+            teams.add(new Team("team" + i));
+        }
+        bulkJpaRepository.persistAll(teams);
+
+        bulkJpaRepository.persistAll(() -> IntStream.range(0, memberCount)
+                .mapToObj(i -> new Member(username(i), i % AGE_CARDINALITY, teams.get(i % teamCount)))
+                .iterator());
+    }
+
+    public static String username(int i) {
+        return "member" + (i % USERNAME_CARDINALITY);
+    }
+}
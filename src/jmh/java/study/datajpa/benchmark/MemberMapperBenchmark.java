@@ -0,0 +1,79 @@
+package study.datajpa.benchmark;
+
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.context.ConfigurableApplicationContext;
+import study.datajpa.dto.MemberDto;
+import study.datajpa.dto.MemberMapper;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// `Member` -> `MemberDto` 변환 방법별 비용 비교 (회원 한 명당 시간)
+// - modelMapper: 원래 `/members`에서 쓰던 방법
+// - constructor: `new MemberDto(member)` (팀 이름은 채우지 않는다)
+// - mapStruct: 컴파일 시점에 만들어진 `MemberMapper`
+// - jpqlProjection: `findMemberDto()`, 엔티티를 거치지 않고 DB 조회부터 DTO 로 받는 비용까지 포함
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@OperationsPerInvocation(MemberMapperBenchmark.ROWS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class MemberMapperBenchmark {
+
+    static final int ROWS = 1_000;
+
+    ConfigurableApplicationContext context;
+    MemberRepository memberRepository;
+    ModelMapper modelMapper;
+    MemberMapper memberMapper;
+    List<Member> members;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start();
+        memberRepository = context.getBean(MemberRepository.class);
+        modelMapper = context.getBean(ModelMapper.class);
+        memberMapper = context.getBean(MemberMapper.class);
+
+        BenchmarkDataset.seed(context, 10, ROWS);
+
+        // 팀까지 `join fetch`로 불러와두어야 매핑하면서 지연로딩 쿼리가 나가지 않는다.
+        members = memberRepository.findMemberFetchJoin();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void modelMapper(Blackhole bh) {
+        for (Member member : members) {
+            bh.consume(modelMapper.map(member, MemberDto.class));
+        }
+    }
+
+    @Benchmark
+    public void constructor(Blackhole bh) {
+        for (Member member : members) {
+            bh.consume(new MemberDto(member));
+        }
+    }
+
+    @Benchmark
+    public void mapStruct(Blackhole bh) {
+        for (Member member : members) {
+            bh.consume(memberMapper.toDto(member));
+        }
+    }
+
+    @Benchmark
+    public List<MemberDto> jpqlProjection() {
+        return memberRepository.findMemberDto();
+    }
+}
@@ -0,0 +1,106 @@
+package study.datajpa.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.dto.MemberDto;
+import study.datajpa.dto.MemberMapper;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.service.CountStrategy;
+import study.datajpa.service.MemberPageWriter;
+import study.datajpa.service.PageCounter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+// `/members` 응답 본문 만들기 - 페이지 조회부터 JSON 을 다 쓸 때까지 (HTTP 는 빼고)
+// - pageJson: 원래 방식, 엔티티 `List` -> MapStruct -> `Page<MemberDto>`를 `ObjectMapper`로 직렬화
+// - streaming: `MemberPageWriter`, DTO 로 조회해서 결과셋에서 읽는 대로 `JsonGenerator`로 쓴다.
+// `count`는 둘 다 `CACHED`라서 측정에서 빠진다.
+// 할당량은 `gc.alloc.rate.norm`(요청 한 번당 바이트), 지연시간은 SampleTime 의 p50/p99 를 비교한다.
+// ./gradlew jmh -Pjmh.include=MemberPageBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.AverageTime, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class MemberPageBenchmark {
+
+    // `spring.data.web.pageable.max-page-size`가 2000
+    @Param({"20", "2000"})
+    int size;
+
+    static final int MEMBERS = 100_000;
+
+    ConfigurableApplicationContext context;
+    MemberRepository memberRepository;
+    MemberMapper memberMapper;
+    PageCounter pageCounter;
+    MemberPageWriter memberPageWriter;
+    ObjectMapper objectMapper;
+    TransactionTemplate readOnly;
+    Pageable pageable;
+
+    // 응답 스트림 대신 - 바이트 수만 센다.
+    final CountingOutputStream out = new CountingOutputStream();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start("app.query.n-plus-one.mode=off");
+        memberRepository = context.getBean(MemberRepository.class);
+        memberMapper = context.getBean(MemberMapper.class);
+        pageCounter = context.getBean(PageCounter.class);
+        memberPageWriter = context.getBean(MemberPageWriter.class);
+        objectMapper = context.getBean(ObjectMapper.class);
+        readOnly = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnly.setReadOnly(true);
+
+        BenchmarkDataset.seed(context, 100, MEMBERS);
+        // 컨트롤러 기본값과 같은 정렬, 중간쯤 페이지
+        pageable = PageRequest.of(10, size, Sort.by(Sort.Direction.DESC, "age"));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public long pageJson() throws IOException {
+        Page<MemberDto> page = readOnly.execute(status -> pageCounter
+                .getPage(pageable, CountStrategy.CACHED, "members",
+                        () -> memberRepository.findMemberList(pageable),
+                        memberRepository::count,
+                        memberRepository::estimateCount)
+                .map(memberMapper::toDto));
+        objectMapper.writeValue(out, page);
+        return out.count;
+    }
+
+    @Benchmark
+    public long streaming() throws IOException {
+        memberPageWriter.write(pageable, CountStrategy.CACHED, out);
+        return out.count;
+    }
+
+    static final class CountingOutputStream extends OutputStream {
+        long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
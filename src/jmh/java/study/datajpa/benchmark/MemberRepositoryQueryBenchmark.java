@@ -0,0 +1,131 @@
+package study.datajpa.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.repository.NestedClosedProjections;
+import study.datajpa.repository.UsernameOnly;
+import study.datajpa.repository.UsernameOnlyDto;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+// 같은 데이터를 가져오는 `MemberRepository`의 여러 방법들 비교
+// `./gradlew jmh`로 돌리면 처리량(thrpt), 지연시간 분포(sample -> p50/p90/p99/p999),
+// GC 프로파일러(-prof gc)의 할당량(gc.alloc.rate.norm)이 `build/reports/jmh/results.json`에 남는다.
+// 릴리즈마다 이 파일을 비교하면 된다.
+//
+// 실제 서비스처럼 읽기 전용 트랜잭션 안에서 호출하고, 결과는 JMH 가 소비(consume)하도록 반환한다.
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class MemberRepositoryQueryBenchmark {
+
+    // 조회 쿼리 하나에 딸려오는 회원 수 = members / 100
+    @Param({"10000"})
+    int members;
+
+    @Param({"100"})
+    int teams;
+
+    ConfigurableApplicationContext context;
+    MemberRepository memberRepository;
+    TransactionTemplate readOnly;
+    PageRequest pageRequest;
+
+    // 닫힌(closed) 프로젝션 - getter 이름에 해당하는 컬럼만 조회한다.
+    public interface UsernameClosed {
+        String getUsername();
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start();
+        memberRepository = context.getBean(MemberRepository.class);
+        readOnly = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnly.setReadOnly(true);
+        pageRequest = PageRequest.of(0, 20, Sort.by(Sort.Direction.DESC, "username"));
+
+        BenchmarkDataset.seed(context, teams, members);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    private <T> T inReadOnly(Supplier<T> query) {
+        return readOnly.execute(status -> query.get());
+    }
+
+    // ---- 전체 조회 + 팀 ----
+
+    @Benchmark
+    public List<Member> findAllEntityGraph() {
+        return inReadOnly(() -> memberRepository.findAll());
+    }
+
+    @Benchmark
+    public List<Member> findMemberFetchJoin() {
+        return inReadOnly(() -> memberRepository.findMemberFetchJoin());
+    }
+
+    @Benchmark
+    public List<Member> findMemberEntityGraph() {
+        return inReadOnly(() -> memberRepository.findMemberEntityGraph());
+    }
+
+    @Benchmark
+    public List<Member> findMemberCustom() {
+        return inReadOnly(() -> memberRepository.findMemberCustom());
+    }
+
+    // ---- 프로젝션 ----
+
+    @Benchmark
+    public List<UsernameClosed> projectionClosed() {
+        return inReadOnly(() -> memberRepository.findProjectionsByUsername("member1", UsernameClosed.class));
+    }
+
+    @Benchmark
+    public List<UsernameOnly> projectionOpen() {
+        return inReadOnly(() -> memberRepository.findProjectionsByUsername("member1", UsernameOnly.class));
+    }
+
+    @Benchmark
+    public List<UsernameOnlyDto> projectionDto() {
+        return inReadOnly(() -> memberRepository.findProjectionsByUsername("member1", UsernameOnlyDto.class));
+    }
+
+    @Benchmark
+    public List<NestedClosedProjections> projectionNested() {
+        return inReadOnly(() -> memberRepository.findProjectionsByUsername("member1", NestedClosedProjections.class));
+    }
+
+    // ---- 페이징 ----
+
+    @Benchmark
+    public Page<Member> pagingPage() {
+        return inReadOnly(() -> memberRepository.findByAge(10, pageRequest));
+    }
+
+    @Benchmark
+    public Slice<Member> pagingSlice() {
+        return inReadOnly(() -> memberRepository.findSliceByAge(10, pageRequest));
+    }
+
+    @Benchmark
+    public List<Member> pagingList() {
+        return inReadOnly(() -> memberRepository.findListByAge(10, pageRequest));
+    }
+}
@@ -0,0 +1,119 @@
+package study.datajpa.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.repository.NestedClosedProjections;
+import study.datajpa.repository.UsernameOnly;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+// 동적 프로젝션 - `ProjectionEngine` vs 스프링 데이터 기본 동작
+// - engine: `findProjectionsByUsername`, 쓰는 컬럼만 조회해서 생성한 클래스에 담는다.
+// - derived: `findDerivedProjectionsByUsername`, 중첩 프로젝션이면 팀 엔티티 전체 + `TupleBackedMap` 프록시
+// - open*: `@Value` 열린 프로젝션, 스프링 데이터는 엔티티 전체를 조회하고 getter 마다 SpEL 을 해석한다.
+// 할당량은 `gc.alloc.rate.norm`(호출 한 번당 바이트), 지연시간은 SampleTime 의 p50/p99 를 비교한다.
+// ./gradlew jmh -Pjmh.include=ProjectionBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.AverageTime, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ProjectionBenchmark {
+
+    // 조회 한 번에 나오는 row 수 = members / 100
+    @Param({"10000", "100000"})
+    int members;
+
+    static final int TEAMS = 100;
+
+    ConfigurableApplicationContext context;
+    MemberRepository memberRepository;
+    TransactionTemplate readOnly;
+
+    public interface UsernameClosed {
+        String getUsername();
+    }
+
+    // JPQL 로 내릴 수 없는 표현식 - 컴파일된 SpEL 로 계산한다.
+    public interface AgeNextYear {
+        @Value("#{target.age + 1}")
+        int getAgeNextYear();
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start("app.query.n-plus-one.mode=off");
+        memberRepository = context.getBean(MemberRepository.class);
+        readOnly = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnly.setReadOnly(true);
+
+        BenchmarkDataset.seed(context, TEAMS, members);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    private <T> T inReadOnly(Supplier<T> query) {
+        return readOnly.execute(status -> query.get());
+    }
+
+    @Benchmark
+    public List<NestedClosedProjections> nestedEngine() {
+        return inReadOnly(() -> memberRepository.findProjectionsByUsername("member1", NestedClosedProjections.class));
+    }
+
+    @Benchmark
+    public List<NestedClosedProjections> nestedDerived() {
+        return inReadOnly(() -> memberRepository.findDerivedProjectionsByUsername("member1", NestedClosedProjections.class));
+    }
+
+    @Benchmark
+    public List<UsernameClosed> closedEngine() {
+        return inReadOnly(() -> memberRepository.findProjectionsByUsername("member1", UsernameClosed.class));
+    }
+
+    @Benchmark
+    public List<UsernameClosed> closedDerived() {
+        return inReadOnly(() -> memberRepository.findDerivedProjectionsByUsername("member1", UsernameClosed.class));
+    }
+
+    // 열린 프로젝션 - engine 은 `closedEngine`과 비슷해야 한다.
+    @Benchmark
+    public List<UsernameOnly> openEngine(Blackhole blackhole) {
+        return consume(blackhole, inReadOnly(() -> memberRepository.findProjectionsByUsername("member1", UsernameOnly.class)));
+    }
+
+    @Benchmark
+    public List<UsernameOnly> openDerived(Blackhole blackhole) {
+        // 스프링 데이터는 getter 를 부를 때 SpEL 을 계산하니까 값을 꺼내는 비용까지 잰다.
+        return consume(blackhole, inReadOnly(() -> memberRepository.findDerivedProjectionsByUsername("member1", UsernameOnly.class)));
+    }
+
+    @Benchmark
+    public List<AgeNextYear> openCompiledEngine(Blackhole blackhole) {
+        List<AgeNextYear> result = inReadOnly(() -> memberRepository.findProjectionsByUsername("member1", AgeNextYear.class));
+        result.forEach(projection -> blackhole.consume(projection.getAgeNextYear()));
+        return result;
+    }
+
+    @Benchmark
+    public List<AgeNextYear> openCompiledDerived(Blackhole blackhole) {
+        List<AgeNextYear> result = inReadOnly(() -> memberRepository.findDerivedProjectionsByUsername("member1", AgeNextYear.class));
+        result.forEach(projection -> blackhole.consume(projection.getAgeNextYear()));
+        return result;
+    }
+
+    private static List<UsernameOnly> consume(Blackhole blackhole, List<UsernameOnly> result) {
+        result.forEach(projection -> blackhole.consume(projection.getUsername()));
+        return result;
+    }
+}
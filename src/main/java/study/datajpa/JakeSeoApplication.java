@@ -6,9 +6,7 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.data.domain.AuditorAware;
 import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
-
-import java.util.Optional;
-import java.util.UUID;
+import study.datajpa.audit.RequestAuditorAware;
 
 
 // 스프링 부트를 사용하지 않았다면 아래의 애노테이션을 붙여야 했음
@@ -24,6 +22,7 @@ public class JakeSeoApplication {
 	@Bean
 	public AuditorAware<String> auditorProvider() {
 		// 실무에서는 SpringSecurityContext 등에서 유저 ID 등을 가져와서 처리한다.
-		return () -> Optional.of(UUID.randomUUID().toString());
+		// 요청마다 한 번만 정해서 재사용한다.
+		return new RequestAuditorAware();
 	}
 }
@@ -0,0 +1,78 @@
+package study.datajpa.audit;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+// 쓰기 트랜잭션(여러 스레드)이 넣고 `AuditFlusher`(스레드 하나)가 꺼내가는 버퍼
+// 락 없는 `ConcurrentLinkedQueue`에 개수 제한만 `AtomicInteger`로 따로 센다. (`ConcurrentLinkedQueue.size()`는 O(n))
+public class AuditBuffer {
+
+    // 꽉 찼을 때 다시 확인하는 간격
+    private static final long RETRY_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    private final Queue<AuditRecord> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final AtomicLong dropped = new AtomicLong();
+    private final int capacity;
+    private final long offerTimeoutNanos;
+
+    public AuditBuffer(int capacity, long offerTimeout, TimeUnit unit) {
+        this.capacity = Math.max(capacity, 1);
+        this.offerTimeoutNanos = unit.toNanos(offerTimeout);
+    }
+
+    // 자리가 없으면 `offerTimeout`까지 기다려보고, 그래도 없으면 버린다. (쓰기 요청이 감사 때문에 계속 막히지 않도록)
+    public boolean offer(AuditRecord record) {
+        long deadline = System.nanoTime() + offerTimeoutNanos;
+        while (!tryReserve()) {
+            if (System.nanoTime() - deadline >= 0) {
+                dropped.incrementAndGet();
+                return false;
+            }
+            LockSupport.parkNanos(RETRY_NANOS);
+        }
+
+        queue.offer(record);
+        return true;
+    }
+
+    // 최대 `max`개를 꺼낸다.
+    public List<AuditRecord> drain(int max) {
+        List<AuditRecord> records = new ArrayList<>(Math.min(max, size.get()));
+        AuditRecord record;
+        while (records.size() < max && (record = queue.poll()) != null) {
+            records.add(record);
+        }
+        size.addAndGet(-records.size());
+        return records;
+    }
+
+    public int size() {
+        return size.get();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    private boolean tryReserve() {
+        int current;
+        do {
+            current = size.get();
+            if (current >= capacity) {
+                return false;
+            }
+        } while (!size.compareAndSet(current, current + 1));
+        return true;
+    }
+}
@@ -0,0 +1,99 @@
+package study.datajpa.audit;
+
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import study.datajpa.entity.AuditAction;
+import study.datajpa.entity.BaseEntity;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.StringJoiner;
+
+// `BaseEntity`를 상속한 엔티티가 insert/update/delete 되고 커밋된 뒤에 호출된다.
+// 여기서는 이벤트를 만들어 버퍼에 넣기만 하고, DB 저장은 `AuditFlusher`가 따로 한다.
+// 롤백된 변경은 호출되지 않으므로 이력에 남지 않는다.
+public class AuditEventListener implements PostCommitInsertEventListener, PostCommitUpdateEventListener,
+        PostCommitDeleteEventListener {
+
+    // 감사 컬럼 자체나 낙관적 락 버전이 바뀐 것은 변경 필드로 치지 않는다.
+    private static final Set<String> AUDIT_FIELDS = new HashSet<>(Arrays.asList(
+            "createdDate", "updatedDate", "createdBy", "updatedBy", "version"));
+
+    private final AuditBuffer auditBuffer;
+
+    public AuditEventListener(AuditBuffer auditBuffer) {
+        this.auditBuffer = auditBuffer;
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (event.getEntity() instanceof BaseEntity) {
+            BaseEntity entity = (BaseEntity) event.getEntity();
+            auditBuffer.offer(record(event.getPersister(), event.getId(), AuditAction.INSERT, null, entity.getCreatedBy()));
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (event.getEntity() instanceof BaseEntity) {
+            BaseEntity entity = (BaseEntity) event.getEntity();
+            String changedFields = changedFields(event.getPersister(), event.getDirtyProperties());
+            auditBuffer.offer(record(event.getPersister(), event.getId(), AuditAction.UPDATE, changedFields, entity.getUpdatedBy()));
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getEntity() instanceof BaseEntity) {
+            auditBuffer.offer(record(event.getPersister(), event.getId(), AuditAction.DELETE, null,
+                    RequestAuditorAware.currentAuditor()));
+        }
+    }
+
+    // 커밋이 실패하면 변경도 없던 일이므로 남기지 않는다.
+    @Override
+    public void onPostInsertCommitFailed(PostInsertEvent event) {
+    }
+
+    @Override
+    public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+    }
+
+    @Override
+    public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+    }
+
+    // 이름 오타는 하이버네이트 5 인터페이스 그대로
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return BaseEntity.class.isAssignableFrom(persister.getMappedClass());
+    }
+
+    private static AuditRecord record(EntityPersister persister, Object id, AuditAction action,
+                                      String changedFields, String auditor) {
+        return new AuditRecord(persister.getEntityName(), String.valueOf(id), action, changedFields,
+                auditor != null ? auditor : RequestAuditorAware.currentAuditor(), LocalDateTime.now());
+    }
+
+    private static String changedFields(EntityPersister persister, int[] dirtyProperties) {
+        if (dirtyProperties == null) {
+            return null;
+        }
+
+        String[] propertyNames = persister.getPropertyNames();
+        StringJoiner joiner = new StringJoiner(",");
+        for (int index : dirtyProperties) {
+            if (!AUDIT_FIELDS.contains(propertyNames[index])) {
+                joiner.add(propertyNames[index]);
+            }
+        }
+        return joiner.toString();
+    }
+}
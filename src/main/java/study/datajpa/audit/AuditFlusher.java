@@ -0,0 +1,110 @@
+package study.datajpa.audit;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import study.datajpa.entity.AuditEvent;
+import study.datajpa.repository.BulkJpaRepository;
+
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+// `AuditBuffer`에 쌓인 이벤트를 주기적으로 꺼내서 `audit_event` 테이블에 배치 insert 한다.
+// 쓰기 요청과 다른 스레드, 다른 트랜잭션에서 저장하므로 감사 때문에 쓰기가 느려지지 않는다.
+// 서버가 내려갈 때 남은 이벤트를 마저 저장한다. (강제 종료되면 버퍼에 남은 것은 잃는다.)
+@Slf4j
+public class AuditFlusher implements SmartLifecycle {
+
+    private final AuditBuffer auditBuffer;
+    private final BulkJpaRepository bulkJpaRepository;
+    private final int batchSize;
+    private final long flushIntervalMs;
+    private final AtomicLong flushed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    private ScheduledExecutorService scheduler;
+
+    public AuditFlusher(AuditBuffer auditBuffer, BulkJpaRepository bulkJpaRepository, int batchSize, long flushIntervalMs) {
+        this.auditBuffer = auditBuffer;
+        this.bulkJpaRepository = bulkJpaRepository;
+        this.batchSize = Math.max(batchSize, 1);
+        this.flushIntervalMs = Math.max(flushIntervalMs, 1);
+    }
+
+    // 버퍼가 빌 때까지(혹은 실패할 때까지) 배치 단위로 저장한다. 저장한 개수를 돌려준다.
+    public synchronized int flush() {
+        int total = 0;
+        List<AuditRecord> records;
+        while (!(records = auditBuffer.drain(batchSize)).isEmpty()) {
+            List<AuditEvent> events = records.stream()
+                    .map(AuditRecord::toEntity)
+                    .collect(Collectors.toList());
+            try {
+                bulkJpaRepository.persistAll(events);
+            } catch (RuntimeException e) {
+                // 다시 넣으면 같은 실패가 반복될 수 있어서 버린다.
+                failed.addAndGet(events.size());
+                log.error("감사 이벤트 {}건 저장 실패", events.size(), e);
+                return total;
+            }
+            flushed.addAndGet(events.size());
+            total += events.size();
+        }
+        return total;
+    }
+
+    public long getFlushed() {
+        return flushed.get();
+    }
+
+    public long getFailed() {
+        return failed.get();
+    }
+
+    @Override
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "audit-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void stop() {
+        if (scheduler == null) {
+            return;
+        }
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        scheduler = null;
+        flushQuietly();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return scheduler != null;
+    }
+
+    // 웹 서버가 먼저 멈춘 뒤(더 이상 쓰기 요청이 없을 때), `EntityManagerFactory`가 닫히기 전에 남은 이벤트를 저장한다.
+    @Override
+    public int getPhase() {
+        return Integer.MAX_VALUE - 1000;
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.error("감사 이벤트 저장 중 오류", e);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package study.datajpa.audit;
+
+import lombok.Getter;
+import lombok.ToString;
+import study.datajpa.entity.AuditAction;
+import study.datajpa.entity.AuditEvent;
+
+import java.time.LocalDateTime;
+
+// 버퍼에 들어가는 변경 이벤트 - 커밋 직후 만들어져서 다른 스레드가 꺼내가므로 불변으로 둔다.
+@Getter
+@ToString
+public final class AuditRecord {
+
+    private final String entityName;
+    private final String entityId;
+    private final AuditAction action;
+    private final String changedFields;
+    private final String auditor;
+    private final LocalDateTime occurredAt;
+
+    public AuditRecord(String entityName, String entityId, AuditAction action, String changedFields,
+                       String auditor, LocalDateTime occurredAt) {
+        this.entityName = entityName;
+        this.entityId = entityId;
+        this.action = action;
+        this.changedFields = changedFields;
+        this.auditor = auditor;
+        this.occurredAt = occurredAt;
+    }
+
+    public AuditEvent toEntity() {
+        return new AuditEvent(entityName, entityId, action, changedFields, auditor, occurredAt);
+    }
+}
@@ -0,0 +1,46 @@
+package study.datajpa.audit;
+
+import org.springframework.data.domain.AuditorAware;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+// 요청마다 한 번만 등록자/수정자를 정하고, 같은 요청 안에서는 그 값을 재사용한다.
+// 예전에는 `persist`/`update` 할 때마다 `UUID.randomUUID()`(`SecureRandom`)를 호출했다.
+// 실무에서는 여기서 SpringSecurityContext 등의 유저 ID 를 꺼내면 된다.
+public class RequestAuditorAware implements AuditorAware<String> {
+
+    static final String SYSTEM_AUDITOR = "system";
+    private static final String ATTRIBUTE_NAME = RequestAuditorAware.class.getName() + ".AUDITOR";
+
+    @Override
+    public Optional<String> getCurrentAuditor() {
+        return Optional.of(currentAuditor());
+    }
+
+    // HTTP 요청이 아니면(배치, 테스트, 비동기 스레드) `system`
+    public static String currentAuditor() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return SYSTEM_AUDITOR;
+        }
+
+        String auditor = (String) attributes.getAttribute(ATTRIBUTE_NAME, RequestAttributes.SCOPE_REQUEST);
+        if (auditor == null) {
+            auditor = randomUuid();
+            attributes.setAttribute(ATTRIBUTE_NAME, auditor, RequestAttributes.SCOPE_REQUEST);
+        }
+        return auditor;
+    }
+
+    // 보안용 난수가 필요 없어서 `ThreadLocalRandom`으로 만든 버전 4 UUID
+    private static String randomUuid() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long mostSigBits = (random.nextLong() & ~0xF000L) | 0x4000L;
+        long leastSigBits = (random.nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+        return new UUID(mostSigBits, leastSigBits).toString();
+    }
+}
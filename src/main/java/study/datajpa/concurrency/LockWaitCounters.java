@@ -0,0 +1,35 @@
+package study.datajpa.concurrency;
+
+// 스레드별로 락을 기다린 시간과 낙관적 락 재시도 횟수를 센다. (`QueryCounters`와 같은 방식)
+// 호출 전후 값을 빼면 그 사이에 얼마나 기다렸는지 알 수 있다. (`MemberContentionBenchmark`)
+public final class LockWaitCounters {
+
+    private static final ThreadLocal<LockWaitCounters> CURRENT = ThreadLocal.withInitial(LockWaitCounters::new);
+
+    // 락(DB 행 락, 스트라이프 락)을 기다린 시간 + 재시도 전 백오프로 쉰 시간
+    private long waitNanos;
+    private long conflicts;
+
+    private LockWaitCounters() {
+    }
+
+    public static LockWaitCounters current() {
+        return CURRENT.get();
+    }
+
+    public void waited(long nanos) {
+        waitNanos += nanos;
+    }
+
+    void conflicted() {
+        conflicts++;
+    }
+
+    public long getWaitNanos() {
+        return waitNanos;
+    }
+
+    public long getConflicts() {
+        return conflicts;
+    }
+}
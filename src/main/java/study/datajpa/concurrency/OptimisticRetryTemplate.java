@@ -0,0 +1,92 @@
+package study.datajpa.concurrency;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.transaction.IllegalTransactionStateException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.OptimisticLockException;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// `@Version` 충돌(낙관적 락 실패)이 나면 트랜잭션을 새로 시작해서 다시 실행한다.
+// 충돌이 나면 영속성 컨텍스트에 있는 엔티티가 이미 낡은 것이라 같은 트랜잭션 안에서는 다시 할 수 없다.
+// 그래서 바깥에 트랜잭션이 있으면 실행하지 않는다. (`callback`은 매번 처음부터 다시 읽어야 한다.)
+//
+// 재시도 간격은 지수 백오프 + full jitter: `random(0, min(maxBackoff, initialBackoff * 2^(시도-1)))`
+// 충돌한 트랜잭션들이 똑같이 기다렸다가 다시 동시에 부딪히지 않도록 흩어준다.
+//
+// 같은 행을 자주 수정하는(hot row) 경우에는 `executeSerialized()`로 같은 키끼리 먼저 줄을 세운다.
+@Slf4j
+public class OptimisticRetryTemplate {
+
+    private final TransactionTemplate transactionTemplate;
+    private final StripedLock stripedLock;
+    private final int maxAttempts;
+    private final long initialBackoffNanos;
+    private final long maxBackoffNanos;
+
+    private final LongAdder conflicts = new LongAdder();
+    private final LongAdder exhausted = new LongAdder();
+
+    public OptimisticRetryTemplate(PlatformTransactionManager transactionManager, StripedLock stripedLock,
+                                   int maxAttempts, Duration initialBackoff, Duration maxBackoff) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.stripedLock = stripedLock;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffNanos = initialBackoff.toNanos();
+        this.maxBackoffNanos = maxBackoff.toNanos();
+    }
+
+    public <T> T execute(TransactionCallback<T> callback) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalTransactionStateException("낙관적 락 재시도는 트랜잭션 밖에서 호출해야 합니다.");
+        }
+
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(callback);
+            } catch (OptimisticLockingFailureException | OptimisticLockException e) {
+                conflicts.increment();
+                LockWaitCounters.current().conflicted();
+                if (attempt >= maxAttempts) {
+                    exhausted.increment();
+                    log.warn("낙관적 락 충돌 {}번, 포기합니다.", attempt);
+                    throw e;
+                }
+                backoff(attempt, e);
+            }
+        }
+    }
+
+    // 같은 키(`username`, id 등)에 대한 수정은 이 프로세스 안에서 한 번에 하나씩만 DB 에 간다.
+    // 자주 부딪히는 행이면 DB 에서 충돌 -> 롤백 -> 재시도하는 것보다 여기서 기다리는 것이 싸다.
+    public <T> T executeSerialized(Object key, TransactionCallback<T> callback) {
+        return stripedLock.withLock(key, () -> execute(callback));
+    }
+
+    private void backoff(int attempt, RuntimeException conflict) {
+        long ceiling = Math.min(maxBackoffNanos, initialBackoffNanos << Math.min(attempt - 1, 30));
+        long sleepNanos = ThreadLocalRandom.current().nextLong(ceiling + 1);
+        try {
+            TimeUnit.NANOSECONDS.sleep(sleepNanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw conflict;
+        }
+        LockWaitCounters.current().waited(sleepNanos);
+    }
+
+    public long getConflicts() {
+        return conflicts.sum();
+    }
+
+    public long getExhausted() {
+        return exhausted.sum();
+    }
+}
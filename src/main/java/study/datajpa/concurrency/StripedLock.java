@@ -0,0 +1,46 @@
+package study.datajpa.concurrency;
+
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+// 키별로 잠그는 락 - 키마다 락을 만들지 않고, 해시로 고른 `stripes`개 중 하나를 쓴다.
+// 같은 키는 항상 같은 락을 쓰니 이 프로세스 안에서는 같은 행에 대한 수정이 한 줄로 선다.
+// 다른 키가 같은 락에 걸릴 수도 있지만(해시 충돌) 결과가 틀리지는 않고 조금 더 기다릴 뿐이다.
+// 서버가 여러 대면 서버끼리는 여전히 `@Version`으로 충돌을 잡는다.
+public class StripedLock {
+
+    private final ReentrantLock[] locks;
+    private final int mask;
+
+    public StripedLock(int stripes) {
+        // 2의 거듭제곱으로 올려서 `%` 대신 `&`로 고른다.
+        int size = Integer.highestOneBit(Math.max(stripes - 1, 1)) << 1;
+        this.locks = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        this.mask = size - 1;
+    }
+
+    public <T> T withLock(Object key, Supplier<T> action) {
+        ReentrantLock lock = locks[index(key)];
+        long startedAt = System.nanoTime();
+        lock.lock();
+        try {
+            LockWaitCounters.current().waited(System.nanoTime() - startedAt);
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getStripes() {
+        return locks.length;
+    }
+
+    private int index(Object key) {
+        int hash = key.hashCode();
+        // `HashMap`처럼 상위 비트를 섞는다.
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+}
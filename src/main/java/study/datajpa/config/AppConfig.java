@@ -1,13 +1,21 @@
 package study.datajpa.config;
 
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.modelmapper.ModelMapper;
 import org.modelmapper.convention.NameTokenizers;
 import org.modelmapper.spi.NameTokenizer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.ui.ModelMap;
+import study.datajpa.concurrency.OptimisticRetryTemplate;
+import study.datajpa.concurrency.StripedLock;
 
 @Configuration
+@EnableConfigurationProperties({BulkUpdateProperties.class, ProjectionProperties.class, OptimisticRetryProperties.class})
 public class AppConfig {
 
     @Bean
@@ -19,4 +27,47 @@ public class AppConfig {
 
         return modelMapper;
     }
+
+    // `Page`의 `count` 쿼리를 내용 조회와 동시에 돌리기 위한 스레드 (`CountStrategy.CONCURRENT`)
+    // 커넥션을 하나 더 쓰게 되므로, 커넥션 풀 크기보다 작게 잡는다.
+    @Bean
+    public ThreadPoolTaskExecutor countExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(4);
+        executor.setMaxPoolSize(4);
+        executor.setQueueCapacity(100);
+        executor.setThreadNamePrefix("count-");
+        return executor;
+    }
+
+    // 벌크 수정 청크를 실행하는 스레드 (`BulkUpdateEngine`)
+    // 작업 하나가 `parallelism`개의 작업 스레드를 쓴다. 여러 작업이 동시에 들어오면 큐에서 기다린다.
+    @Bean
+    public ThreadPoolTaskExecutor bulkExecutor(BulkUpdateProperties properties) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(Math.max(properties.getParallelism(), 1));
+        executor.setMaxPoolSize(Math.max(properties.getParallelism(), 1));
+        executor.setQueueCapacity(100);
+        executor.setThreadNamePrefix("bulk-");
+        return executor;
+    }
+
+    // `@Version` 충돌 재시도 (`MemberAgeService`)
+    // 지표: http://localhost:8080/actuator/metrics/optimistic.lock.conflicts
+    @Bean
+    public OptimisticRetryTemplate optimisticRetryTemplate(PlatformTransactionManager transactionManager,
+                                                           OptimisticRetryProperties properties,
+                                                           MeterRegistry meterRegistry) {
+        OptimisticRetryTemplate template = new OptimisticRetryTemplate(transactionManager,
+                new StripedLock(properties.getStripes()), properties.getMaxAttempts(),
+                properties.getInitialBackoff(), properties.getMaxBackoff());
+
+        FunctionCounter.builder("optimistic.lock.conflicts", template, OptimisticRetryTemplate::getConflicts)
+                .description("낙관적 락 충돌로 다시 실행한 횟수")
+                .register(meterRegistry);
+        FunctionCounter.builder("optimistic.lock.exhausted", template, OptimisticRetryTemplate::getExhausted)
+                .description("최대 시도 횟수까지 충돌해서 포기한 횟수")
+                .register(meterRegistry);
+        return template;
+    }
 }
@@ -0,0 +1,27 @@
+package study.datajpa.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+// `CompletableFuture`를 반환하는 리포지토리 메소드(`@Async("repositoryExecutor")`)용 스레드
+// 톰캣 스레드는 요청을 넘겨주고 바로 반납되고, DB 호출은 이 스레드에서 기다린다.
+@Configuration
+@EnableAsync
+public class AsyncConfig {
+
+    // 스레드 수는 커넥션 풀 크기에 맞춘다. 더 많아봐야 커넥션을 기다리면서 스레드만 잡고 있게 된다.
+    // 큐가 차면 `TaskRejectedException` -> 503 으로 바로 돌려보낸다. (커넥션 대기가 끝없이 쌓이지 않도록)
+    @Bean
+    public ThreadPoolTaskExecutor repositoryExecutor(@Value("${app.async.pool-size:10}") int poolSize,
+                                                     @Value("${app.async.queue-capacity:200}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("repository-");
+        return executor;
+    }
+}
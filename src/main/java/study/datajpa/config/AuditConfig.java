@@ -0,0 +1,51 @@
+package study.datajpa.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import study.datajpa.audit.AuditBuffer;
+import study.datajpa.audit.AuditFlusher;
+import study.datajpa.repository.BulkJpaRepository;
+
+import java.util.concurrent.TimeUnit;
+
+// 엔티티 변경 이력(감사 이벤트)을 비동기로 저장하는 설정
+// 리스너(`AuditEventListener`)는 `HibernateListenerConfig`에서 하이버네이트에 붙인다.
+@Configuration
+@ConditionalOnProperty(name = "app.audit.enabled", havingValue = "true", matchIfMissing = true)
+@EnableConfigurationProperties(AuditProperties.class)
+public class AuditConfig {
+
+    @Bean
+    public AuditBuffer auditBuffer(AuditProperties properties, MeterRegistry meterRegistry) {
+        AuditBuffer buffer = new AuditBuffer(properties.getCapacity(),
+                properties.getOfferTimeout().toNanos(), TimeUnit.NANOSECONDS);
+
+        Gauge.builder("audit.buffer.size", buffer, AuditBuffer::size)
+                .description("저장을 기다리는 감사 이벤트 수")
+                .register(meterRegistry);
+        FunctionCounter.builder("audit.events.dropped", buffer, AuditBuffer::getDropped)
+                .description("버퍼가 꽉 차서 버린 감사 이벤트 수")
+                .register(meterRegistry);
+        return buffer;
+    }
+
+    @Bean
+    public AuditFlusher auditFlusher(AuditBuffer auditBuffer, BulkJpaRepository bulkJpaRepository,
+                                     AuditProperties properties, MeterRegistry meterRegistry) {
+        AuditFlusher flusher = new AuditFlusher(auditBuffer, bulkJpaRepository,
+                properties.getBatchSize(), properties.getFlushInterval().toMillis());
+
+        FunctionCounter.builder("audit.events.flushed", flusher, AuditFlusher::getFlushed)
+                .description("저장한 감사 이벤트 수")
+                .register(meterRegistry);
+        FunctionCounter.builder("audit.events.failed", flusher, AuditFlusher::getFailed)
+                .description("저장에 실패해서 버린 감사 이벤트 수")
+                .register(meterRegistry);
+        return flusher;
+    }
+}
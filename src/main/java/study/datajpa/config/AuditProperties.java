@@ -0,0 +1,26 @@
+package study.datajpa.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+// `app.audit.*` 설정값
+@Getter @Setter
+@ConfigurationProperties(prefix = "app.audit")
+public class AuditProperties {
+
+    // 끄면 변경 이력을 남기지 않는다. (`createdBy`/`updatedBy`는 그대로 채워진다.)
+    private boolean enabled = true;
+
+    // 메모리에 쌓아둘 수 있는 최대 이벤트 수
+    private int capacity = 10_000;
+
+    // 버퍼가 꽉 찼을 때 자리가 날 때까지 기다리는 최대 시간 - 넘으면 이벤트를 버리고 `audit.events.dropped`를 올린다.
+    private Duration offerTimeout = Duration.ofMillis(50);
+
+    // 한 번에 insert 할 최대 이벤트 수와 주기
+    private int batchSize = 500;
+    private Duration flushInterval = Duration.ofMillis(200);
+}
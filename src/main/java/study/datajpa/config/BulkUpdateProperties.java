@@ -0,0 +1,23 @@
+package study.datajpa.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+// `app.bulk.*` 설정값
+@Getter @Setter
+@ConfigurationProperties(prefix = "app.bulk")
+public class BulkUpdateProperties {
+
+    // 청크 하나(트랜잭션 하나)가 맡는 PK 범위 크기
+    private int chunkSize = 1_000;
+
+    // 동시에 실행할 청크 수 - 청크마다 커넥션을 하나씩 쓰기 때문에 커넥션 풀 크기보다 작게 잡는다.
+    private int parallelism = 2;
+
+    // 초당 최대 청크 수 (0 이하면 제한 없음) - 다른 요청이 쓸 DB 자원을 남겨두기 위해
+    private double maxChunksPerSecond = 0;
+
+    // 서버가 뜰 때 `RUNNING` 상태로 남은 작업(중간에 죽은 작업)을 이어서 실행할지
+    private boolean resumeOnStartup = true;
+}
@@ -0,0 +1,74 @@
+package study.datajpa.config;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import study.datajpa.audit.AuditBuffer;
+import study.datajpa.audit.AuditEventListener;
+import study.datajpa.index.UsernameIndex;
+import study.datajpa.index.UsernameIndexListener;
+import study.datajpa.metrics.CountingStatementInspector;
+import study.datajpa.metrics.EntityLoadCountingListener;
+import study.datajpa.metrics.NPlusOneDetector;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+
+// 하이버네이트 내부 이벤트에 리스너를 붙이는 설정
+// JPA 표준 엔티티 리스너(`@EntityListeners`)는 엔티티마다 붙여야 해서, 전체 엔티티에 대해 세려면 하이버네이트 API 를 써야 한다.
+@Configuration
+public class HibernateListenerConfig {
+
+    private final EntityManagerFactory entityManagerFactory;
+    // `app.audit.enabled=false`면 없다.
+    private final ObjectProvider<AuditBuffer> auditBuffer;
+    // `app.username-index.enabled`가 꺼져 있으면(기본값) 없다.
+    private final ObjectProvider<UsernameIndex> usernameIndex;
+
+    public HibernateListenerConfig(EntityManagerFactory entityManagerFactory, ObjectProvider<AuditBuffer> auditBuffer,
+                                   ObjectProvider<UsernameIndex> usernameIndex) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.auditBuffer = auditBuffer;
+        this.usernameIndex = usernameIndex;
+    }
+
+    // `EntityManagerFactory`가 만들어지기 전에 설정값으로 넘겨줘야 한다.
+    @Bean
+    public static HibernatePropertiesCustomizer statementInspectorCustomizer(
+            @Value("${app.query.n-plus-one.mode:log}") NPlusOneDetector.Mode mode,
+            @Value("${app.query.n-plus-one.threshold:3}") int threshold) {
+        CountingStatementInspector inspector = new CountingStatementInspector(new NPlusOneDetector(mode, threshold));
+        return hibernateProperties -> hibernateProperties.put("hibernate.session_factory.statement_inspector", inspector);
+    }
+
+    @PostConstruct
+    public void registerListeners() {
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+
+        registry.appendListeners(EventType.POST_LOAD, new EntityLoadCountingListener());
+
+        // 커밋된 변경만 감사 이벤트로 남긴다.
+        auditBuffer.ifAvailable(buffer -> {
+            AuditEventListener auditEventListener = new AuditEventListener(buffer);
+            registry.appendListeners(EventType.POST_COMMIT_INSERT, auditEventListener);
+            registry.appendListeners(EventType.POST_COMMIT_UPDATE, auditEventListener);
+            registry.appendListeners(EventType.POST_COMMIT_DELETE, auditEventListener);
+        });
+
+        usernameIndex.ifAvailable(index -> {
+            UsernameIndexListener usernameIndexListener = new UsernameIndexListener(index);
+            registry.appendListeners(EventType.PRE_INSERT, usernameIndexListener);
+            registry.appendListeners(EventType.PRE_UPDATE, usernameIndexListener);
+            registry.appendListeners(EventType.POST_COMMIT_INSERT, usernameIndexListener);
+            registry.appendListeners(EventType.POST_COMMIT_UPDATE, usernameIndexListener);
+            registry.appendListeners(EventType.POST_COMMIT_DELETE, usernameIndexListener);
+        });
+    }
+}
@@ -0,0 +1,62 @@
+package study.datajpa.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.transaction.PlatformTransactionManager;
+import study.datajpa.loader.MemberBatchLoader;
+import study.datajpa.loader.MemberBatchLoadingAspect;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.function.ToDoubleFunction;
+
+// 트랜잭션 밖의 `MemberRepository.findById()`를 모아서 `in` 쿼리로 조회한다. (`MemberBatchLoader`)
+// 지표: http://localhost:8080/actuator/metrics/member.batch-loader.requests 등
+// 배치 하나에 평균 몇 개가 들어갔는지 = `member.batch-loader.ids` / `member.batch-loader.batches`
+@Configuration
+@ConditionalOnProperty(name = "app.member-batch-loader.enabled", havingValue = "true", matchIfMissing = true)
+@EnableConfigurationProperties(MemberBatchLoaderProperties.class)
+public class MemberBatchLoaderConfig {
+
+    @Bean
+    public MemberBatchLoader memberBatchLoader(EntityManagerFactory entityManagerFactory,
+                                               PlatformTransactionManager transactionManager,
+                                               MemberBatchLoaderProperties properties, MeterRegistry meterRegistry) {
+        MemberBatchLoader loader = new MemberBatchLoader(entityManagerFactory, transactionManager, memberBatchExecutor(),
+                properties.getWindow(), properties.getMaxBatchSize(), properties.getConcurrency(), properties.getTimeout());
+
+        counter(meterRegistry, loader, "member.batch-loader.requests", "findById 호출 수", MemberBatchLoader::getRequests);
+        counter(meterRegistry, loader, "member.batch-loader.deduplicated", "이미 조회 중인 id 라서 결과를 같이 받은 호출 수",
+                MemberBatchLoader::getDeduplicated);
+        counter(meterRegistry, loader, "member.batch-loader.batches", "실행한 in 쿼리 수", MemberBatchLoader::getBatches);
+        counter(meterRegistry, loader, "member.batch-loader.ids", "in 쿼리로 조회한 id 수", MemberBatchLoader::getBatchedIds);
+        return loader;
+    }
+
+    // 요청 스레드가 배치 하나를 돌린 뒤에도 큐에 남은 id 를 이어서 조회한다.
+    // 한 번에 하나만 넘기니까 스레드 하나면 된다. (요청 스레드도 같이 배치를 돌린다.)
+    @Bean
+    public ThreadPoolTaskExecutor memberBatchExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setThreadNamePrefix("member-batch-");
+        return executor;
+    }
+
+    @Bean
+    public MemberBatchLoadingAspect memberBatchLoadingAspect(MemberBatchLoader memberBatchLoader) {
+        return new MemberBatchLoadingAspect(memberBatchLoader);
+    }
+
+    private static void counter(MeterRegistry meterRegistry, MemberBatchLoader loader, String name, String description,
+                                ToDoubleFunction<MemberBatchLoader> count) {
+        FunctionCounter.builder(name, loader, count)
+                .description(description)
+                .register(meterRegistry);
+    }
+}
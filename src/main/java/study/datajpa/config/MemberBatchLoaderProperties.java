@@ -0,0 +1,27 @@
+package study.datajpa.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+// `app.member-batch-loader.*` 설정값
+@Getter @Setter
+@ConfigurationProperties(prefix = "app.member-batch-loader")
+public class MemberBatchLoaderProperties {
+
+    private boolean enabled = true;
+
+    // 배치를 시작하기 전에 id 를 더 모으는 시간 - 0 이면 기다리지 않고, 조회 중에 쌓인 것만 모은다.
+    private Duration window = Duration.ZERO;
+
+    // `in` 절에 넣는 최대 id 수
+    private int maxBatchSize = 100;
+
+    // 동시에 실행하는 배치 수 (커넥션 풀보다 작게)
+    private int concurrency = 4;
+
+    // 다른 스레드가 조회해주는 것을 기다리는 최대 시간
+    private Duration timeout = Duration.ofSeconds(5);
+}
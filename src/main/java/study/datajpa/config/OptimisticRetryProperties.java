@@ -0,0 +1,23 @@
+package study.datajpa.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+// `app.optimistic-retry.*` 설정값
+@Getter @Setter
+@ConfigurationProperties(prefix = "app.optimistic-retry")
+public class OptimisticRetryProperties {
+
+    // 처음 실행을 포함한 최대 시도 횟수
+    private int maxAttempts = 5;
+
+    // 재시도 간격의 상한은 `initialBackoff`부터 두 배씩 늘어나고 `maxBackoff`를 넘지 않는다. 실제로는 0 ~ 상한 사이에서 랜덤
+    private Duration initialBackoff = Duration.ofMillis(5);
+    private Duration maxBackoff = Duration.ofMillis(100);
+
+    // 같은 키 수정을 줄 세우는 락 개수 (`StripedLock`)
+    private int stripes = 64;
+}
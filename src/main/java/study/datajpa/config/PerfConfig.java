@@ -0,0 +1,24 @@
+package study.datajpa.config;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import study.datajpa.perf.PerfDataGenerator;
+
+// 부하 테스트용 프로필 (`application-perf.properties`)
+// ./gradlew bootRun --args='--spring.profiles.active=perf'
+// ./gradlew bootRun --args='--spring.profiles.active=perf --app.perf.seed.members=10000000 --app.perf.seed.teams=100000'
+@Configuration
+@Profile("perf")
+@EnableConfigurationProperties(PerfDataProperties.class)
+public class PerfConfig {
+
+    @Bean
+    public PerfDataGenerator perfDataGenerator(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                               PerfDataProperties properties) {
+        return new PerfDataGenerator(jdbcTemplate, transactionManager, properties);
+    }
+}
@@ -0,0 +1,37 @@
+package study.datajpa.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+// `app.perf.seed.*` 설정값 (`perf` 프로필)
+// 분포의 `*-skew`는 지프 분포의 지수 - 0 이면 균등, 1 이면 1등이 2등의 두 배
+@Getter @Setter
+@ConfigurationProperties(prefix = "app.perf.seed")
+public class PerfDataProperties {
+
+    // 0 이면 만들지 않는다.
+    private long teams = 10_000;
+    private long members = 1_000_000;
+
+    // 회원이 팀에 들어가는 분포 - 몇몇 큰 팀에 몰린다. 10%는 팀이 없다.
+    private double teamSkew = 1.0;
+    private double noTeamRatio = 0.1;
+
+    // 서로 다른 username 개수와 분포 - 흔한 이름은 같은 이름이 많다.
+    private long usernameCardinality = 1_000_000;
+    private double usernameSkew = 0.8;
+
+    // 나이는 `minAge`에 가장 많고 `maxAge`로 갈수록 줄어든다.
+    private int minAge = 20;
+    private int maxAge = 80;
+    private double ageSkew = 0.7;
+
+    // 같은 설정이면 같은 데이터가 나온다.
+    private long randomSeed = 42;
+
+    // 동시에 insert 하는 스레드 수 (커넥션 풀보다 작게), 스레드 하나가 한 번에 맡는 행 수, JDBC 배치 크기
+    private int parallelism = 4;
+    private int chunkSize = 50_000;
+    private int batchSize = 1_000;
+}
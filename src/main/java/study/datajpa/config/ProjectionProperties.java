@@ -0,0 +1,19 @@
+package study.datajpa.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// `app.projection.*` 설정값
+@Getter @Setter
+@ConfigurationProperties(prefix = "app.projection")
+public class ProjectionProperties {
+
+    // 앱이 뜰 때 미리 분석해둘 프로젝션 (엔티티 이름 -> 프로젝션 타입 목록)
+    // 첫 요청에서 클래스 생성, 표현식 분석 비용을 내지 않도록 한다.
+    private Map<String, List<Class<?>>> warmUp = new LinkedHashMap<>();
+}
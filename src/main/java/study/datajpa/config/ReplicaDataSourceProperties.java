@@ -0,0 +1,26 @@
+package study.datajpa.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+// `app.datasource.replica.*` 설정값
+@Getter @Setter
+@ConfigurationProperties(prefix = "app.datasource.replica")
+public class ReplicaDataSourceProperties {
+
+    // 있어야지만 읽기/쓰기 분리가 켜진다.
+    private String url;
+    private String username = "sa";
+    private String password = "";
+    private String driverClassName;
+    private int maximumPoolSize = 10;
+
+    // 복제 지연(초)을 돌려주는 쿼리 - 없으면 연결만 확인한다.
+    private String lagQuery;
+    // 복제 지연이 이보다 크면 읽기도 프라이머리로 보낸다.
+    private Duration maxLag = Duration.ofSeconds(10);
+    private Duration checkInterval = Duration.ofSeconds(5);
+}
@@ -0,0 +1,125 @@
+package study.datajpa.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.autoconfigure.transaction.TransactionManagerCustomizers;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.PlatformTransactionManager;
+import study.datajpa.datasource.ReadOnlyRoutingJpaTransactionManager;
+import study.datajpa.datasource.ReplicaLagMonitor;
+import study.datajpa.datasource.ReplicationRoutingDataSource;
+
+import javax.sql.DataSource;
+
+// 읽기/쓰기 데이터소스 분리
+// `app.datasource.replica.url`이 있을 때만 켜진다. 없으면 스프링 부트 기본 데이터소스 하나만 쓴다.
+// 로컬에서는 H2 를 두 개 띄워서 확인할 수 있다. (복제는 안 되므로 스키마/데이터는 따로 넣어야 한다.)
+//   --app.datasource.replica.url=jdbc:h2:tcp://localhost/~/datajpa-replica
+//
+// 프라이머리/레플리카 커넥션 풀은 빈으로 등록하지 않는다.
+// 등록하면 스프링 부트가 데이터소스 빈이 생길 때마다 부르는 스키마 초기화(`DataSourceInitializerInvoker`)가
+// 아직 만드는 중인 `dataSource`를 찾다가 순환 참조로 실패한다. 그래서 풀은 여기서 만들고 닫는다.
+@Configuration
+@ConditionalOnProperty(name = "app.datasource.replica.url")
+@EnableConfigurationProperties(ReplicaDataSourceProperties.class)
+public class RoutingDataSourceConfig implements DisposableBean {
+
+    private final DataSourceProperties dataSourceProperties;
+    private final ReplicaDataSourceProperties replicaProperties;
+    private final Environment environment;
+    private final MeterRegistry meterRegistry;
+
+    private HikariDataSource primary;
+    private HikariDataSource replica;
+
+    public RoutingDataSourceConfig(DataSourceProperties dataSourceProperties, ReplicaDataSourceProperties replicaProperties,
+                                   Environment environment, MeterRegistry meterRegistry) {
+        this.dataSourceProperties = dataSourceProperties;
+        this.replicaProperties = replicaProperties;
+        this.environment = environment;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    public ReplicaLagMonitor replicaLagMonitor() {
+        return new ReplicaLagMonitor(replica(), replicaProperties);
+    }
+
+    // JPA, JDBC 템플릿 등은 전부 이 데이터소스를 쓴다.
+    // 트랜잭션 시작 시점에 커넥션을 바로 가져오지 않고, 실제로 쿼리를 실행할 때 `readOnly` 여부를 보고 고른다.
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaLagMonitor replicaLagMonitor) {
+        return new LazyConnectionDataSourceProxy(new ReplicationRoutingDataSource(primary(), replica(), replicaLagMonitor));
+    }
+
+    // JPA 읽기 전용 트랜잭션도 레플리카로 가게 한다. (스프링 부트 기본 `JpaTransactionManager` 대신)
+    @Bean
+    public PlatformTransactionManager transactionManager(ObjectProvider<TransactionManagerCustomizers> transactionManagerCustomizers) {
+        ReadOnlyRoutingJpaTransactionManager transactionManager = new ReadOnlyRoutingJpaTransactionManager();
+        transactionManagerCustomizers.ifAvailable(customizers -> customizers.customize(transactionManager));
+        return transactionManager;
+    }
+
+    // 기본값(`DELAYED_ACQUISITION_AND_HOLD`)이면 OSIV 로 열린 `EntityManager`가 요청이 끝날 때까지 커넥션을 들고 있어서,
+    // 읽기 트랜잭션 다음의 쓰기 트랜잭션이 레플리카 커넥션을 그대로 쓰게 된다. 트랜잭션마다 커넥션을 반납하게 한다.
+    @Bean
+    public HibernatePropertiesCustomizer connectionReleaseCustomizer() {
+        return hibernateProperties -> hibernateProperties.put(
+                "hibernate.connection.handling_mode", "DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION");
+    }
+
+    @Override
+    public void destroy() {
+        if (primary != null) {
+            primary.close();
+        }
+        if (replica != null) {
+            replica.close();
+        }
+    }
+
+    // `spring.datasource.*`, `spring.datasource.hikari.*`
+    private synchronized HikariDataSource primary() {
+        if (primary == null) {
+            HikariDataSource dataSource = dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+            Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(dataSource));
+            dataSource.setPoolName("primary");
+            // 빈이 아니라서 스프링 부트가 `hikaricp.*` 지표를 붙여주지 않는다.
+            dataSource.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+            primary = dataSource;
+        }
+        return primary;
+    }
+
+    private synchronized HikariDataSource replica() {
+        if (replica == null) {
+            HikariDataSource dataSource = new HikariDataSource();
+            dataSource.setPoolName("replica");
+            dataSource.setJdbcUrl(replicaProperties.getUrl());
+            dataSource.setUsername(replicaProperties.getUsername());
+            dataSource.setPassword(replicaProperties.getPassword());
+            if (replicaProperties.getDriverClassName() != null) {
+                dataSource.setDriverClassName(replicaProperties.getDriverClassName());
+            }
+            dataSource.setMaximumPoolSize(replicaProperties.getMaximumPoolSize());
+            dataSource.setReadOnly(true);
+            dataSource.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+            replica = dataSource;
+        }
+        return replica;
+    }
+}
@@ -0,0 +1,84 @@
+package study.datajpa.config;
+
+import org.ehcache.config.builders.CacheConfigurationBuilder;
+import org.ehcache.config.builders.ExpiryPolicyBuilder;
+import org.ehcache.config.builders.ResourcePoolsBuilder;
+import org.ehcache.core.config.DefaultConfiguration;
+import org.ehcache.jsr107.Eh107Configuration;
+import org.ehcache.jsr107.EhcacheCachingProvider;
+import org.hibernate.cache.spi.RegionFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.time.Duration;
+import java.util.UUID;
+
+// 하이버네이트 2차 캐시 설정
+// `app.cache.enabled=true` 일 때만 켜진다. 끄면 엔티티의 `@Cache`는 무시된다. (`application.properties`에서 2차 캐시를 끄고 있다.)
+// ehcache.xml 대신 코드로 캐시 영역을 만들어야 크기와 TTL 을 `application.properties`에서 바꿀 수 있다.
+@Configuration
+@ConditionalOnProperty(name = "app.cache.enabled", havingValue = "true")
+@EnableConfigurationProperties(SecondLevelCacheProperties.class)
+public class SecondLevelCacheConfig {
+
+    // 하이버네이트가 쓰는 캐시 영역 이름
+    // 엔티티는 클래스 이름, 컬렉션은 `클래스 이름.필드 이름`이 영역 이름이 된다.
+    static final String[] ENTITY_REGIONS = {
+            Member.class.getName(),
+            Team.class.getName(),
+            Team.class.getName() + ".members"
+    };
+    static final String QUERY_RESULTS_REGION = RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME;
+    static final String UPDATE_TIMESTAMPS_REGION = RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME;
+
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateCacheManager(SecondLevelCacheProperties properties) {
+        EhcacheCachingProvider provider = (EhcacheCachingProvider) Caching.getCachingProvider(EhcacheCachingProvider.class.getName());
+        // 기본 URI 로 받으면 같은 JVM 의 다른 스프링 컨텍스트(테스트 등)와 캐시 매니저를 같이 쓰게 되어 따로 만든다.
+        // 설정 객체를 같이 넘겨야 에이치캐시가 URI 를 ehcache.xml 주소로 읽으려고 하지 않는다.
+        URI uri = URI.create("urn:hibernate-second-level-cache:" + UUID.randomUUID());
+        CacheManager cacheManager = provider.getCacheManager(uri, new DefaultConfiguration(getClass().getClassLoader()));
+
+        for (String region : ENTITY_REGIONS) {
+            cacheManager.createCache(region, configuration(properties.getEntityMaxEntries(), properties.getEntityTtl()));
+        }
+        cacheManager.createCache(QUERY_RESULTS_REGION, configuration(properties.getQueryMaxEntries(), properties.getQueryTtl()));
+        // 테이블별 마지막 변경 시각을 들고 있는 영역이라, 만료되면 쿼리 캐시가 오래된 결과를 줄 수 있다.
+        // 그래서 여기는 TTL 을 주지 않는다.
+        cacheManager.createCache(UPDATE_TIMESTAMPS_REGION, configuration(properties.getEntityMaxEntries(), null));
+
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheCustomizer(CacheManager hibernateCacheManager) {
+        return hibernateProperties -> {
+            hibernateProperties.put("hibernate.cache.use_second_level_cache", true);
+            hibernateProperties.put("hibernate.cache.use_query_cache", true);
+            hibernateProperties.put("hibernate.cache.region.factory_class", "jcache");
+            hibernateProperties.put("hibernate.javax.cache.cache_manager", hibernateCacheManager);
+            // 위에서 안 만든 영역이 필요해지면 기본 설정으로 만들고 경고 로그를 남긴다.
+            hibernateProperties.put("hibernate.javax.cache.missing_cache_strategy", "create-warn");
+            // 히트/미스 통계 (`/stats/second-level-cache`)
+            hibernateProperties.put("hibernate.generate_statistics", true);
+        };
+    }
+
+    private static javax.cache.configuration.Configuration<Object, Object> configuration(long maxEntries, Duration ttl) {
+        CacheConfigurationBuilder<Object, Object> builder = CacheConfigurationBuilder
+                .newCacheConfigurationBuilder(Object.class, Object.class, ResourcePoolsBuilder.heap(maxEntries));
+
+        if (ttl != null) {
+            builder = builder.withExpiry(ExpiryPolicyBuilder.timeToLiveExpiration(ttl));
+        }
+        return Eh107Configuration.fromEhcacheCacheConfiguration(builder);
+    }
+}
@@ -0,0 +1,24 @@
+package study.datajpa.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+// `app.cache.*` 설정값
+@Getter @Setter
+@ConfigurationProperties(prefix = "app.cache")
+public class SecondLevelCacheProperties {
+
+    // 켜야지만 2차 캐시, 쿼리 캐시가 동작한다.
+    private boolean enabled = false;
+
+    // 엔티티, 컬렉션 캐시 영역별 최대 개수와 TTL
+    private long entityMaxEntries = 10_000;
+    private Duration entityTtl = Duration.ofMinutes(10);
+
+    // 쿼리 캐시 영역의 최대 개수와 TTL
+    private long queryMaxEntries = 1_000;
+    private Duration queryTtl = Duration.ofMinutes(1);
+}
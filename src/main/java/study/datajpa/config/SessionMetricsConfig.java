@@ -0,0 +1,53 @@
+package study.datajpa.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.stat.spi.StatisticsFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import study.datajpa.metrics.SessionCountingListener;
+import study.datajpa.metrics.SessionCountingStatistics;
+import study.datajpa.metrics.SessionMetricsCollector;
+import study.datajpa.metrics.SessionMetricsEndpoint;
+
+import java.time.Clock;
+
+// 요청별 하이버네이트 세션 지표 (`SessionMetricsCollector`)
+// 세는 것은 `QueryScopeFilter`가 요청마다 `QueryScope`로 묶고, 요청이 끝나면 모은다.
+// http://localhost:8080/actuator/sessions
+@Configuration
+@ConditionalOnProperty(name = "app.session-metrics.enabled", havingValue = "true", matchIfMissing = true)
+@EnableConfigurationProperties(SessionMetricsProperties.class)
+public class SessionMetricsConfig {
+
+    // `EntityManagerFactory`가 만들어지기 전에 설정값으로 넘겨줘야 한다.
+    // - 세션 이벤트(플러시, 변경 감지, 2차 캐시 조회): 세션마다 리스너를 하나씩 만든다.
+    // - 하이버네이트 통계(연관 엔티티 fetch, 컬렉션 로딩, 쿼리 플랜 캐시): 전역 통계는 `hibernate.generate_statistics`일 때만 쌓는다.
+    @Bean
+    public static HibernatePropertiesCustomizer sessionMetricsCustomizer() {
+        return hibernateProperties -> {
+            hibernateProperties.put("hibernate.session.events.auto", SessionCountingListener.class.getName());
+            hibernateProperties.put("hibernate.stats.factory", (StatisticsFactory) SessionCountingStatistics::new);
+        };
+    }
+
+    @Bean
+    public SessionMetricsCollector sessionMetricsCollector(SessionMetricsProperties properties, MeterRegistry meterRegistry) {
+        SessionMetricsCollector collector = new SessionMetricsCollector(properties.getWindow(), properties.getBuckets(),
+                Clock.systemUTC(), properties.getEntitiesLoadedThreshold(), properties.getMaxRoutes(),
+                properties.getRecentAlarms());
+
+        FunctionCounter.builder("hibernate.session.alarms", collector, SessionMetricsCollector::getAlarmCount)
+                .description("엔티티를 `app.session-metrics.entities-loaded-threshold`개보다 많이 불러온 요청 수")
+                .register(meterRegistry);
+        return collector;
+    }
+
+    @Bean
+    public SessionMetricsEndpoint sessionMetricsEndpoint(SessionMetricsCollector sessionMetricsCollector) {
+        return new SessionMetricsEndpoint(sessionMetricsCollector);
+    }
+}
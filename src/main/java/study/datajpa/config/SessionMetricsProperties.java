@@ -0,0 +1,28 @@
+package study.datajpa.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+// `app.session-metrics.*` 설정값
+@Getter @Setter
+@ConfigurationProperties(prefix = "app.session-metrics")
+public class SessionMetricsProperties {
+
+    private boolean enabled = true;
+
+    // 최근 `window` 동안의 요청을 `buckets`개 칸으로 나눠서 모은다.
+    private Duration window = Duration.ofMinutes(1);
+    private int buckets = 12;
+
+    // 요청 하나가 엔티티를 이보다 많이 불러오면 경고
+    private long entitiesLoadedThreshold = 500;
+
+    // 요청 패턴별로 따로 모으는 최대 개수
+    private int maxRoutes = 100;
+
+    // `/actuator/sessions`에 보여줄 최근 경고 개수
+    private int recentAlarms = 20;
+}
@@ -0,0 +1,74 @@
+package study.datajpa.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.PlatformTransactionManager;
+import study.datajpa.index.UsernameIndex;
+import study.datajpa.index.UsernameIndexLoader;
+import study.datajpa.repository.MemberRepository;
+
+import java.util.function.ToDoubleFunction;
+
+// username 조회용 블룸 필터 + 니어 캐시 (`UsernameIndex`)
+// 리스너(`UsernameIndexListener`)는 `HibernateListenerConfig`에서 하이버네이트에 붙인다.
+// 지표: http://localhost:8080/actuator/metrics/member.username.index.false-positive-rate 등
+// 기본은 꺼져 있다. 이 인스턴스만 회원을 쓰는 경우에만 켠다. (`UsernameIndex` 주석)
+@Configuration
+@ConditionalOnProperty(name = "app.username-index.enabled", havingValue = "true")
+@EnableConfigurationProperties(UsernameIndexProperties.class)
+public class UsernameIndexConfig {
+
+    @Bean
+    public UsernameIndex usernameIndex(UsernameIndexProperties properties, MeterRegistry meterRegistry) {
+        UsernameIndex index = new UsernameIndex(properties.getFalsePositiveRate(),
+                properties.getNearCacheSize(), properties.getMaxIdsPerEntry());
+
+        Gauge.builder("member.username.index.false-positive-rate", index, UsernameIndex::getObservedFalsePositiveRate)
+                .description("DB 에 없던 username 중 블룸 필터가 있을 수도 있다고 한 비율 (실측)")
+                .tag("source", "observed")
+                .register(meterRegistry);
+        Gauge.builder("member.username.index.false-positive-rate", index, UsernameIndex::getExpectedFalsePositiveRate)
+                .description("켜진 비트 비율로 계산한 블룸 필터의 거짓 양성 확률")
+                .tag("source", "expected")
+                .register(meterRegistry);
+        Gauge.builder("member.username.index.memory", index, UsernameIndex::getFilterBytes)
+                .description("블룸 필터 크기")
+                .tag("part", "bloom-filter")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("member.username.index.memory", index, UsernameIndex::getNearCacheBytes)
+                .description("니어 캐시의 대략적인 힙 사용량")
+                .tag("part", "near-cache")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("member.username.index.near-cache.size", index, UsernameIndex::getNearCacheSize)
+                .register(meterRegistry);
+
+        lookups(meterRegistry, index, "absent", UsernameIndex::getAbsent);
+        lookups(meterRegistry, index, "false-positive", UsernameIndex::getFalsePositives);
+        lookups(meterRegistry, index, "cache-hit", UsernameIndex::getCacheHits);
+        lookups(meterRegistry, index, "cache-miss", UsernameIndex::getCacheMisses);
+        return index;
+    }
+
+    @Bean
+    public UsernameIndexLoader usernameIndexLoader(UsernameIndex usernameIndex, MemberRepository memberRepository,
+                                                   PlatformTransactionManager transactionManager,
+                                                   UsernameIndexProperties properties) {
+        return new UsernameIndexLoader(usernameIndex, memberRepository, transactionManager,
+                properties.getHeadroom(), properties.getMinExpectedInsertions());
+    }
+
+    private static void lookups(MeterRegistry meterRegistry, UsernameIndex index, String result,
+                                ToDoubleFunction<UsernameIndex> count) {
+        FunctionCounter.builder("member.username.index.lookups", index, count)
+                .description("username 조회가 어디서 끝났는지")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
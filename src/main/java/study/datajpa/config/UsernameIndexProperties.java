@@ -0,0 +1,27 @@
+package study.datajpa.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+// `app.username-index.*` 설정값
+@Getter @Setter
+@ConfigurationProperties(prefix = "app.username-index")
+public class UsernameIndexProperties {
+
+    // 단일 writer 전용 - 켜기 전에 `UsernameIndex` 주석을 볼 것
+    private boolean enabled = false;
+
+    // 블룸 필터의 목표 거짓 양성 확률 - 1%면 원소 하나에 약 9.6 비트
+    private double falsePositiveRate = 0.01;
+
+    // 블룸 필터 크기 = 지금 회원 수 * headroom (최소 `minExpectedInsertions`)
+    private double headroom = 2.0;
+    private long minExpectedInsertions = 100_000;
+
+    // username -> 회원 id 목록 캐시 크기 (LRU)
+    private int nearCacheSize = 10_000;
+
+    // id 가 이보다 많은 이름(흔한 이름)은 캐시하지 않는다.
+    private int maxIdsPerEntry = 16;
+}
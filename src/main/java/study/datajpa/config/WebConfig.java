@@ -0,0 +1,54 @@
+package study.datajpa.config;
+
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.format.FormatterRegistry;
+import org.springframework.web.filter.ShallowEtagHeaderFilter;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import study.datajpa.controller.MemberETagInterceptor;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.service.CountStrategy;
+
+import java.util.Locale;
+
+// 조건부 GET (`If-None-Match` -> 304 Not Modified)
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    private final MemberRepository memberRepository;
+
+    public WebConfig(MemberRepository memberRepository) {
+        this.memberRepository = memberRepository;
+    }
+
+    // 회원 하나는 `@Version`으로 엔티티를 불러오기 전에 확인한다.
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new MemberETagInterceptor(memberRepository))
+                .addPathPatterns("/members/{id}", "/members2/{id}");
+    }
+
+    // `?count=estimated`처럼 소문자로도 받는다. (기본 enum 변환은 대소문자를 구분해서 400)
+    // 비어있으면 기본값(`app.paging.count-strategy`)
+    @Override
+    public void addFormatters(FormatterRegistry registry) {
+        registry.addConverter(String.class, CountStrategy.class,
+                source -> source.isBlank() ? null : CountStrategy.valueOf(source.trim().toUpperCase(Locale.ROOT)));
+    }
+
+    // 페이지(`/members`)는 내용이 여러 회원과 `count`로 만들어져서 버전 하나로 나타낼 수 없다.
+    // 응답 본문의 해시를 약한(weak) ETag 로 쓴다. DB 조회는 그대로 하지만 바뀌지 않았으면 본문을 보내지 않는다.
+    // 약한 ETag 라서 압축(gzip) 등으로 바이트가 달라져도 같은 내용이면 같은 것으로 본다.
+    // 본문을 다 모아야 해시를 구할 수 있어서, 큰 페이지는 컨트롤러에서 꺼둔다. (`disableContentCaching()`)
+    @Bean
+    public FilterRegistrationBean<ShallowEtagHeaderFilter> membersPageETagFilter() {
+        ShallowEtagHeaderFilter filter = new ShallowEtagHeaderFilter();
+        filter.setWriteWeakETag(true);
+
+        FilterRegistrationBean<ShallowEtagHeaderFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.addUrlPatterns("/members");
+        return registration;
+    }
+}
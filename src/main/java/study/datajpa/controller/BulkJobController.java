@@ -0,0 +1,49 @@
+package study.datajpa.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import study.datajpa.entity.BulkJob;
+import study.datajpa.service.BulkUpdateService;
+
+import java.util.Map;
+
+// 벌크 수정 작업은 오래 걸리기 때문에 시작만 하고 작업 id를 돌려준다.
+// 진행 상황은 `GET /bulk-jobs/{id}`로 본다.
+@RestController
+@RequiredArgsConstructor
+public class BulkJobController {
+
+    private final BulkUpdateService bulkUpdateService;
+
+    @PostMapping("/bulk-jobs/member-age-plus")
+    public Map<String, Object> memberAgePlus(@RequestParam("age") int age) {
+        BulkJob job = bulkUpdateService.createAgePlusJob(age);
+        bulkUpdateService.resume(job.getId());
+        return bulkUpdateService.progress(job.getId());
+    }
+
+    @PostMapping("/bulk-jobs/{id}/resume")
+    public Map<String, Object> resume(@PathVariable("id") Long id) {
+        try {
+            bulkUpdateService.resume(id);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, e.getMessage());
+        }
+        return bulkUpdateService.progress(id);
+    }
+
+    @GetMapping("/bulk-jobs/{id}")
+    public Map<String, Object> progress(@PathVariable("id") Long id) {
+        try {
+            return bulkUpdateService.progress(id);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package study.datajpa.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import study.datajpa.metrics.SessionCountingStatistics;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// 2차 캐시, 쿼리 캐시 히트/미스 통계
+// `app.cache.enabled=true` 일 때만 통계가 쌓인다. (꺼져 있으면 전부 0)
+@RestController
+@RequiredArgsConstructor
+public class CacheStatisticsController {
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    @GetMapping("/stats/second-level-cache")
+    public Map<String, Object> secondLevelCache() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        // `SessionCountingStatistics`는 요청별 지표 때문에 항상 켜져 있다고 하니까 원래 설정값을 본다.
+        result.put("enabled", statistics instanceof SessionCountingStatistics
+                ? ((SessionCountingStatistics) statistics).isGlobalStatisticsEnabled()
+                : statistics.isStatisticsEnabled());
+        result.put("secondLevelCacheHitCount", statistics.getSecondLevelCacheHitCount());
+        result.put("secondLevelCacheMissCount", statistics.getSecondLevelCacheMissCount());
+        result.put("secondLevelCachePutCount", statistics.getSecondLevelCachePutCount());
+        result.put("queryCacheHitCount", statistics.getQueryCacheHitCount());
+        result.put("queryCacheMissCount", statistics.getQueryCacheMissCount());
+        result.put("queryCachePutCount", statistics.getQueryCachePutCount());
+
+        Map<String, Object> regions = new LinkedHashMap<>();
+        for (String regionName : statistics.getSecondLevelCacheRegionNames()) {
+            CacheRegionStatistics region = statistics.getCacheRegionStatistics(regionName);
+            if (region == null) {
+                continue;
+            }
+
+            Map<String, Object> regionResult = new LinkedHashMap<>();
+            regionResult.put("hitCount", region.getHitCount());
+            regionResult.put("missCount", region.getMissCount());
+            regionResult.put("putCount", region.getPutCount());
+            regions.put(regionName, regionResult);
+        }
+        result.put("regions", regions);
+
+        return result;
+    }
+}
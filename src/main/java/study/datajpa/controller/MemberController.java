@@ -1,28 +1,59 @@
 package study.datajpa.controller;
 
 import lombok.RequiredArgsConstructor;
-import org.modelmapper.ModelMapper;
-import org.springframework.data.domain.Page;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PageableDefault;
 import org.springframework.ui.ModelMap;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.filter.ShallowEtagHeaderFilter;
+import org.springframework.web.server.ResponseStatusException;
+import study.datajpa.dto.CursorPage;
+import study.datajpa.dto.MemberCursor;
 import study.datajpa.dto.MemberDto;
+import study.datajpa.dto.MemberMapper;
 import study.datajpa.entity.Member;
 import study.datajpa.repository.MemberRepository;
+import study.datajpa.service.CountStrategy;
+import study.datajpa.service.MemberExportService;
+import study.datajpa.service.MemberPageWriter;
 
 import javax.annotation.PostConstruct;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequiredArgsConstructor
 public class MemberController {
-    private final ModelMapper modelMapper;
+    private final MemberMapper memberMapper;
     private final MemberRepository memberRepository;
+    private final MemberExportService memberExportService;
+    private final MemberPageWriter memberPageWriter;
+
+    @Value("${spring.data.web.pageable.max-page-size:2000}")
+    private int maxPageSize;
+
+    @Value("${app.paging.stream-page-size:100}")
+    private int streamPageSize;
 
     @GetMapping("/members/{id}")
+    @Transactional(readOnly = true)
     public String findMember(@PathVariable("id") Long id) {
         Member member = memberRepository.findById(id).get();
         return member.getUsername();
@@ -36,22 +67,140 @@ public class MemberController {
 
         // 받은 엔티티는 조회용으로만 사용해야 한다.
         // 트랜잭션이 없기 때문에 변경해봐야 적용 안된다.
+        // 엔티티는 핸들러 호출 전에 `findById()`(읽기 전용 트랜잭션)로 조회되므로, 레플리카가 있으면 레플리카에서 읽는다.
+        // 동시에 들어온 요청들의 `findById()`는 `MemberBatchLoader`가 `in` 쿼리 하나로 모아서 조회한다. (팀까지 가져온 준영속 엔티티)
         return member.getUsername();
     }
 
     @GetMapping("/members")
     // `@PageableDefault`를 이용해서 페이징 기본값들 설정 가능
-    public Page<MemberDto> list(@PageableDefault(size = 5, sort = "age", direction = Sort.Direction.DESC) Pageable pageable) {
+    public void list(@PageableDefault(size = 5, sort = "age", direction = Sort.Direction.DESC) Pageable pageable,
+                     @RequestParam(value = "count", required = false) CountStrategy countStrategy,
+                     HttpServletRequest request, HttpServletResponse response) throws IOException {
         // 어떤 find든 뒤에 pageable 만 넘겨주면 가능하다.
         // 메소드 이름으로 쿼리 생성한 기타 메소드도 가능하다. ex) findByUsername...
         // PageRequest 라는 객체를 이용하는 것이기 때문에, PageRequest 객체를 잘 보면 여러가지 기능을 사용할 수 있다.
         // http://localhost:8080/members?page=0&size=3&sort=id,desc&sort=username,desc
-        // `Entity`를 `DTO`로 바꾸는 방법은 현재까지 발견한 방법 중에는 아래의 방법이 가장 편한 것 같다.
-        return memberRepository
-                .findAll(pageable)
-                .map(member -> modelMapper.map(member, MemberDto.class));
+        // 처음에는 `Page<MemberDto>`를 반환했는데(`ModelMapper` -> MapStruct), 지금은 DTO 로 바로 조회해서
+        // `Page` JSON 에서 쓰는 필드만 `MemberPageWriter`가 한 줄씩 바로 쓴다.
+        // `findAll(pageable)`은 페이지마다 전체 `count` 쿼리를 실행해서, `count` 방법을 고를 수 있게 바꿨다.
+        // http://localhost:8080/members?page=1&count=estimated
+        // 큰 페이지는 ETag 필터가 본문을 모으지 않게 해서 쓰는 대로 클라이언트에 나가게 한다. (ETag 없음)
+        // 작은 페이지는 지금처럼 모아서 ETag 를 붙이고, 쓰다가 예외가 나도 아직 커밋 전이라 제대로 된 에러 응답이 나간다.
+        // http://localhost:8080/members?size=2000
+        if (pageable.getPageSize() > streamPageSize) {
+            ShallowEtagHeaderFilter.disableContentCaching(request);
+        }
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        memberPageWriter.write(pageable, countStrategy, response.getOutputStream());
+    }
+
+    // 비동기 버전 - 톰캣 스레드는 DB 응답을 기다리지 않고 바로 반납된다.
+    // `repositoryExecutor` 큐가 차면 503 (아래 `@ExceptionHandler`)
+    // http://localhost:8080/async/members/1
+    @GetMapping("/async/members/{id}")
+    public CompletableFuture<String> findMemberAsync(@PathVariable("id") Long id) {
+        return memberRepository.findUsernameAsyncById(id)
+                .thenApply(username -> {
+                    if (username == null) {
+                        throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+                    }
+                    return username;
+                });
+    }
+
+    // http://localhost:8080/async/members?page=0&size=5
+    @GetMapping("/async/members")
+    public CompletableFuture<List<MemberDto>> listAsync(@PageableDefault(size = 5, sort = "age", direction = Sort.Direction.DESC) Pageable pageable) {
+        return memberRepository.findMemberDtoAsync(pageable);
+    }
+
+    @ExceptionHandler(TaskRejectedException.class)
+    public ResponseEntity<String> rejected() {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body("too many pending repository calls");
+    }
+
+    // 키셋(seek) 페이징 버전
+    // 페이지 번호 대신 응답에 들어있는 `nextCursor`를 그대로 다시 넘겨주면 다음 페이지를 준다.
+    // 전체 개수(`count`)도 구하지 않기 때문에, 10만 번째 페이지도 첫 페이지와 같은 속도로 나온다.
+    // http://localhost:8080/members/cursor?size=3&sort=age
+    @GetMapping("/members/cursor")
+    @Transactional(readOnly = true)
+    public CursorPage<MemberDto> listByCursor(@RequestParam(value = "cursor", required = false) String cursor,
+                                              @RequestParam(value = "size", defaultValue = "5") int size,
+                                              @RequestParam(value = "sort", defaultValue = "age") String sort) {
+        int limit = Math.min(Math.max(size, 1), maxPageSize);
+        // 한 개 더 가져와서 다음 페이지가 있는지 확인한다.
+        PageRequest pageRequest = PageRequest.of(0, limit + 1);
+        MemberCursor memberCursor = decodeCursor(cursor);
+
+        if ("username".equals(sort)) {
+            List<Member> rows;
+            if (memberCursor == null) {
+                rows = memberRepository.findAllOrderByUsernameAsc(pageRequest);
+            } else if (memberCursor.getKey() == null) {
+                // `username`이 없는 회원이 먼저 온다. 그 구간이 끝나면 이름 있는 회원으로 이어서 채운다.
+                rows = new ArrayList<>(memberRepository.findNextByNullUsernameAsc(memberCursor.getId(), pageRequest));
+                if (rows.size() < pageRequest.getPageSize()) {
+                    rows.addAll(memberRepository.findNamedOrderByUsernameAsc(PageRequest.of(0, pageRequest.getPageSize() - rows.size())));
+                }
+            } else {
+                rows = memberRepository.findNextByUsernameAsc(memberCursor.getKey(), memberCursor.getId(), pageRequest);
+            }
+            return CursorPage.of(rows, limit, member -> MemberCursor.of(member.getUsername(), member.getId()))
+                    .map(memberMapper::toDto);
+        }
+
+        List<Member> rows = memberCursor == null
+                ? memberRepository.findAllOrderByAgeDesc(pageRequest)
+                : memberRepository.findNextByAgeDesc(ageKeyOf(memberCursor), memberCursor.getId(), pageRequest);
+        return CursorPage.of(rows, limit, member -> MemberCursor.of(member.getAge(), member.getId()))
+                .map(memberMapper::toDto);
+    }
+
+    // 전체 회원 내려받기
+    // `findAll()`처럼 `List`로 다 모은 다음 내려주지 않고, 한 줄씩 읽으면서 바로 응답에 쓴다.
+    // http://localhost:8080/members/export?format=csv
+    @GetMapping("/members/export")
+    public void export(@RequestParam(value = "format", defaultValue = "ndjson") String format,
+                       HttpServletResponse response) throws IOException {
+        if ("csv".equals(format)) {
+            response.setContentType("text/csv;charset=UTF-8");
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"members.csv\"");
+            memberExportService.exportCsv(response.getOutputStream());
+            return;
+        }
+
+        response.setContentType("application/x-ndjson;charset=UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"members.ndjson\"");
+        memberExportService.exportNdjson(response.getOutputStream());
+    }
+
+    private MemberCursor decodeCursor(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+
+        try {
+            return MemberCursor.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            // `Base64` 디코딩 실패, 숫자 파싱 실패(`NumberFormatException`) 모두 여기로 온다.
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "잘못된 cursor 입니다.", e);
+        }
+    }
+
+    private int ageKeyOf(MemberCursor memberCursor) {
+        try {
+            return memberCursor.getAgeKey();
+        } catch (NumberFormatException e) {
+            // `sort=username`으로 받은 cursor 를 `sort=age`에 넘긴 경우
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "잘못된 cursor 입니다.", e);
+        }
     }
 
+    // 많은 데이터로 확인할 때는 `perf` 프로필(`PerfDataGenerator`)을 쓴다.
 //    @PostConstruct
 //    public void init() {
 //        for(int i=0; i<100; i++){
@@ -0,0 +1,65 @@
+package study.datajpa.controller;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+import study.datajpa.dto.MemberVersion;
+import study.datajpa.repository.MemberRepository;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.Map;
+import java.util.Optional;
+
+// `/members/{id}`, `/members2/{id}` 조건부 GET
+// 핸들러(와 `/members2/{id}`의 도메인 클래스 컨버터)가 회원을 불러오기 전에 버전만 읽어서(`findVersionById()`)
+// 클라이언트가 가진 것(`If-None-Match`, `If-Modified-Since`)과 같으면 바로 304 를 돌려준다.
+// 다르면 `ETag`, `Last-Modified`를 붙이고 원래대로 핸들러를 실행한다. (select 가 하나 늘어난다.)
+// 버전을 읽은 뒤 핸들러가 읽기 전에 수정되면 ETag 가 본문보다 오래된 것이 되는데, 다음 요청에서 다시 200 을 받으니 괜찮다.
+public class MemberETagInterceptor implements HandlerInterceptor {
+
+    private final MemberRepository memberRepository;
+
+    public MemberETagInterceptor(MemberRepository memberRepository) {
+        this.memberRepository = memberRepository;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!HttpMethod.GET.matches(request.getMethod()) && !HttpMethod.HEAD.matches(request.getMethod())) {
+            return true;
+        }
+        Long id = memberId(request);
+        if (id == null) {
+            return true;
+        }
+        // 없는 회원이면 핸들러가 알아서 응답한다.
+        Optional<MemberVersion> version = memberRepository.findVersionById(id);
+        if (version.isEmpty() || version.get().getVersion() == null) {
+            return true;
+        }
+
+        // 캐시는 해도 되지만 쓸 때마다 확인하라는 뜻
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+        return !new ServletWebRequest(request, response)
+                .checkNotModified(version.get().getETag(), version.get().getLastModified());
+    }
+
+    // `/members/cursor`, `/members/export`처럼 `{id}` 자리에 숫자가 아닌 것이 오면 `null`
+    @SuppressWarnings("unchecked")
+    private static Long memberId(HttpServletRequest request) {
+        Map<String, String> variables =
+                (Map<String, String>) request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+        String id = variables == null ? null : variables.get("id");
+        if (id == null) {
+            return null;
+        }
+        try {
+            return Long.valueOf(id);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package study.datajpa.datasource;
+
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+// `JpaTransactionManager`는 `doBegin()`이 끝난 다음에야 `readOnly` 플래그를 스레드에 올린다.
+// 그런데 하이버네이트는 트랜잭션을 시작하면서 커넥션을 꺼내고, p6spy 는 그 커넥션의 `getMetaData()`를 바로 불러서
+// `LazyConnectionDataSourceProxy`가 있어도 그 시점에 `ReplicationRoutingDataSource`가 커넥션을 고른다. (항상 프라이머리)
+// 그래서 시작하기 전에 플래그를 먼저 올려둔다. 끝나면 원래대로 `prepareSynchronization()`/`cleanupAfterCompletion()`이 정리한다.
+public class ReadOnlyRoutingJpaTransactionManager extends JpaTransactionManager {
+
+    @Override
+    protected void doBegin(Object transaction, TransactionDefinition definition) {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(definition.isReadOnly());
+        try {
+            super.doBegin(transaction, definition);
+        } catch (RuntimeException | Error e) {
+            // 시작에 실패하면 정리해줄 곳이 없다.
+            TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package study.datajpa.datasource;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.util.StringUtils;
+import study.datajpa.config.ReplicaDataSourceProperties;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// 레플리카를 읽기에 써도 되는지 주기적으로 확인한다.
+// - 연결이 안 되면 안 쓴다.
+// - `lag-query`가 있으면 그 결과(초 단위 복제 지연)가 `max-lag`보다 크면 안 쓴다.
+//   ex. PostgreSQL: `select coalesce(extract(epoch from now() - pg_last_xact_replay_timestamp()), 0)`
+// 요청마다 확인하지 않고 마지막 확인 결과만 본다. (`/actuator/health`의 `replicaLagMonitor`)
+@Slf4j
+public class ReplicaLagMonitor implements HealthIndicator {
+
+    private final DataSource replica;
+    private final String lagQuery;
+    private final Duration maxLag;
+    private final Duration checkInterval;
+
+    private volatile boolean available;
+    private volatile double lagSeconds = -1;
+    private volatile String lastError;
+    private ScheduledExecutorService scheduler;
+
+    public ReplicaLagMonitor(DataSource replica, ReplicaDataSourceProperties properties) {
+        this.replica = replica;
+        this.lagQuery = properties.getLagQuery();
+        this.maxLag = properties.getMaxLag();
+        this.checkInterval = properties.getCheckInterval();
+    }
+
+    public boolean isAvailable() {
+        return available;
+    }
+
+    public void start() {
+        check();
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replica-lag-monitor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long intervalMs = checkInterval.toMillis();
+        scheduler.scheduleWithFixedDelay(this::check, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    public void check() {
+        boolean wasAvailable = available;
+        try (Connection connection = replica.getConnection()) {
+            lagSeconds = StringUtils.hasText(lagQuery) ? queryLag(connection) : 0;
+            lastError = null;
+            available = lagSeconds * 1000 <= maxLag.toMillis();
+        } catch (SQLException | RuntimeException e) {
+            lagSeconds = -1;
+            lastError = e.getMessage();
+            available = false;
+        }
+
+        if (wasAvailable != available) {
+            log.warn("레플리카 {} - lag={}s, maxLag={}, error={}", available ? "사용" : "사용 안 함(프라이머리로 읽음)",
+                    lagSeconds, maxLag, lastError);
+        }
+    }
+
+    @Override
+    public Health health() {
+        // 레플리카를 못 써도 프라이머리로 읽기 때문에 서비스는 살아있다.
+        return Health.up()
+                .withDetail("replicaAvailable", available)
+                .withDetail("lagSeconds", lagSeconds)
+                .withDetail("maxLag", maxLag.toString())
+                .withDetail("lastError", lastError == null ? "" : lastError)
+                .build();
+    }
+
+    private double queryLag(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(lagQuery)) {
+            if (!resultSet.next()) {
+                return 0;
+            }
+            return resultSet.getDouble(1);
+        }
+    }
+}
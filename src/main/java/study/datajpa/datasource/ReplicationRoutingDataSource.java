@@ -0,0 +1,36 @@
+package study.datajpa.datasource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.Map;
+
+// `@Transactional(readOnly = true)` 트랜잭션은 레플리카로, 나머지는 프라이머리로 보낸다.
+// 레플리카가 죽었거나 복제가 너무 밀렸으면(`ReplicaLagMonitor`) 읽기도 프라이머리로 보낸다.
+// 주의! 트랜잭션이 시작된 뒤에야 `readOnly` 여부를 알 수 있어서, `LazyConnectionDataSourceProxy`로 감싸서 써야 한다.
+// JPA 트랜잭션은 시작하면서 커넥션을 꺼내므로 `ReadOnlyRoutingJpaTransactionManager`도 같이 써야 한다.
+public class ReplicationRoutingDataSource extends AbstractRoutingDataSource {
+
+    private final ReplicaLagMonitor replicaLagMonitor;
+
+    public ReplicationRoutingDataSource(DataSource primary, DataSource replica, ReplicaLagMonitor replicaLagMonitor) {
+        this.replicaLagMonitor = replicaLagMonitor;
+
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(DataSourceType.PRIMARY, primary);
+        targets.put(DataSourceType.REPLICA, replica);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly() && replicaLagMonitor.isAvailable()) {
+            return DataSourceType.REPLICA;
+        }
+        return DataSourceType.PRIMARY;
+    }
+}
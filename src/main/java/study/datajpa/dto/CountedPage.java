@@ -0,0 +1,30 @@
+package study.datajpa.dto;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+import java.util.function.Function;
+
+// `PageImpl`에 전체 개수가 추정치인지(`estimated`) 여부만 추가했다.
+// 추정치인 경우 `totalElements`, `totalPages`, `last`가 정확하지 않을 수 있다.
+public class CountedPage<T> extends PageImpl<T> {
+
+    private final boolean estimated;
+
+    public CountedPage(List<T> content, Pageable pageable, long total, boolean estimated) {
+        super(content, pageable, total);
+        this.estimated = estimated;
+    }
+
+    public boolean isEstimated() {
+        return estimated;
+    }
+
+    // `PageImpl.map()`은 새 `PageImpl`을 만들어서 `estimated`가 사라지기 때문에 다시 구현한다.
+    @Override
+    public <U> Page<U> map(Function<? super T, ? extends U> converter) {
+        return new CountedPage<>(getConvertedContent(converter), getPageable(), getTotalElements(), estimated);
+    }
+}
@@ -0,0 +1,35 @@
+package study.datajpa.dto;
+
+import lombok.Getter;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// `Page`와 달리 전체 개수나 페이지 번호가 없다.
+// 대신 다음 페이지를 요청할 때 그대로 넘겨주면 되는 `nextCursor`를 내려준다.
+@Getter
+public class CursorPage<T> {
+    private final List<T> content;
+    private final String nextCursor;
+    private final boolean hasNext;
+
+    public CursorPage(List<T> content, String nextCursor, boolean hasNext) {
+        this.content = content;
+        this.nextCursor = nextCursor;
+        this.hasNext = hasNext;
+    }
+
+    // `size + 1`개를 조회해서 넘겨주면, 남는 한 개로 다음 페이지가 있는지 판단한다. (`Slice`와 같은 방식)
+    public static <T> CursorPage<T> of(List<T> rows, int size, Function<? super T, MemberCursor> cursorOf) {
+        boolean hasNext = rows.size() > size;
+        List<T> content = hasNext ? rows.subList(0, size) : rows;
+        String nextCursor = hasNext ? cursorOf.apply(content.get(content.size() - 1)).encode() : null;
+        return new CursorPage<>(content, nextCursor, hasNext);
+    }
+
+    public <U> CursorPage<U> map(Function<? super T, ? extends U> converter) {
+        List<U> converted = content.stream().map(converter).collect(Collectors.toList());
+        return new CursorPage<>(converted, nextCursor, hasNext);
+    }
+}
@@ -0,0 +1,52 @@
+package study.datajpa.dto;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+// 키셋(seek) 페이징에서 "마지막으로 본 row" 를 가리키는 커서
+// 클라이언트에는 Base64 로 인코딩한 불투명(opaque) 토큰으로만 내려준다.
+// 정렬 컬럼 값(`age` 혹은 `username`)과 동점일 때 순서를 정해주는 `id`를 같이 들고 있어야 한다.
+@Getter
+@EqualsAndHashCode
+public class MemberCursor {
+    private final String key;
+    private final Long id;
+
+    private MemberCursor(String key, Long id) {
+        this.key = key;
+        this.id = id;
+    }
+
+    public static MemberCursor of(int age, Long id) {
+        return new MemberCursor(String.valueOf(age), id);
+    }
+
+    // `username`이 없는 회원은 `key`가 `null`이다. `username` 정렬에서는 맨 앞에 온다. (H2 인덱스의 `null` 순서)
+    public static MemberCursor of(String username, Long id) {
+        return new MemberCursor(username, id);
+    }
+
+    public int getAgeKey() {
+        return Integer.parseInt(key);
+    }
+
+    public String encode() {
+        // `username`에 `:`가 들어있을 수도 있으니 `id`를 앞에 둔다.
+        // `key`가 `null`이면 구분자 없이 `id`만 쓴다. ("null" 이라는 이름과 구분해야 한다.)
+        String raw = key == null ? String.valueOf(id) : id + ":" + key;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static MemberCursor decode(String token) {
+        String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+        int separator = raw.indexOf(':');
+        if (separator < 0) {
+            // 숫자가 아니면 `NumberFormatException`(`IllegalArgumentException`)
+            return new MemberCursor(null, Long.valueOf(raw));
+        }
+        return new MemberCursor(raw.substring(separator + 1), Long.valueOf(raw.substring(0, separator)));
+    }
+}
@@ -0,0 +1,15 @@
+package study.datajpa.dto;
+
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import study.datajpa.entity.Member;
+
+// `ModelMapper`는 호출할 때마다 리플렉션으로 이름을 맞춰보면서 매핑한다.
+// MapStruct 는 컴파일할 때 `MemberMapperImpl`을 만들어주고, 그 안에는 getter/setter 호출만 들어있다.
+// `team.name` 처럼 중첩된 값도 null 체크까지 해서 풀어준다.
+@Mapper(componentModel = "spring")
+public interface MemberMapper {
+
+    @Mapping(target = "teamName", source = "team.name")
+    MemberDto toDto(Member member);
+}
@@ -0,0 +1,29 @@
+package study.datajpa.dto;
+
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+// 회원이 바뀌었는지만 확인하기 위한 값 (`MemberRepository.findVersionById()`)
+// 조건부 GET(`If-None-Match`, `If-Modified-Since`)에서 엔티티를 불러오기 전에 본다.
+@Getter
+public class MemberVersion {
+    private final Long version;
+    private final LocalDateTime updatedDate;
+
+    public MemberVersion(Long version, LocalDateTime updatedDate) {
+        this.version = version;
+        this.updatedDate = updatedDate;
+    }
+
+    // `@Version`은 수정될 때마다(벌크 연산 포함) 올라가니까 그대로 ETag 로 쓴다.
+    public String getETag() {
+        return "\"" + version + "\"";
+    }
+
+    // `Last-Modified` (없으면 -1)
+    public long getLastModified() {
+        return updatedDate == null ? -1 : updatedDate.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,48 @@
+package study.datajpa.entity;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+// 엔티티 변경 이력 (추가만 하고 수정/삭제는 하지 않는다.)
+// `BaseEntity`를 상속하지 않는다. 감사 이력 자체가 다시 감사 대상이 되면 안 되기 때문
+@Entity
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@ToString(of = {"id", "entityName", "entityId", "action", "changedFields"})
+@Table(indexes = @Index(name = "idx_audit_event_entity", columnList = "entityName, entityId"))
+public class AuditEvent {
+    // `BulkJpaRepository`로 배치 insert 하기 위해 시퀀스를 미리 받아온다.
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "audit_event_seq_generator")
+    @SequenceGenerator(name = "audit_event_seq_generator", sequenceName = "audit_event_seq", allocationSize = 50)
+    @Column(name = "audit_event_id")
+    private Long id;
+
+    private String entityName;
+    private String entityId;
+
+    @Enumerated(EnumType.STRING)
+    private AuditAction action;
+
+    // 바뀐 필드 이름 (`,`로 구분) - insert/delete 는 비어 있다.
+    @Column(length = 1000)
+    private String changedFields;
+
+    private String auditor;
+    private LocalDateTime occurredAt;
+
+    public AuditEvent(String entityName, String entityId, AuditAction action, String changedFields,
+                      String auditor, LocalDateTime occurredAt) {
+        this.entityName = entityName;
+        this.entityId = entityId;
+        this.action = action;
+        this.changedFields = changedFields;
+        this.auditor = auditor;
+        this.occurredAt = occurredAt;
+    }
+}
@@ -0,0 +1,67 @@
+package study.datajpa.entity;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import javax.persistence.*;
+
+// PK 범위로 나눠서 실행하는 벌크 수정 작업 하나
+// 어떤 범위까지 끝났는지는 `BulkJobChunk`에 남기 때문에, 중간에 서버가 죽어도 남은 범위만 이어서 실행할 수 있다.
+@Entity
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@ToString(of = {"id", "operation", "parameter", "status"})
+public class BulkJob extends BaseEntity {
+    @Id
+    @GeneratedValue
+    @Column(name = "bulk_job_id")
+    private Long id;
+
+    // 어떤 수정인지 (ex. `member.age-plus`)
+    private String operation;
+    // 수정에 쓰는 값 (ex. `age >= :age`의 `age`)
+    private long parameter;
+
+    // 작업을 만들 때의 PK 범위 - 이후에 추가된 row 는 대상이 아니다.
+    private long minId;
+    private long maxId;
+    private int chunkSize;
+
+    @Enumerated(EnumType.STRING)
+    private BulkJobStatus status;
+    private String failureMessage;
+
+    public BulkJob(String operation, long parameter, long minId, long maxId, int chunkSize) {
+        this.operation = operation;
+        this.parameter = parameter;
+        this.minId = minId;
+        this.maxId = maxId;
+        this.chunkSize = chunkSize;
+        this.status = BulkJobStatus.RUNNING;
+    }
+
+    // 전체 범위를 나눈 청크 개수
+    public long getTotalChunks() {
+        if (maxId < minId) {
+            return 0;
+        }
+        return (maxId - minId) / chunkSize + 1;
+    }
+
+    public void running() {
+        this.status = BulkJobStatus.RUNNING;
+        this.failureMessage = null;
+    }
+
+    public void completed() {
+        this.status = BulkJobStatus.COMPLETED;
+        this.failureMessage = null;
+    }
+
+    public void failed(String failureMessage) {
+        this.status = BulkJobStatus.FAILED;
+        this.failureMessage = failureMessage;
+    }
+}
@@ -0,0 +1,42 @@
+package study.datajpa.entity;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+// 끝난 청크 하나 (`startId <= id < endId`)
+// 청크의 수정과 같은 트랜잭션에서 저장하기 때문에, 이 row 가 있으면 수정도 커밋된 것이다.
+// `(bulk_job_id, start_id)` 유니크 제약 때문에 같은 청크가 두 번 커밋될 수 없다.
+@Entity
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@ToString(of = {"id", "startId", "endId", "updatedRows"})
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_bulk_job_chunk_start", columnNames = {"bulk_job_id", "start_id"}))
+public class BulkJobChunk {
+    @Id
+    @GeneratedValue
+    @Column(name = "bulk_job_chunk_id")
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "bulk_job_id")
+    private BulkJob job;
+
+    @Column(name = "start_id")
+    private long startId;
+    private long endId;
+    private int updatedRows;
+    private LocalDateTime completedAt;
+
+    public BulkJobChunk(BulkJob job, long startId, long endId, int updatedRows) {
+        this.job = job;
+        this.startId = startId;
+        this.endId = endId;
+        this.updatedRows = updatedRows;
+        this.completedAt = LocalDateTime.now();
+    }
+}
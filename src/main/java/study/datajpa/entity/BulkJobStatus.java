@@ -0,0 +1,5 @@
+package study.datajpa.entity;
+
+public enum BulkJobStatus {
+    RUNNING, COMPLETED, FAILED
+}
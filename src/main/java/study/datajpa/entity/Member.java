@@ -1,6 +1,8 @@
 package study.datajpa.entity;
 
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import javax.persistence.*;
 
@@ -18,18 +20,39 @@ import javax.persistence.*;
         // XML에 작성하는 방법도 있긴 함
         // 애초에 실무에서 잘 쓰지 않는 기능이긴 함
         name = "Member.findByUsername",
-        query = "select m from Member m where m.username = :username"
+        query = "select m from Member m where m.username = :username",
+        // 쿼리 캐시(`app.cache.enabled=true` 일 때만 동작)
+        hints = @QueryHint(name = "org.hibernate.cacheable", value = "true")
 )
 @NamedEntityGraph(name = "Member.all", attributeNodes = @NamedAttributeNode("team"))
+// 키셋 페이징(`where (age, id) < (?, ?) order by age desc, id desc`)이 인덱스만 타고 바로 시작 위치를 찾을 수 있도록
+@Table(indexes = {
+        @Index(name = "idx_member_age_id", columnList = "age, member_id"),
+        @Index(name = "idx_member_username_id", columnList = "username, member_id")
+})
+// 2차 캐시 대상 - `app.cache.enabled=true` 일 때만 실제로 캐시된다.
+// `findById()`가 DB에 가기 전에 2차 캐시를 먼저 본다.
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class Member extends BaseEntity{
     // 실무에서는 가급적 Setter 사용 안함
-    @Id @GeneratedValue
+    // 시퀀스를 50개씩 미리 받아와서(pooled optimizer) insert 할 때마다 시퀀스를 호출하지 않도록 한다.
+    // `IDENTITY` 전략은 insert 를 해봐야 id를 알 수 있어서 JDBC 배치 insert 가 안 된다.
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "member_seq_generator")
+    @SequenceGenerator(name = "member_seq_generator", sequenceName = "member_seq", allocationSize = 50)
     // 관례상 테이블명_id 라는 이름을 컬럼 이름으로 많이 쓰기 때문에 설정해줌
     @Column(name = "member_id")
     private Long id;
     private String username;
     private int age;
 
+    // 낙관적 락 - update 할 때 `where member_id = ? and version = ?`로 확인하고 1 올린다.
+    // 그 사이에 다른 트랜잭션이 먼저 커밋했으면 `ObjectOptimisticLockingFailureException`이 난다. (`OptimisticRetryTemplate`)
+    // 벌크 연산은 `update versioned`로 써야 같이 올라간다.
+    @Version
+    private Long version;
+
     // N 쪽에 foreign key 가 들어가기 때문에 `@JoinColumn` 해주기
     // `@ManyToOne` 관계는 `FetchType`의 기본 전략이 `Eager`로 되어 있는데 꼭 `LAZY`로 바꾸어주자
     // `LAZY`가 아닌 경우 예상치 못한 쿼리가 나가서 성능 최적화가 매우 힘들 수 있다
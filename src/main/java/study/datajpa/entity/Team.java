@@ -1,6 +1,9 @@
 package study.datajpa.entity;
 
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.OptimisticLock;
 
 import javax.persistence.*;
 import java.util.ArrayList;
@@ -10,13 +13,25 @@ import java.util.List;
 @Getter @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @ToString(of = {"id", "name"})
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class Team {
-    @Id @GeneratedValue
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "team_seq_generator")
+    @SequenceGenerator(name = "team_seq_generator", sequenceName = "team_seq", allocationSize = 50)
     @Column(name = "team_id")
     private Long id;
     private String name;
 
+    @Version
+    private Long version;
+
     // foreign key 가 없는 쪽에 mapped by 를 적어주는 것을 권장
+    // 컬렉션 캐시에는 회원 id 목록만 들어가고, 회원 엔티티 자체는 `Member` 캐시에서 가져온다.
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+    // 회원이 팀에 들어오고 나갈 때마다 팀 버전이 올라가면 같은 팀 회원을 수정하는 트랜잭션끼리 괜히 충돌한다.
+    // 외래 키는 `Member.team`에 있으니 팀 자체가 바뀐 것은 아니다.
+    @OptimisticLock(excluded = true)
     @OneToMany(mappedBy = "team")
     private List<Member> members = new ArrayList<>();
 
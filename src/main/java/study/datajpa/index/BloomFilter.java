@@ -0,0 +1,105 @@
+package study.datajpa.index;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// 문자열 블룸 필터
+// `mightContain()`이 `false`면 넣은 적이 없는 것이 확실하다. `true`면 있을 수도 있다. (거짓 양성)
+// 비트 수(m)와 해시 수(k)는 예상 원소 수(n)와 목표 거짓 양성 확률(p)로 정한다.
+//   m = -n * ln(p) / (ln 2)^2,  k = m / n * ln 2
+// 여러 스레드가 동시에 넣고 읽을 수 있다. (비트를 CAS 로 켠다.) 빼는 것은 안 된다.
+final class BloomFilter {
+
+    private final AtomicLongArray words;
+    private final long bitSize;
+    private final int hashCount;
+    private final long expectedInsertions;
+    // 켜진 비트 수 - 지금 상태의 거짓 양성 확률을 계산할 때 쓴다.
+    private final AtomicLong bitCount = new AtomicLong();
+
+    private BloomFilter(long bitSize, int hashCount, long expectedInsertions) {
+        this.words = new AtomicLongArray(Math.toIntExact((bitSize + 63) / 64));
+        this.bitSize = (long) words.length() * 64;
+        this.hashCount = hashCount;
+        this.expectedInsertions = expectedInsertions;
+    }
+
+    static BloomFilter create(long expectedInsertions, double falsePositiveRate) {
+        if (expectedInsertions <= 0 || falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("expectedInsertions=" + expectedInsertions + ", falsePositiveRate=" + falsePositiveRate);
+        }
+        long bitSize = Math.max(64, (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2))));
+        int hashCount = Math.max(1, (int) Math.round((double) bitSize / expectedInsertions * Math.log(2)));
+        return new BloomFilter(bitSize, hashCount, expectedInsertions);
+    }
+
+    void put(String value) {
+        long hash1 = hash(value);
+        long hash2 = mix(hash1 ^ 0x9E3779B97F4A7C15L);
+        // 해시 두 개로 k개를 만든다. (Kirsch-Mitzenmacher)
+        for (int i = 0; i < hashCount; i++) {
+            setBit(Long.remainderUnsigned(hash1 + i * hash2, bitSize));
+        }
+    }
+
+    boolean mightContain(String value) {
+        long hash1 = hash(value);
+        long hash2 = mix(hash1 ^ 0x9E3779B97F4A7C15L);
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Long.remainderUnsigned(hash1 + i * hash2, bitSize);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // 지금 켜진 비트 비율로 계산한 거짓 양성 확률 - 예상 원소 수보다 많이 넣을수록 올라간다.
+    double expectedFalsePositiveRate() {
+        return Math.pow((double) bitCount.get() / bitSize, hashCount);
+    }
+
+    long getExpectedInsertions() {
+        return expectedInsertions;
+    }
+
+    int getHashCount() {
+        return hashCount;
+    }
+
+    long sizeInBytes() {
+        return bitSize / 8;
+    }
+
+    private void setBit(long bit) {
+        int index = (int) (bit >>> 6);
+        long mask = 1L << bit;
+        long word;
+        do {
+            word = words.get(index);
+            if ((word & mask) != 0) {
+                return;
+            }
+        } while (!words.compareAndSet(index, word, word | mask));
+        bitCount.incrementAndGet();
+    }
+
+    // FNV-1a 로 글자를 섞고 murmur3 의 fmix64 로 비트를 고르게 퍼뜨린다.
+    private static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return mix(hash);
+    }
+
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb93fe53a87c5L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
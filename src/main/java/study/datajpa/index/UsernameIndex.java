@@ -0,0 +1,208 @@
+package study.datajpa.index;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// 회원 username 을 메모리에 들고 있는 인덱스
+// 가입/로그인 확인에서 나오는 username 조회는 대부분 없는 이름이라 DB 에 가봐야 빈 결과다.
+// - 블룸 필터: "확실히 없음"이면 DB 에 가지 않는다.
+// - 니어 캐시: username -> 회원 id 목록(LRU), 있으면 id 로 바로 찾는다. (영속성 컨텍스트, 2차 캐시를 먼저 본다.)
+//   블룸 필터가 틀린(거짓 양성) 이름도 빈 목록으로 캐시된다.
+//
+// 블룸 필터는 빼기가 안 되니까 삭제/이름 변경은 니어 캐시만 비우고, 필터는 `UsernameIndexLoader`가 다시 만들 때 정리된다.
+// 리스너(`UsernameIndexListener`)가 insert/update 마다 필터에 넣고, 커밋되면 니어 캐시를 비운다.
+//
+// 주의: 단일 writer 전용이다.
+// 리스너는 이 인스턴스의 하이버네이트 쓰기만 본다. 다른 인스턴스나 네이티브 SQL, JPQL 벌크 insert 로 들어온 이름은
+// 필터에 없어서 "확실히 없음"(거짓 음성)이 되고, 가입 중복 확인 같은 곳에서는 틀린 답이 된다.
+// 그래서 `app.username-index.enabled`는 기본으로 꺼져 있다.
+@Slf4j
+public class UsernameIndex {
+
+    private static final long[] NO_IDS = new long[0];
+
+    private final double falsePositiveRate;
+    private final int maxIdsPerEntry;
+
+    // 처음 만들어지기 전(`null`)에는 모든 이름이 "있을 수도 있음"이다.
+    private volatile BloomFilter filter;
+    // 다시 만드는 중인 필터 - 만드는 동안 들어온 이름도 같이 넣는다.
+    private volatile BloomFilter rebuilding;
+    private final AtomicBoolean overCapacityWarned = new AtomicBoolean();
+
+    private final Map<String, long[]> nearCache;
+    // 니어 캐시를 비울 때마다 올린다.
+    // DB 를 조회하는 사이에 다른 트랜잭션이 커밋했으면 조회한 결과를 캐시에 넣지 않는다.
+    private final AtomicLong generation = new AtomicLong();
+
+    private final LongAdder absent = new LongAdder();
+    private final LongAdder falsePositives = new LongAdder();
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder cacheMisses = new LongAdder();
+
+    public UsernameIndex(double falsePositiveRate, int nearCacheSize, int maxIdsPerEntry) {
+        this.falsePositiveRate = falsePositiveRate;
+        this.maxIdsPerEntry = maxIdsPerEntry;
+        this.nearCache = new LinkedHashMap<String, long[]>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, long[]> eldest) {
+                return size() > nearCacheSize;
+            }
+        };
+    }
+
+    // `false`면 DB 에 없는 것이 확실하다.
+    public boolean mightContain(String username) {
+        BloomFilter current = filter;
+        if (current == null || current.mightContain(username)) {
+            return true;
+        }
+        absent.increment();
+        return false;
+    }
+
+    // 니어 캐시에 있는 회원 id 목록 (없으면 `null`)
+    public long[] cachedIds(String username) {
+        long[] ids;
+        synchronized (nearCache) {
+            ids = nearCache.get(username);
+        }
+        if (ids == null) {
+            cacheMisses.increment();
+        } else {
+            cacheHits.increment();
+        }
+        return ids;
+    }
+
+    // DB 를 조회하기 전에 받아두고 `loaded()`에 넘긴다.
+    public long generation() {
+        return generation.get();
+    }
+
+    // DB 에서 조회한 결과를 캐시한다.
+    public void loaded(String username, long[] ids, long generationBeforeQuery) {
+        if (ids.length == 0 && filter != null) {
+            // 필터는 있을 수도 있다고 했는데 없었다.
+            falsePositives.increment();
+        }
+        if (ids.length > maxIdsPerEntry) {
+            return;
+        }
+        synchronized (nearCache) {
+            if (generation.get() == generationBeforeQuery) {
+                nearCache.put(username, ids.length == 0 ? NO_IDS : ids);
+            }
+        }
+    }
+
+    // 새로 생긴 이름 - 커밋 전에 넣어도 된다. (롤백되면 거짓 양성이 하나 늘 뿐이다.)
+    public void added(String username) {
+        BloomFilter current = filter;
+        if (current != null) {
+            current.put(username);
+            if (current.expectedFalsePositiveRate() > falsePositiveRate * 2 && overCapacityWarned.compareAndSet(false, true)) {
+                log.warn("username 블룸 필터가 예상 크기({})를 넘었습니다. 거짓 양성 확률 {}, 다시 만들어야 합니다.",
+                        current.getExpectedInsertions(), current.expectedFalsePositiveRate());
+            }
+        }
+        BloomFilter next = rebuilding;
+        if (next != null) {
+            next.put(username);
+        }
+    }
+
+    // 이름이 생기거나 없어지거나 바뀐 것이 커밋(또는 롤백)됐다.
+    public void changed(String username) {
+        synchronized (nearCache) {
+            generation.incrementAndGet();
+            nearCache.remove(username);
+        }
+    }
+
+    // ---- 다시 만들기 (`UsernameIndexLoader`) ----
+
+    public void startRebuild(long expectedInsertions) {
+        rebuilding = BloomFilter.create(Math.max(expectedInsertions, 1), falsePositiveRate);
+    }
+
+    public void addToRebuild(String username) {
+        rebuilding.put(username);
+    }
+
+    public void finishRebuild() {
+        BloomFilter next = rebuilding;
+        filter = next;
+        rebuilding = null;
+        overCapacityWarned.set(false);
+        log.info("username 블룸 필터를 만들었습니다. 예상 원소 {}개, 해시 {}개, {}KB, 거짓 양성 확률 {}",
+                next.getExpectedInsertions(), next.getHashCount(), next.sizeInBytes() / 1024, next.expectedFalsePositiveRate());
+    }
+
+    public void abortRebuild() {
+        rebuilding = null;
+    }
+
+    public boolean isReady() {
+        return filter != null;
+    }
+
+    // ---- 지표 ----
+
+    // 켜진 비트 비율로 계산한 거짓 양성 확률
+    public double getExpectedFalsePositiveRate() {
+        BloomFilter current = filter;
+        return current == null ? 1.0 : current.expectedFalsePositiveRate();
+    }
+
+    // 실제로 잰 거짓 양성 확률 = DB 에 없던 이름 중에서 필터가 "있을 수도 있음"이라고 한 비율
+    public double getObservedFalsePositiveRate() {
+        double negatives = absent.sum() + falsePositives.sum();
+        return negatives == 0 ? 0 : falsePositives.sum() / negatives;
+    }
+
+    public long getFilterBytes() {
+        BloomFilter current = filter;
+        BloomFilter next = rebuilding;
+        return (current == null ? 0 : current.sizeInBytes()) + (next == null ? 0 : next.sizeInBytes());
+    }
+
+    public int getNearCacheSize() {
+        synchronized (nearCache) {
+            return nearCache.size();
+        }
+    }
+
+    // 니어 캐시가 쓰는 대략적인 힙 크기
+    // 엔트리(40) + String(24 + 배열 16 + 글자) + long[](16 + 8 * id 수)
+    public long getNearCacheBytes() {
+        long bytes = 0;
+        synchronized (nearCache) {
+            for (Map.Entry<String, long[]> entry : nearCache.entrySet()) {
+                bytes += 40 + 40 + entry.getKey().length() + 16 + 8L * entry.getValue().length;
+            }
+        }
+        return bytes;
+    }
+
+    public long getAbsent() {
+        return absent.sum();
+    }
+
+    public long getFalsePositives() {
+        return falsePositives.sum();
+    }
+
+    public long getCacheHits() {
+        return cacheHits.sum();
+    }
+
+    public long getCacheMisses() {
+        return cacheMisses.sum();
+    }
+}
@@ -0,0 +1,125 @@
+package study.datajpa.index;
+
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PreInsertEvent;
+import org.hibernate.event.spi.PreInsertEventListener;
+import org.hibernate.event.spi.PreUpdateEvent;
+import org.hibernate.event.spi.PreUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import study.datajpa.entity.Member;
+
+import java.util.Objects;
+
+// `Member`의 username 이 바뀔 때 `UsernameIndex`를 맞춰준다.
+// - insert/update 직전: 블룸 필터에 넣는다. 커밋 전에 넣어야 커밋 직후의 조회가 "없음"으로 나오지 않는다.
+// - 커밋 후(실패 포함): 니어 캐시를 비운다. 커밋된 것만 다른 트랜잭션에 보이기 때문이다.
+//   인덱스를 다시 만드는 중에 커밋된 이름은 새 필터가 못 볼 수 있어서 커밋 후에도 한 번 더 넣는다.
+public class UsernameIndexListener implements PreInsertEventListener, PreUpdateEventListener,
+        PostCommitInsertEventListener, PostCommitUpdateEventListener, PostCommitDeleteEventListener {
+
+    private static final String USERNAME = "username";
+
+    private final UsernameIndex usernameIndex;
+
+    public UsernameIndexListener(UsernameIndex usernameIndex) {
+        this.usernameIndex = usernameIndex;
+    }
+
+    @Override
+    public boolean onPreInsert(PreInsertEvent event) {
+        if (event.getEntity() instanceof Member) {
+            add(username(event.getPersister(), event.getState()));
+        }
+        // `true`면 insert 를 취소한다.
+        return false;
+    }
+
+    @Override
+    public boolean onPreUpdate(PreUpdateEvent event) {
+        if (event.getEntity() instanceof Member) {
+            add(username(event.getPersister(), event.getState()));
+        }
+        return false;
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (!(event.getEntity() instanceof Member)) {
+            return;
+        }
+        String username = username(event.getPersister(), event.getState());
+        add(username);
+        changed(username);
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (!(event.getEntity() instanceof Member)) {
+            return;
+        }
+        String username = username(event.getPersister(), event.getState());
+        add(username);
+        changed(username);
+        if (event.getOldState() != null) {
+            String oldUsername = username(event.getPersister(), event.getOldState());
+            if (!Objects.equals(oldUsername, username)) {
+                changed(oldUsername);
+            }
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (!(event.getEntity() instanceof Member)) {
+            return;
+        }
+        changed(username(event.getPersister(), event.getDeletedState()));
+    }
+
+    // 롤백돼도 그 사이에 캐시된 결과가 있을 수 있으니 똑같이 비운다.
+    @Override
+    public void onPostInsertCommitFailed(PostInsertEvent event) {
+        if (event.getEntity() instanceof Member) {
+            changed(username(event.getPersister(), event.getState()));
+        }
+    }
+
+    @Override
+    public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+        onPostUpdate(event);
+    }
+
+    @Override
+    public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+        onPostDelete(event);
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return Member.class.isAssignableFrom(persister.getMappedClass());
+    }
+
+    private void add(String username) {
+        if (username != null) {
+            usernameIndex.added(username);
+        }
+    }
+
+    private void changed(String username) {
+        if (username != null) {
+            usernameIndex.changed(username);
+        }
+    }
+
+    private static String username(EntityPersister persister, Object[] state) {
+        if (state == null) {
+            return null;
+        }
+        return (String) state[persister.getEntityMetamodel().getPropertyIndex(USERNAME)];
+    }
+}
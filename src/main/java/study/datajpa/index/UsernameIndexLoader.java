@@ -0,0 +1,60 @@
+package study.datajpa.index;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.repository.MemberRepository;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+// 회원 테이블을 `Stream`으로 훑어서 `UsernameIndex`의 블룸 필터를 새로 만든다.
+// username 만 `fetchSize`씩 가져오기 때문에 회원 수만큼 힙을 먹지 않는다.
+// 만드는 동안 들어온 이름은 리스너가 새 필터에도 넣어주고, 다 만들면 바꿔 끼운다.
+@Slf4j
+public class UsernameIndexLoader {
+
+    private final UsernameIndex usernameIndex;
+    private final MemberRepository memberRepository;
+    private final TransactionTemplate readOnly;
+    // 예상 원소 수 = 지금 회원 수 * headroom (앞으로 가입할 회원 몫)
+    private final double headroom;
+    private final long minExpectedInsertions;
+
+    public UsernameIndexLoader(UsernameIndex usernameIndex, MemberRepository memberRepository,
+                               PlatformTransactionManager transactionManager, double headroom, long minExpectedInsertions) {
+        this.usernameIndex = usernameIndex;
+        this.memberRepository = memberRepository;
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
+        this.headroom = headroom;
+        this.minExpectedInsertions = minExpectedInsertions;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long startedAt = System.nanoTime();
+        long expected = Math.max((long) (memberRepository.estimateCount() * headroom), minExpectedInsertions);
+        AtomicLong scanned = new AtomicLong();
+
+        usernameIndex.startRebuild(expected);
+        try {
+            readOnly.executeWithoutResult(status -> {
+                try (Stream<String> usernames = memberRepository.streamUsernames()) {
+                    usernames.forEach(username -> {
+                        usernameIndex.addToRebuild(username);
+                        scanned.incrementAndGet();
+                    });
+                }
+            });
+        } catch (RuntimeException e) {
+            usernameIndex.abortRebuild();
+            throw e;
+        }
+        usernameIndex.finishRebuild();
+
+        log.info("username 인덱스 {}건, {}ms", scanned.get(), (System.nanoTime() - startedAt) / 1_000_000);
+    }
+}
@@ -0,0 +1,278 @@
+package study.datajpa.loader;
+
+import org.hibernate.Hibernate;
+import org.hibernate.Session;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+// 여러 스레드의 `findById()`를 모아서 `where id in (...)` 한 번으로 조회한다. (DataLoader 방식)
+// - 같은 id 를 이미 누가 조회 중이면 그 결과를 같이 받는다. (single-flight)
+// - 요청한 스레드 중 하나가 모인 id 를 조회해서 나머지에게 나눠준다.
+//   조회 중인 배치가 `concurrency`개면 새로 온 id 는 큐에서 기다리다가 먼저 끝난 스레드가 다음 배치로 가져간다.
+//   그래서 한가할 때는 기다리지 않고 바로 조회하고, 바쁠수록 배치가 커진다.
+//   요청 스레드는 배치를 하나만 돌리고, 그 뒤에도 큐에 남은 id 는 `executor`에 넘긴다.
+//   (계속 들어오는 다른 요청의 id 를 떠안느라 자기 응답을 못 보내는 일이 없도록)
+//   `window`를 주면 배치를 시작하기 전에 그만큼 더 모은다. (지연시간을 더 쓰고 배치를 키운다.)
+//
+// 배치는 읽기 전용 트랜잭션(`TransactionTemplate`)에서 조회하니까 레플리카가 있으면 레플리카에서 읽고(`ReplicationRoutingDataSource`),
+// `multiLoad`라서 2차 캐시를 켜면 캐시에 있는 회원은 DB 에 가지 않는다.
+// 돌려주는 회원은 준영속 상태다. 다른 스레드에 나눠줘야 해서 호출한 쪽 영속성 컨텍스트(OSIV 포함)에 넣지 않는다.
+// 같은 id 를 같이 기다린 스레드끼리 한 객체를 고치지 않도록 호출한 쪽마다 회원(팀 포함)을 복사해서 준다.
+// 팀은 트랜잭션 안에서 초기화해두니까 읽을 수 있지만 `team.members` 같은 다른 지연로딩은 안 된다.
+// 그래서 트랜잭션 밖에서만 쓴다. (`MemberBatchLoadingAspect`)
+// 조회가 시작된 뒤에 같은 id 를 요청하면 그 조회 결과를 같이 받으니까, 그 사이에 커밋된 변경은 못 볼 수 있다.
+public class MemberBatchLoader {
+
+    private final EntityManagerFactory entityManagerFactory;
+    // 트랜잭션마다 그 트랜잭션의 `EntityManager`를 찾아주는 공유 프록시
+    private final EntityManager entityManager;
+    private final EntityPersister memberPersister;
+    private final EntityPersister teamPersister;
+    private final TransactionTemplate readOnlyTx;
+    private final Executor executor;
+    private final Duration window;
+    private final int maxBatchSize;
+    private final Duration timeout;
+
+    private final Map<Long, CompletableFuture<Member>> inFlight = new ConcurrentHashMap<>();
+    private final Queue<Long> pending = new ConcurrentLinkedQueue<>();
+    private final Semaphore batchPermits;
+    // `executor`에 넘긴 작업은 한 번에 하나만
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder deduplicated = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder batchedIds = new LongAdder();
+
+    public MemberBatchLoader(EntityManagerFactory entityManagerFactory, PlatformTransactionManager transactionManager,
+                             Executor executor, Duration window, int maxBatchSize, int concurrency, Duration timeout) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.entityManager = SharedEntityManagerCreator.createSharedEntityManager(entityManagerFactory);
+        SessionFactoryImplementor sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        this.memberPersister = sessionFactory.getMetamodel().entityPersister(Member.class);
+        this.teamPersister = sessionFactory.getMetamodel().entityPersister(Team.class);
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+        this.executor = executor;
+        this.window = window;
+        this.maxBatchSize = maxBatchSize;
+        this.timeout = timeout;
+        this.batchPermits = new Semaphore(concurrency);
+    }
+
+    public Optional<Member> load(Long id) {
+        requests.increment();
+        CompletableFuture<Member> future = new CompletableFuture<>();
+        CompletableFuture<Member> existing = inFlight.putIfAbsent(id, future);
+        if (existing != null) {
+            deduplicated.increment();
+            future = existing;
+        } else {
+            pending.add(id);
+        }
+
+        dispatch();
+        return Optional.ofNullable(copy(await(id, future)));
+    }
+
+    // 배치를 하나 돌린다. 자리가 없으면 그냥 돌아간다. 자리를 가진 스레드가 반납한 뒤 큐를 다시 보니까 남는 id 는 없다.
+    // 돌린 뒤에도 큐에 id 가 남아 있으면 직접 더 돌리지 않고 `executor`에 넘긴다.
+    private void dispatch() {
+        if (pending.isEmpty() || !batchPermits.tryAcquire()) {
+            return;
+        }
+        try {
+            if (!window.isZero()) {
+                sleep(window);
+            }
+            List<Long> ids = new ArrayList<>();
+            Long next;
+            while (ids.size() < maxBatchSize && (next = pending.poll()) != null) {
+                ids.add(next);
+            }
+            if (!ids.isEmpty()) {
+                execute(ids);
+            }
+        } finally {
+            batchPermits.release();
+        }
+
+        if (!pending.isEmpty()) {
+            scheduleFlush();
+        }
+    }
+
+    private void scheduleFlush() {
+        if (!flushScheduled.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                // 먼저 풀어둬야 이 배치가 끝난 뒤 남은 id 를 다시 넘길 수 있다.
+                flushScheduled.set(false);
+                dispatch();
+            });
+        } catch (RejectedExecutionException e) {
+            // 넘길 곳이 없으면 기다리는 스레드가 `timeout`에 걸리지 않도록 여기서 하나 더 돌린다.
+            flushScheduled.set(false);
+            dispatch();
+        }
+    }
+
+    private void execute(List<Long> ids) {
+        batches.increment();
+        batchedIds.add(ids.size());
+
+        Map<Long, Member> found = new HashMap<>();
+        try {
+            for (Member member : select(ids)) {
+                found.put(member.getId(), member);
+            }
+        } catch (RuntimeException e) {
+            for (Long id : ids) {
+                complete(id, future -> future.completeExceptionally(e));
+            }
+            return;
+        }
+        for (Long id : ids) {
+            // 없는 회원은 `null`
+            complete(id, future -> future.complete(found.get(id)));
+        }
+    }
+
+    private void complete(Long id, Consumer<CompletableFuture<Member>> completion) {
+        // 지우고 나서 완료해야 완료된 결과를 새 요청이 받아가지 않는다.
+        CompletableFuture<Member> future = inFlight.remove(id);
+        if (future != null) {
+            completion.accept(future);
+        }
+    }
+
+    private List<Member> select(List<Long> ids) {
+        // OSIV 로 열린 `EntityManager`가 있으면 잠깐 떼어둔다.
+        // 그대로 두면 트랜잭션이 그걸 이어서 쓰기 때문에, 다른 요청에 나눠줄 회원이 이 요청의 영속성 컨텍스트에 들어간다.
+        Object requestEntityManager = TransactionSynchronizationManager.unbindResourceIfPossible(entityManagerFactory);
+        try {
+            return readOnlyTx.execute(status -> {
+                // 영속성 컨텍스트 -> 2차 캐시 -> DB(`in` 쿼리 한 번) 순서로 찾는다. 없는 회원은 `null`
+                List<Member> members = entityManager.unwrap(Session.class)
+                        .byMultipleIds(Member.class)
+                        .withBatchSize(maxBatchSize)
+                        .multiLoad(ids);
+                members.removeIf(Objects::isNull);
+                // 트랜잭션이 끝나면 준영속이 되니까 팀은 여기서 초기화한다. (`default_batch_fetch_size`로 `in` 쿼리 한 번)
+                for (Member member : members) {
+                    Hibernate.initialize(member.getTeam());
+                }
+                return members;
+            });
+        } finally {
+            if (requestEntityManager != null) {
+                TransactionSynchronizationManager.bindResource(entityManagerFactory, requestEntityManager);
+            }
+        }
+    }
+
+    // 필드를 하나하나 옮기지 않고 하이버네이트 메타데이터(`EntityPersister`)로 복사한다. (`@Version`, 감사 필드 포함)
+    private Member copy(Member member) {
+        if (member == null) {
+            return null;
+        }
+        Object[] values = memberPersister.getPropertyValues(member);
+        for (int i = 0; i < values.length; i++) {
+            // 팀은 배치 트랜잭션에서 초기화한 프록시라서 풀어서 복사한다.
+            if (values[i] != null && Hibernate.getClass(values[i]) == Team.class) {
+                Object team = Hibernate.unproxy(values[i]);
+                values[i] = copy(teamPersister, team, teamPersister.getPropertyValues(team));
+            }
+        }
+        return (Member) copy(memberPersister, member, values);
+    }
+
+    private static Object copy(EntityPersister persister, Object entity, Object[] values) {
+        for (int i = 0; i < values.length; i++) {
+            // 초기화된 컬렉션은 새로 담는다. 초기화 안 된 컬렉션(`team.members`)은 준영속이라 읽지도 고치지도 못하니 그대로 둔다.
+            if (values[i] instanceof Collection && Hibernate.isInitialized(values[i])) {
+                values[i] = new ArrayList<>((Collection<?>) values[i]);
+            }
+        }
+        Object copy = persister.instantiate(persister.getIdentifier(entity, null), null);
+        persister.setPropertyValues(copy, values);
+        return copy;
+    }
+
+    private Member await(Long id, CompletableFuture<Member> future) {
+        try {
+            return future.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new QueryTimeoutException("회원 " + id + " 조회가 " + timeout + " 안에 끝나지 않았습니다.", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new QueryTimeoutException("회원 " + id + " 조회를 기다리다가 중단되었습니다.", e);
+        }
+    }
+
+    private static void sleep(Duration duration) {
+        try {
+            TimeUnit.NANOSECONDS.sleep(duration.toNanos());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // ---- 지표 ----
+
+    public long getRequests() {
+        return requests.sum();
+    }
+
+    // 이미 조회 중인 id 라서 결과를 같이 받은 요청
+    public long getDeduplicated() {
+        return deduplicated.sum();
+    }
+
+    public long getBatches() {
+        return batches.sum();
+    }
+
+    public long getBatchedIds() {
+        return batchedIds.sum();
+    }
+}
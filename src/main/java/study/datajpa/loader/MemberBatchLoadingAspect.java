@@ -0,0 +1,29 @@
+package study.datajpa.loader;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+// `MemberRepository.findById()`를 트랜잭션 밖에서 부르면 `MemberBatchLoader`로 보낸다.
+// `/members2/{id}`의 도메인 클래스 컨버터(`DomainClassConverter`)도 리포지토리 빈의 `findById()`를 부르니까 같이 적용된다.
+// 스프링 데이터 리포지토리 프록시 바깥에서 감싸기 때문에, 리포지토리의 `@Transactional`이 트랜잭션을 열기 전에 호출한 쪽 상태를 본다.
+// 트랜잭션 안에서는 영속성 컨텍스트의 같은 엔티티를 돌려줘야 하니까 원래대로 조회한다.
+@Aspect
+public class MemberBatchLoadingAspect {
+
+    private final MemberBatchLoader loader;
+
+    public MemberBatchLoadingAspect(MemberBatchLoader loader) {
+        this.loader = loader;
+    }
+
+    @Around("execution(* org.springframework.data.repository.CrudRepository.findById(..)) "
+            + "&& target(study.datajpa.repository.MemberRepository) && args(id)")
+    public Object findById(ProceedingJoinPoint joinPoint, Object id) throws Throwable {
+        if (id == null || TransactionSynchronizationManager.isActualTransactionActive()) {
+            return joinPoint.proceed();
+        }
+        return loader.load((Long) id);
+    }
+}
@@ -0,0 +1,25 @@
+package study.datajpa.metrics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+// 하이버네이트가 JDBC `PreparedStatement`를 만들기 직전에 SQL 을 넘겨준다.
+// SQL 을 바꾸지 않고 개수만 세고, select 는 N+1 감지기에도 넘겨준다.
+public class CountingStatementInspector implements StatementInspector {
+
+    private final NPlusOneDetector nPlusOneDetector;
+
+    public CountingStatementInspector(NPlusOneDetector nPlusOneDetector) {
+        this.nPlusOneDetector = nPlusOneDetector;
+    }
+
+    @Override
+    public String inspect(String sql) {
+        QueryCounters.StatementType type = QueryCounters.StatementType.of(sql);
+        QueryCounters.current().statementExecuted(type);
+
+        if (type == QueryCounters.StatementType.SELECT) {
+            nPlusOneDetector.onSelect(sql);
+        }
+        return sql;
+    }
+}
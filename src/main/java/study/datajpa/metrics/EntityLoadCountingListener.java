@@ -0,0 +1,13 @@
+package study.datajpa.metrics;
+
+import org.hibernate.event.spi.PostLoadEvent;
+import org.hibernate.event.spi.PostLoadEventListener;
+
+// 엔티티가 DB(혹은 2차 캐시)에서 불러와질 때마다 호출된다. (지연로딩 프록시 초기화 포함)
+public class EntityLoadCountingListener implements PostLoadEventListener {
+
+    @Override
+    public void onPostLoad(PostLoadEvent event) {
+        QueryCounters.current().entityLoaded();
+    }
+}
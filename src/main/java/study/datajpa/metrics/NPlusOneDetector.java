@@ -0,0 +1,49 @@
+package study.datajpa.metrics;
+
+import lombok.extern.slf4j.Slf4j;
+
+// 한 범위(`QueryScope`) 안에서 같은 모양의 select 가 `threshold`번 이상 실행되면 N+1 로 본다.
+// 지연로딩 프록시(`member.getTeam().getName()`)를 반복문에서 건드리면
+// `select ... from team where team_id=?`가 회원 수만큼 반복되는 것이 대표적인 경우다.
+@Slf4j
+public class NPlusOneDetector {
+
+    public enum Mode {
+        // 감지하지 않는다.
+        OFF,
+        // 경고 로그만 남긴다.
+        LOG,
+        // `NPlusOneQueryException`을 던진다. (테스트에서 회귀를 막을 때)
+        FAIL
+    }
+
+    private final Mode mode;
+    private final int threshold;
+
+    public NPlusOneDetector(Mode mode, int threshold) {
+        this.mode = mode;
+        this.threshold = Math.max(threshold, 2);
+    }
+
+    void onSelect(String sql) {
+        if (mode == Mode.OFF) {
+            return;
+        }
+
+        QueryScope scope = QueryScope.current();
+        if (scope == null) {
+            return;
+        }
+
+        // 처음 기준을 넘었을 때 한 번만 알린다.
+        int count = scope.recordSelect(sql);
+        if (count != threshold) {
+            return;
+        }
+
+        if (mode == Mode.FAIL) {
+            throw new NPlusOneQueryException(scope.getName(), sql, count);
+        }
+        log.warn("N+1 의심 [{}] 같은 select 가 {}번 실행됨: {}", scope.getName(), count, sql);
+    }
+}
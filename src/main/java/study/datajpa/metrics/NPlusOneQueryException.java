@@ -0,0 +1,8 @@
+package study.datajpa.metrics;
+
+public class NPlusOneQueryException extends RuntimeException {
+
+    public NPlusOneQueryException(String scope, String sql, int count) {
+        super("N+1 의심 [" + scope + "] 같은 select 가 " + count + "번 실행됨: " + sql);
+    }
+}
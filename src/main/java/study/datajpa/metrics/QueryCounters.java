@@ -0,0 +1,150 @@
+package study.datajpa.metrics;
+
+// 스레드별로 하이버네이트가 실행한 SQL, 불러온 엔티티 개수, 플러시/변경 감지/캐시 조회 횟수를 센다.
+// 요청(스레드) 하나 안에서 전후 값을 빼면 그 사이에 몇 번 실행됐는지 알 수 있다.
+// 다른 스레드와 공유하지 않기 때문에 동기화 없이 `long` 필드만 올린다.
+public final class QueryCounters {
+
+    private static final ThreadLocal<QueryCounters> CURRENT = ThreadLocal.withInitial(QueryCounters::new);
+
+    private long statements;
+    private long selects;
+    private long inserts;
+    private long updates;
+    private long deletes;
+    private long entitiesLoaded;
+    private long entitiesFetched;
+    private long collectionsLoaded;
+    private long collectionsFetched;
+    private long flushes;
+    private long dirtyChecks;
+    private long dirtyCheckNanos;
+    private long queryPlanCacheHits;
+    private long queryPlanCacheMisses;
+    private long secondLevelCacheHits;
+    private long secondLevelCacheMisses;
+
+    private QueryCounters() {
+    }
+
+    public static QueryCounters current() {
+        return CURRENT.get();
+    }
+
+    void statementExecuted(StatementType type) {
+        statements++;
+        switch (type) {
+            case SELECT:
+                selects++;
+                break;
+            case INSERT:
+                inserts++;
+                break;
+            case UPDATE:
+                updates++;
+                break;
+            case DELETE:
+                deletes++;
+                break;
+            default:
+                break;
+        }
+    }
+
+    void entityLoaded() {
+        entitiesLoaded++;
+    }
+
+    void entityFetched() {
+        entitiesFetched++;
+    }
+
+    void collectionLoaded() {
+        collectionsLoaded++;
+    }
+
+    void collectionFetched() {
+        collectionsFetched++;
+    }
+
+    void flushed() {
+        flushes++;
+    }
+
+    void dirtyChecked(long nanos) {
+        dirtyChecks++;
+        dirtyCheckNanos += nanos;
+    }
+
+    void queryPlanCacheHit() {
+        queryPlanCacheHits++;
+    }
+
+    void queryPlanCacheMissed() {
+        queryPlanCacheMisses++;
+    }
+
+    void secondLevelCacheRead(boolean hit) {
+        if (hit) {
+            secondLevelCacheHits++;
+        } else {
+            secondLevelCacheMisses++;
+        }
+    }
+
+    // 지금까지의 누적값 - `SessionMetrics.between()`으로 빼서 쓴다.
+    SessionMetrics snapshot() {
+        return new SessionMetrics(statements, entitiesLoaded, entitiesFetched, collectionsLoaded, collectionsFetched,
+                flushes, dirtyChecks, dirtyCheckNanos, queryPlanCacheHits, queryPlanCacheMisses,
+                secondLevelCacheHits, secondLevelCacheMisses, 0);
+    }
+
+    public long getStatements() {
+        return statements;
+    }
+
+    public long getSelects() {
+        return selects;
+    }
+
+    public long getInserts() {
+        return inserts;
+    }
+
+    public long getUpdates() {
+        return updates;
+    }
+
+    public long getDeletes() {
+        return deletes;
+    }
+
+    public long getEntitiesLoaded() {
+        return entitiesLoaded;
+    }
+
+    enum StatementType {
+        SELECT, INSERT, UPDATE, DELETE, OTHER;
+
+        static StatementType of(String sql) {
+            int i = 0;
+            while (i < sql.length() && Character.isWhitespace(sql.charAt(i))) {
+                i++;
+            }
+
+            if (sql.regionMatches(true, i, "select", 0, 6)) {
+                return SELECT;
+            }
+            if (sql.regionMatches(true, i, "insert", 0, 6)) {
+                return INSERT;
+            }
+            if (sql.regionMatches(true, i, "update", 0, 6)) {
+                return UPDATE;
+            }
+            if (sql.regionMatches(true, i, "delete", 0, 6)) {
+                return DELETE;
+            }
+            return OTHER;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package study.datajpa.metrics;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// 요청 하나, 테스트 하나처럼 "이 구간 안에서" 실행된 SQL 을 세는 범위
+// 같은 모양의 select 가 반복되는지(N+1) 찾기 위해 select SQL 별 실행 횟수도 들고 있다.
+// 하이버네이트가 넘겨주는 SQL 은 파라미터가 `?`로 되어 있어서 SQL 문자열 자체가 "쿼리 모양"이 된다.
+public final class QueryScope implements AutoCloseable {
+
+    private static final ThreadLocal<QueryScope> CURRENT = new ThreadLocal<>();
+
+    private final String name;
+    private final QueryScope parent;
+    private final Map<String, Integer> selectCounts = new HashMap<>();
+    private long selectsAtStart;
+    private long insertsAtStart;
+    private long updatesAtStart;
+    private long deletesAtStart;
+    private SessionMetrics sessionAtStart;
+    private long maxManagedEntities;
+
+    private QueryScope(String name, QueryScope parent) {
+        this.name = name;
+        this.parent = parent;
+        reset();
+    }
+
+    // 이미 열린 범위가 있으면 그 안에 새로 연다. `close()` 하면 바깥 범위로 돌아간다.
+    public static QueryScope begin(String name) {
+        QueryScope scope = new QueryScope(name, CURRENT.get());
+        CURRENT.set(scope);
+        return scope;
+    }
+
+    // 열린 범위가 없으면 `null`
+    public static QueryScope current() {
+        return CURRENT.get();
+    }
+
+    // 지금까지 센 것을 0으로 되돌린다. (테스트에서 데이터 준비용 SQL 을 빼고 세고 싶을 때)
+    public void reset() {
+        QueryCounters counters = QueryCounters.current();
+        selectsAtStart = counters.getSelects();
+        insertsAtStart = counters.getInserts();
+        updatesAtStart = counters.getUpdates();
+        deletesAtStart = counters.getDeletes();
+        sessionAtStart = counters.snapshot();
+        maxManagedEntities = 0;
+        selectCounts.clear();
+    }
+
+    // 같은 select 가 이 범위 안에서 몇 번째 실행되는 것인지
+    int recordSelect(String sql) {
+        return selectCounts.merge(sql, 1, Integer::sum);
+    }
+
+    // 플러시할 때 영속성 컨텍스트 크기 - 바깥 범위에도 남긴다.
+    void recordFlush(int managedEntities) {
+        for (QueryScope scope = this; scope != null; scope = scope.parent) {
+            scope.maxManagedEntities = Math.max(scope.maxManagedEntities, managedEntities);
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getSelectCount() {
+        return QueryCounters.current().getSelects() - selectsAtStart;
+    }
+
+    public long getInsertCount() {
+        return QueryCounters.current().getInserts() - insertsAtStart;
+    }
+
+    public long getUpdateCount() {
+        return QueryCounters.current().getUpdates() - updatesAtStart;
+    }
+
+    public long getDeleteCount() {
+        return QueryCounters.current().getDeletes() - deletesAtStart;
+    }
+
+    // 이 범위 안에서 하이버네이트 세션이 한 일
+    public SessionMetrics getSessionMetrics() {
+        return SessionMetrics.between(sessionAtStart, QueryCounters.current().snapshot(), maxManagedEntities);
+    }
+
+    @Override
+    public void close() {
+        if (parent == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(parent);
+        }
+    }
+}
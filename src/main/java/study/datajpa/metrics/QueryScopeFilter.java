@@ -0,0 +1,49 @@
+package study.datajpa.metrics;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+// HTTP 요청 하나를 `QueryScope` 하나로 묶는다.
+// OSIV 때문에 컨트롤러에서 지연로딩이 일어나도 같은 요청 안이면 N+1 로 잡힌다.
+// 요청이 끝나면 세션 지표를 `SessionMetricsCollector`에 넘긴다. (이 스레드에서 한 것만 - `@Async` 작업은 빠진다.)
+@Component
+public class QueryScopeFilter extends OncePerRequestFilter {
+
+    // `app.session-metrics.enabled=false`면 없다.
+    private final ObjectProvider<SessionMetricsCollector> sessionMetricsCollector;
+
+    public QueryScopeFilter(ObjectProvider<SessionMetricsCollector> sessionMetricsCollector) {
+        this.sessionMetricsCollector = sessionMetricsCollector;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String name = request.getMethod() + " " + request.getRequestURI();
+        long start = System.nanoTime();
+        try (QueryScope scope = QueryScope.begin(name)) {
+            try {
+                filterChain.doFilter(request, response);
+            } finally {
+                SessionMetricsCollector collector = sessionMetricsCollector.getIfAvailable();
+                if (collector != null) {
+                    collector.record(route(request), name, scope.getSessionMetrics(), (System.nanoTime() - start) / 1_000);
+                }
+            }
+        }
+    }
+
+    // 컨트롤러에 매핑된 패턴 (`GET /members/{id}`) - 매핑이 안 됐으면(404, 정적 리소스) "other"
+    private static String route(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return pattern == null ? SessionMetricsCollector.OTHER_ROUTE : request.getMethod() + " " + pattern;
+    }
+}
@@ -0,0 +1,134 @@
+package study.datajpa.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.BaseStream;
+
+// 리포지토리 메소드마다 호출 수, 지연시간(p50/p99/p999), 반환 row 수, 실행된 SQL 수, 불러온 엔티티 수를 기록한다.
+// 스프링 데이터 JPA 가 만든 리포지토리(`MemberRepository` 등)와 직접 만든 `@Repository` 클래스 둘 다 대상이다.
+// 결과는 `/actuator/repositories` 혹은 `/actuator/metrics/repository.invocations`에서 볼 수 있다.
+@Aspect
+@Component
+public class RepositoryMetricsAspect {
+
+    private final MeterRegistry meterRegistry;
+
+    // 호출할 때마다 미터를 찾느라 문자열을 만들지 않도록 (리포지토리 클래스, 메소드)별로 캐시해둔다.
+    // `findById`처럼 여러 리포지토리가 같은 `Method`를 공유하기 때문에 리포지토리 클래스로 한 번 더 나눈다.
+    private final Map<Class<?>, Map<Method, MethodMeters>> meters = new ConcurrentHashMap<>();
+
+    public RepositoryMetricsAspect(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Around("execution(* org.springframework.data.repository.Repository+.*(..)) " +
+            "|| @within(org.springframework.stereotype.Repository)")
+    public Object record(ProceedingJoinPoint joinPoint) throws Throwable {
+        MethodMeters methodMeters = metersOf(joinPoint);
+        QueryCounters counters = QueryCounters.current();
+        long statementsBefore = counters.getStatements();
+        long entitiesBefore = counters.getEntitiesLoaded();
+        long start = System.nanoTime();
+
+        Object result = null;
+        try {
+            result = joinPoint.proceed();
+            return result;
+        } finally {
+            methodMeters.latency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            methodMeters.statements.record(counters.getStatements() - statementsBefore);
+            methodMeters.entitiesLoaded.record(counters.getEntitiesLoaded() - entitiesBefore);
+
+            long rows = rowsOf(result);
+            if (rows >= 0) {
+                methodMeters.rows.record(rows);
+            }
+        }
+    }
+
+    private MethodMeters metersOf(ProceedingJoinPoint joinPoint) {
+        // 스프링 데이터 JPA 리포지토리는 구현체가 전부 `SimpleJpaRepository`라서, 인터페이스마다 다른 프록시 클래스로 구분한다.
+        Class<?> targetClass = joinPoint.getTarget().getClass();
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+
+        return meters
+                .computeIfAbsent(targetClass, key -> new ConcurrentHashMap<>())
+                .computeIfAbsent(method, key -> new MethodMeters(meterRegistry, repositoryName(joinPoint.getTarget()), method.getName()));
+    }
+
+    // 스프링 데이터 JPA 리포지토리는 JDK 프록시(`$Proxy95`)라서 인터페이스 이름을 찾아서 쓴다.
+    // 직접 만든 `@Repository` 클래스(`MemberJpaRepository`)는 인터페이스가 없으니 클래스 이름을 쓴다.
+    private static String repositoryName(Object target) {
+        for (Class<?> candidate : ClassUtils.getAllInterfacesForClass(target.getClass())) {
+            if (org.springframework.data.repository.Repository.class.isAssignableFrom(candidate)
+                    && !candidate.getName().startsWith("org.springframework.")) {
+                return candidate.getSimpleName();
+            }
+        }
+        return AopProxyUtils.ultimateTargetClass(target).getSimpleName();
+    }
+
+    // 몇 건을 돌려줬는지 - 알 수 없는 타입(`Stream`, `count` 결과 등)이면 -1
+    private static long rowsOf(Object result) {
+        if (result == null) {
+            return 0;
+        }
+        if (result instanceof Collection) {
+            return ((Collection<?>) result).size();
+        }
+        if (result instanceof Slice) {
+            return ((Slice<?>) result).getNumberOfElements();
+        }
+        if (result instanceof Optional) {
+            return ((Optional<?>) result).isPresent() ? 1 : 0;
+        }
+        if (result instanceof Number || result instanceof Boolean || result instanceof Iterable
+                || result instanceof BaseStream || result instanceof Future) {
+            return -1;
+        }
+        return 1;
+    }
+
+    static class MethodMeters {
+        final Timer latency;
+        final DistributionSummary rows;
+        final DistributionSummary statements;
+        final DistributionSummary entitiesLoaded;
+
+        MethodMeters(MeterRegistry registry, String repository, String method) {
+            this.latency = Timer.builder("repository.invocations")
+                    .description("리포지토리 메소드 호출 시간")
+                    .tag("repository", repository)
+                    .tag("method", method)
+                    .publishPercentiles(0.5, 0.99, 0.999)
+                    .register(registry);
+            this.rows = summary(registry, "repository.rows", repository, method);
+            this.statements = summary(registry, "repository.statements", repository, method);
+            this.entitiesLoaded = summary(registry, "repository.entities.loaded", repository, method);
+        }
+
+        private static DistributionSummary summary(MeterRegistry registry, String name, String repository, String method) {
+            return DistributionSummary.builder(name)
+                    .tag("repository", repository)
+                    .tag("method", method)
+                    .register(registry);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package study.datajpa.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+// 리포지토리 메소드별 지표를 한 번에 보여주는 액추에이터 엔드포인트
+// http://localhost:8080/actuator/repositories
+// `/actuator/metrics/repository.invocations?tag=method:findAll` 처럼 하나씩 볼 수도 있다.
+@Component
+@Endpoint(id = "repositories")
+public class RepositoryMetricsEndpoint {
+
+    private final MeterRegistry meterRegistry;
+
+    public RepositoryMetricsEndpoint(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @ReadOperation
+    public Map<String, Object> repositories() {
+        // "MemberRepository.findAll" 순으로 정렬
+        Map<String, Object> result = new TreeMap<>();
+
+        for (Timer timer : meterRegistry.find("repository.invocations").timers()) {
+            String repository = timer.getId().getTag("repository");
+            String method = timer.getId().getTag("method");
+            HistogramSnapshot snapshot = timer.takeSnapshot();
+
+            Map<String, Object> methodResult = new LinkedHashMap<>();
+            methodResult.put("count", snapshot.count());
+            methodResult.put("meanMs", snapshot.mean(TimeUnit.MILLISECONDS));
+            methodResult.put("maxMs", snapshot.max(TimeUnit.MILLISECONDS));
+            for (ValueAtPercentile percentile : snapshot.percentileValues()) {
+                methodResult.put("p" + percentileName(percentile.percentile()) + "Ms", percentile.value(TimeUnit.MILLISECONDS));
+            }
+            methodResult.put("rows", total("repository.rows", repository, method));
+            methodResult.put("statements", total("repository.statements", repository, method));
+            methodResult.put("entitiesLoaded", total("repository.entities.loaded", repository, method));
+
+            result.put(repository + "." + method, methodResult);
+        }
+        return result;
+    }
+
+    private double total(String name, String repository, String method) {
+        DistributionSummary summary = meterRegistry.find(name)
+                .tag("repository", repository)
+                .tag("method", method)
+                .summary();
+        return summary == null ? 0 : summary.totalAmount();
+    }
+
+    // 0.5 -> "50", 0.99 -> "99", 0.999 -> "999"
+    private static String percentileName(double percentile) {
+        String digits = String.valueOf(percentile).substring(2);
+        return digits.length() == 1 ? digits + "0" : digits;
+    }
+}
@@ -0,0 +1,35 @@
+package study.datajpa.metrics;
+
+import org.hibernate.BaseSessionEventListener;
+
+// 세션마다 하나씩 만들어지는 하이버네이트 세션 이벤트 리스너 (`hibernate.session.events.auto`)
+// 플러시, 변경 감지, 2차 캐시 조회를 스레드별 `QueryCounters`에 센다.
+// 세션은 한 스레드에서만 쓰니까 시작 시각을 필드에 들고 있어도 된다.
+public class SessionCountingListener extends BaseSessionEventListener {
+
+    private long dirtyCheckStart;
+
+    @Override
+    public void flushEnd(int numberOfEntities, int numberOfCollections) {
+        QueryCounters.current().flushed();
+        QueryScope scope = QueryScope.current();
+        if (scope != null) {
+            scope.recordFlush(numberOfEntities);
+        }
+    }
+
+    @Override
+    public void dirtyCalculationStart() {
+        dirtyCheckStart = System.nanoTime();
+    }
+
+    @Override
+    public void dirtyCalculationEnd(boolean dirty) {
+        QueryCounters.current().dirtyChecked(System.nanoTime() - dirtyCheckStart);
+    }
+
+    @Override
+    public void cacheGetEnd(boolean hit) {
+        QueryCounters.current().secondLevelCacheRead(hit);
+    }
+}
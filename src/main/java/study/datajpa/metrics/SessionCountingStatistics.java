@@ -0,0 +1,221 @@
+package study.datajpa.metrics;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.metamodel.model.domain.NavigableRole;
+import org.hibernate.stat.internal.StatisticsImpl;
+
+// 연관 엔티티 fetch, 컬렉션 로딩, 쿼리 플랜 캐시 히트는 세션 이벤트가 없고 하이버네이트 통계(`Statistics`)로만 알려준다.
+// 그런데 통계를 켜면(`hibernate.generate_statistics`) 엔티티 이름, 쿼리 문자열별로 전역 통계를 쌓느라 비싸다.
+//
+// 그래서 하이버네이트에게는 항상 켜져 있다고 하고(`isStatisticsEnabled()`),
+// 필요한 것만 스레드별 `QueryCounters`에 센 다음, 전역 통계는 원래 설정이 켜져 있을 때만 쌓는다.
+// 자주 불리는 콜백만 막아두었고 나머지(자연키, 낙관적 락 실패 등)는 드물어서 그냥 쌓는다.
+// `hibernate.stats.factory`로 등록한다. (`SessionMetricsConfig`)
+public class SessionCountingStatistics extends StatisticsImpl {
+
+    public SessionCountingStatistics(SessionFactoryImplementor sessionFactory) {
+        super(sessionFactory);
+    }
+
+    @Override
+    public boolean isStatisticsEnabled() {
+        return true;
+    }
+
+    // `hibernate.generate_statistics` 설정값
+    public boolean isGlobalStatisticsEnabled() {
+        return super.isStatisticsEnabled();
+    }
+
+    // ---- 요청별로 세는 것 ----
+
+    @Override
+    public void fetchEntity(String entityName) {
+        QueryCounters.current().entityFetched();
+        if (isGlobalStatisticsEnabled()) {
+            super.fetchEntity(entityName);
+        }
+    }
+
+    @Override
+    public void loadCollection(String role) {
+        QueryCounters.current().collectionLoaded();
+        if (isGlobalStatisticsEnabled()) {
+            super.loadCollection(role);
+        }
+    }
+
+    @Override
+    public void fetchCollection(String role) {
+        QueryCounters.current().collectionFetched();
+        if (isGlobalStatisticsEnabled()) {
+            super.fetchCollection(role);
+        }
+    }
+
+    @Override
+    public void queryPlanCacheHit(String query) {
+        QueryCounters.current().queryPlanCacheHit();
+        if (isGlobalStatisticsEnabled()) {
+            super.queryPlanCacheHit(query);
+        }
+    }
+
+    // 5.4 에는 `queryPlanCacheMiss()`가 없다. 캐시에 없어서 HQL 을 새로 컴파일할 때 불리는 이게 miss 다.
+    @Override
+    public void queryCompiled(String hql, long microseconds) {
+        QueryCounters.current().queryPlanCacheMissed();
+        if (isGlobalStatisticsEnabled()) {
+            super.queryCompiled(hql, microseconds);
+        }
+    }
+
+    // ---- 전역 통계가 꺼져 있으면 건너뛰는 것 ----
+
+    @Override
+    public void openSession() {
+        if (isGlobalStatisticsEnabled()) {
+            super.openSession();
+        }
+    }
+
+    @Override
+    public void closeSession() {
+        if (isGlobalStatisticsEnabled()) {
+            super.closeSession();
+        }
+    }
+
+    @Override
+    public void flush() {
+        if (isGlobalStatisticsEnabled()) {
+            super.flush();
+        }
+    }
+
+    @Override
+    public void connect() {
+        if (isGlobalStatisticsEnabled()) {
+            super.connect();
+        }
+    }
+
+    @Override
+    public void prepareStatement() {
+        if (isGlobalStatisticsEnabled()) {
+            super.prepareStatement();
+        }
+    }
+
+    @Override
+    public void closeStatement() {
+        if (isGlobalStatisticsEnabled()) {
+            super.closeStatement();
+        }
+    }
+
+    @Override
+    public void endTransaction(boolean success) {
+        if (isGlobalStatisticsEnabled()) {
+            super.endTransaction(success);
+        }
+    }
+
+    @Override
+    public void loadEntity(String entityName) {
+        if (isGlobalStatisticsEnabled()) {
+            super.loadEntity(entityName);
+        }
+    }
+
+    @Override
+    public void insertEntity(String entityName) {
+        if (isGlobalStatisticsEnabled()) {
+            super.insertEntity(entityName);
+        }
+    }
+
+    @Override
+    public void updateEntity(String entityName) {
+        if (isGlobalStatisticsEnabled()) {
+            super.updateEntity(entityName);
+        }
+    }
+
+    @Override
+    public void deleteEntity(String entityName) {
+        if (isGlobalStatisticsEnabled()) {
+            super.deleteEntity(entityName);
+        }
+    }
+
+    @Override
+    public void queryExecuted(String hql, int rows, long time) {
+        if (isGlobalStatisticsEnabled()) {
+            super.queryExecuted(hql, rows, time);
+        }
+    }
+
+    @Override
+    public void entityCacheHit(NavigableRole entityName, String regionName) {
+        if (isGlobalStatisticsEnabled()) {
+            super.entityCacheHit(entityName, regionName);
+        }
+    }
+
+    @Override
+    public void entityCacheMiss(NavigableRole entityName, String regionName) {
+        if (isGlobalStatisticsEnabled()) {
+            super.entityCacheMiss(entityName, regionName);
+        }
+    }
+
+    @Override
+    public void entityCachePut(NavigableRole entityName, String regionName) {
+        if (isGlobalStatisticsEnabled()) {
+            super.entityCachePut(entityName, regionName);
+        }
+    }
+
+    @Override
+    public void collectionCacheHit(NavigableRole collectionRole, String regionName) {
+        if (isGlobalStatisticsEnabled()) {
+            super.collectionCacheHit(collectionRole, regionName);
+        }
+    }
+
+    @Override
+    public void collectionCacheMiss(NavigableRole collectionRole, String regionName) {
+        if (isGlobalStatisticsEnabled()) {
+            super.collectionCacheMiss(collectionRole, regionName);
+        }
+    }
+
+    @Override
+    public void collectionCachePut(NavigableRole collectionRole, String regionName) {
+        if (isGlobalStatisticsEnabled()) {
+            super.collectionCachePut(collectionRole, regionName);
+        }
+    }
+
+    @Override
+    public void queryCacheHit(String hql, String regionName) {
+        if (isGlobalStatisticsEnabled()) {
+            super.queryCacheHit(hql, regionName);
+        }
+    }
+
+    @Override
+    public void queryCacheMiss(String hql, String regionName) {
+        if (isGlobalStatisticsEnabled()) {
+            super.queryCacheMiss(hql, regionName);
+        }
+    }
+
+    @Override
+    public void queryCachePut(String hql, String regionName) {
+        if (isGlobalStatisticsEnabled()) {
+            super.queryCachePut(hql, regionName);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package study.datajpa.metrics;
+
+import lombok.Getter;
+import lombok.ToString;
+
+// 한 구간(요청, 테스트) 동안 하이버네이트 세션이 한 일
+// `QueryCounters`의 누적값 두 개를 빼서 만든다. (`QueryScope.getSessionMetrics()`)
+@Getter
+@ToString
+public final class SessionMetrics {
+
+    private final long statements;
+    // 쿼리 결과든 지연로딩이든 엔티티 인스턴스가 만들어진 횟수 (`PostLoadEvent`)
+    private final long entitiesLoaded;
+    // 그 중 연관관계 때문에 id 로 따로 가져온 것 (프록시 초기화, `@ManyToOne` 즉시 로딩)
+    private final long entitiesFetched;
+    // 컬렉션이 채워진 횟수 / 그 중 컬렉션 하나만 따로 가져온 것 (지연로딩)
+    private final long collectionsLoaded;
+    private final long collectionsFetched;
+    private final long flushes;
+    // 플러시 때 변경 감지(dirty check)를 한 엔티티 수와 걸린 시간
+    private final long dirtyChecks;
+    private final long dirtyCheckNanos;
+    private final long queryPlanCacheHits;
+    private final long queryPlanCacheMisses;
+    // 2차 캐시(엔티티, 컬렉션, 쿼리 캐시) 조회
+    private final long secondLevelCacheHits;
+    private final long secondLevelCacheMisses;
+    // 플러시할 때 영속성 컨텍스트에 있던 엔티티 수의 최대값 (플러시가 없었으면 0)
+    private final long maxManagedEntities;
+
+    SessionMetrics(long statements, long entitiesLoaded, long entitiesFetched,
+                   long collectionsLoaded, long collectionsFetched, long flushes,
+                   long dirtyChecks, long dirtyCheckNanos, long queryPlanCacheHits, long queryPlanCacheMisses,
+                   long secondLevelCacheHits, long secondLevelCacheMisses, long maxManagedEntities) {
+        this.statements = statements;
+        this.entitiesLoaded = entitiesLoaded;
+        this.entitiesFetched = entitiesFetched;
+        this.collectionsLoaded = collectionsLoaded;
+        this.collectionsFetched = collectionsFetched;
+        this.flushes = flushes;
+        this.dirtyChecks = dirtyChecks;
+        this.dirtyCheckNanos = dirtyCheckNanos;
+        this.queryPlanCacheHits = queryPlanCacheHits;
+        this.queryPlanCacheMisses = queryPlanCacheMisses;
+        this.secondLevelCacheHits = secondLevelCacheHits;
+        this.secondLevelCacheMisses = secondLevelCacheMisses;
+        this.maxManagedEntities = maxManagedEntities;
+    }
+
+    // 누적값 `start` -> `end` 사이의 차이
+    static SessionMetrics between(SessionMetrics start, SessionMetrics end, long maxManagedEntities) {
+        return new SessionMetrics(
+                end.statements - start.statements,
+                end.entitiesLoaded - start.entitiesLoaded,
+                end.entitiesFetched - start.entitiesFetched,
+                end.collectionsLoaded - start.collectionsLoaded,
+                end.collectionsFetched - start.collectionsFetched,
+                end.flushes - start.flushes,
+                end.dirtyChecks - start.dirtyChecks,
+                end.dirtyCheckNanos - start.dirtyCheckNanos,
+                end.queryPlanCacheHits - start.queryPlanCacheHits,
+                end.queryPlanCacheMisses - start.queryPlanCacheMisses,
+                end.secondLevelCacheHits - start.secondLevelCacheHits,
+                end.secondLevelCacheMisses - start.secondLevelCacheMisses,
+                maxManagedEntities);
+    }
+}
@@ -0,0 +1,111 @@
+package study.datajpa.metrics;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+// 요청이 끝날 때마다(`QueryScopeFilter`) 세션 지표를 최근 구간(`SessionMetricsWindow`)에 모은다.
+// - 전체 요청 + 요청 패턴(`GET /members/{id}`)별로 모은다. 패턴이 `maxRoutes`개를 넘으면 나머지는 "other"로 모은다.
+// - 엔티티를 `entitiesLoadedThreshold`개보다 많이 불러온 요청은 경고 로그를 남기고 최근 `recentAlarms`개를 들고 있는다.
+@Slf4j
+public class SessionMetricsCollector {
+
+    static final String OTHER_ROUTE = "other";
+
+    private final Duration window;
+    private final int buckets;
+    private final Clock clock;
+    private final long entitiesLoadedThreshold;
+    private final int maxRoutes;
+    private final int recentAlarms;
+
+    private final SessionMetricsWindow all;
+    private final ConcurrentMap<String, SessionMetricsWindow> routes = new ConcurrentHashMap<>();
+    private final Deque<Map<String, Object>> alarms = new ArrayDeque<>();
+    private final LongAdder alarmCount = new LongAdder();
+
+    public SessionMetricsCollector(Duration window, int buckets, Clock clock,
+                                   long entitiesLoadedThreshold, int maxRoutes, int recentAlarms) {
+        this.window = window;
+        this.buckets = buckets;
+        this.clock = clock;
+        this.entitiesLoadedThreshold = entitiesLoadedThreshold;
+        this.maxRoutes = maxRoutes;
+        this.recentAlarms = recentAlarms;
+        this.all = new SessionMetricsWindow(window, buckets, clock);
+    }
+
+    // `route`: 요청 패턴 (`GET /members/{id}`), `request`: 실제 요청 (`GET /members/1`)
+    public void record(String route, String request, SessionMetrics metrics, long elapsedMicros) {
+        all.record(metrics, elapsedMicros);
+        windowFor(route).record(metrics, elapsedMicros);
+
+        if (metrics.getEntitiesLoaded() > entitiesLoadedThreshold) {
+            alarm(request, metrics, elapsedMicros);
+        }
+    }
+
+    private SessionMetricsWindow windowFor(String route) {
+        SessionMetricsWindow window = routes.get(route);
+        if (window != null) {
+            return window;
+        }
+        // 크기를 넘는 순간 몇 개 더 들어갈 수는 있다. (정확히 막을 필요는 없다.)
+        String key = routes.size() < maxRoutes ? route : OTHER_ROUTE;
+        return routes.computeIfAbsent(key, ignored -> new SessionMetricsWindow(this.window, buckets, clock));
+    }
+
+    private void alarm(String request, SessionMetrics metrics, long elapsedMicros) {
+        alarmCount.increment();
+        log.warn("요청 하나에서 엔티티를 {}개 불러왔습니다. (기준 {}개) {} - {}",
+                metrics.getEntitiesLoaded(), entitiesLoadedThreshold, request, metrics);
+
+        Map<String, Object> alarm = new LinkedHashMap<>();
+        alarm.put("time", Instant.now(clock).toString());
+        alarm.put("request", request);
+        alarm.put("elapsedMicros", elapsedMicros);
+        alarm.put("metrics", metrics);
+        synchronized (alarms) {
+            alarms.addFirst(alarm);
+            while (alarms.size() > recentAlarms) {
+                alarms.removeLast();
+            }
+        }
+    }
+
+    public Map<String, Object> summary() {
+        Map<String, Object> routeSummaries = new TreeMap<>();
+        routes.forEach((route, window) -> routeSummaries.put(route, window.summary()));
+
+        List<Map<String, Object>> recent;
+        synchronized (alarms) {
+            recent = new ArrayList<>(alarms);
+        }
+        Map<String, Object> alarmSummary = new LinkedHashMap<>();
+        alarmSummary.put("entitiesLoadedThreshold", entitiesLoadedThreshold);
+        alarmSummary.put("count", alarmCount.sum());
+        alarmSummary.put("recent", recent);
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("all", all.summary());
+        result.put("routes", routeSummaries);
+        result.put("alarms", alarmSummary);
+        return result;
+    }
+
+    public long getAlarmCount() {
+        return alarmCount.sum();
+    }
+}
@@ -0,0 +1,25 @@
+package study.datajpa.metrics;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+
+import java.util.Map;
+
+// 요청별 하이버네이트 세션 지표를 최근 구간으로 보여주는 액추에이터 엔드포인트
+// http://localhost:8080/actuator/sessions
+// 요청당 불러온 엔티티/컬렉션, 플러시, 변경 감지 시간, 쿼리 플랜 캐시, 2차 캐시 히트와
+// 엔티티를 너무 많이 불러온 최근 요청들
+@Endpoint(id = "sessions")
+public class SessionMetricsEndpoint {
+
+    private final SessionMetricsCollector collector;
+
+    public SessionMetricsEndpoint(SessionMetricsCollector collector) {
+        this.collector = collector;
+    }
+
+    @ReadOperation
+    public Map<String, Object> sessions() {
+        return collector.summary();
+    }
+}
@@ -0,0 +1,152 @@
+package study.datajpa.metrics;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+
+// 최근 `window` 동안의 요청별 세션 지표 합계/최대값
+// `window`를 `buckets`개 칸으로 나눈 링 버퍼다. 칸 하나는 `window / buckets` 동안의 요청을 모으고,
+// 시간이 한 바퀴 돌아서 다시 쓰게 되면 비운다. 그래서 실제로는 최근 `window - 한 칸` ~ `window` 사이가 보인다.
+// 요청이 끝날 때 한 번, 칸 하나만 잠그니까 요청 스레드끼리 거의 부딪히지 않는다.
+public class SessionMetricsWindow {
+
+    // 보여줄 이름 -> 값 (순서대로 칸 배열의 인덱스가 된다.)
+    private static final Map<String, ToLongFunction<SessionMetrics>> METRICS = new LinkedHashMap<>();
+
+    static {
+        METRICS.put("statements", SessionMetrics::getStatements);
+        METRICS.put("entitiesLoaded", SessionMetrics::getEntitiesLoaded);
+        METRICS.put("entitiesFetched", SessionMetrics::getEntitiesFetched);
+        METRICS.put("collectionsLoaded", SessionMetrics::getCollectionsLoaded);
+        METRICS.put("collectionsFetched", SessionMetrics::getCollectionsFetched);
+        METRICS.put("flushes", SessionMetrics::getFlushes);
+        METRICS.put("dirtyChecks", SessionMetrics::getDirtyChecks);
+        METRICS.put("dirtyCheckMicros", metrics -> metrics.getDirtyCheckNanos() / 1_000);
+        METRICS.put("queryPlanCacheHits", SessionMetrics::getQueryPlanCacheHits);
+        METRICS.put("queryPlanCacheMisses", SessionMetrics::getQueryPlanCacheMisses);
+        METRICS.put("secondLevelCacheHits", SessionMetrics::getSecondLevelCacheHits);
+        METRICS.put("secondLevelCacheMisses", SessionMetrics::getSecondLevelCacheMisses);
+        METRICS.put("maxManagedEntities", SessionMetrics::getMaxManagedEntities);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static final ToLongFunction<SessionMetrics>[] EXTRACTORS = METRICS.values().toArray(new ToLongFunction[0]);
+    private static final String[] NAMES = METRICS.keySet().toArray(new String[0]);
+
+    private final Clock clock;
+    private final long bucketMillis;
+    private final Bucket[] buckets;
+
+    public SessionMetricsWindow(Duration window, int buckets, Clock clock) {
+        if (buckets < 1 || window.toMillis() < buckets) {
+            throw new IllegalArgumentException("window=" + window + ", buckets=" + buckets);
+        }
+        this.clock = clock;
+        this.bucketMillis = window.toMillis() / buckets;
+        this.buckets = new Bucket[buckets];
+        for (int i = 0; i < buckets; i++) {
+            this.buckets[i] = new Bucket();
+        }
+    }
+
+    public void record(SessionMetrics metrics, long elapsedMicros) {
+        long slot = clock.millis() / bucketMillis;
+        Bucket bucket = buckets[(int) (slot % buckets.length)];
+        synchronized (bucket) {
+            if (bucket.slot != slot) {
+                bucket.clear(slot);
+            }
+            bucket.requests++;
+            bucket.elapsedMicros.add(elapsedMicros);
+            for (int i = 0; i < EXTRACTORS.length; i++) {
+                bucket.metrics[i].add(EXTRACTORS[i].applyAsLong(metrics));
+            }
+        }
+    }
+
+    // 요청 수, 지표별 {total, mean, max}
+    public Map<String, Object> summary() {
+        long currentSlot = clock.millis() / bucketMillis;
+        long requests = 0;
+        Aggregate elapsed = new Aggregate();
+        Aggregate[] totals = new Aggregate[NAMES.length];
+        for (int i = 0; i < totals.length; i++) {
+            totals[i] = new Aggregate();
+        }
+
+        for (Bucket bucket : buckets) {
+            synchronized (bucket) {
+                // 비었거나, 한 바퀴 전에 쓰고 그 뒤로 요청이 없었던 칸은 빼고 센다.
+                if (bucket.requests == 0 || currentSlot - bucket.slot >= buckets.length) {
+                    continue;
+                }
+                requests += bucket.requests;
+                elapsed.merge(bucket.elapsedMicros);
+                for (int i = 0; i < totals.length; i++) {
+                    totals[i].merge(bucket.metrics[i]);
+                }
+            }
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("window", Duration.ofMillis(bucketMillis * buckets.length).toString());
+        result.put("requests", requests);
+        result.put("elapsedMicros", elapsed.toMap(requests));
+        for (int i = 0; i < NAMES.length; i++) {
+            result.put(NAMES[i], totals[i].toMap(requests));
+        }
+        return result;
+    }
+
+    private static final class Bucket {
+        private long slot = -1;
+        private long requests;
+        private final Aggregate elapsedMicros = new Aggregate();
+        private final Aggregate[] metrics = new Aggregate[NAMES.length];
+
+        Bucket() {
+            for (int i = 0; i < metrics.length; i++) {
+                metrics[i] = new Aggregate();
+            }
+        }
+
+        void clear(long slot) {
+            this.slot = slot;
+            this.requests = 0;
+            elapsedMicros.clear();
+            for (Aggregate metric : metrics) {
+                metric.clear();
+            }
+        }
+    }
+
+    private static final class Aggregate {
+        private long total;
+        private long max;
+
+        void add(long value) {
+            total += value;
+            max = Math.max(max, value);
+        }
+
+        void merge(Aggregate other) {
+            total += other.total;
+            max = Math.max(max, other.max);
+        }
+
+        void clear() {
+            total = 0;
+            max = 0;
+        }
+
+        Map<String, Object> toMap(long requests) {
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("total", total);
+            result.put("mean", requests == 0 ? 0.0 : (double) total / requests);
+            result.put("max", max);
+            return result;
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package study.datajpa.perf;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.config.PerfDataProperties;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// 부하 테스트용 데이터 (`perf` 프로필)
+// 천만 건 단위를 JPA 로 넣으면 영속성 컨텍스트, 이벤트 리스너(감사 로그, username 인덱스)까지 다 거쳐서 너무 느리다.
+// 그래서 `JdbcTemplate` 배치 insert 로 직접 넣고, id 도 시퀀스 대신 1부터 직접 매긴다.
+// - `chunkSize`행씩 나눠서 `parallelism`개 스레드가 트랜잭션 하나씩으로 넣는다.
+// - 청크마다 `randomSeed + 청크 번호`로 난수를 만들어서 스레드 수와 상관없이 같은 데이터가 나온다.
+// - 다 넣으면 시퀀스를 넣은 id 다음으로 옮겨서 앱에서 `save()`해도 id 가 겹치지 않게 한다.
+//
+// `ApplicationRunner`라서 `ApplicationReadyEvent`보다 먼저 끝난다. (username 인덱스는 넣은 데이터로 만들어진다.)
+// 테이블이 비어 있을 때만 넣는다. (파일 DB 를 다시 띄울 때는 건너뛴다.)
+@Slf4j
+public class PerfDataGenerator implements ApplicationRunner {
+
+    // `Member`, `Team`의 `@SequenceGenerator(allocationSize = 50)`
+    static final int SEQUENCE_ALLOCATION_SIZE = 50;
+
+    private static final String INSERT_TEAM =
+            "insert into team (team_id, name, version) values (?, ?, 0)";
+    private static final String INSERT_MEMBER =
+            "insert into member (member_id, username, age, team_id, version, created_date, updated_date, created_by, updated_by)"
+                    + " values (?, ?, ?, ?, 0, ?, ?, 'perf', 'perf')";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final PerfDataProperties properties;
+
+    public PerfDataGenerator(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                             PerfDataProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.properties = properties;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        if (properties.getMembers() == 0 && properties.getTeams() == 0) {
+            return;
+        }
+        Long existing = jdbcTemplate.queryForObject("select count(*) from member", Long.class);
+        if (existing != null && existing > 0) {
+            log.info("회원이 이미 {}명 있어서 부하 테스트 데이터를 만들지 않습니다.", existing);
+            return;
+        }
+
+        long start = System.nanoTime();
+        ExecutorService executor = Executors.newFixedThreadPool(properties.getParallelism());
+        try {
+            insertInChunks(executor, properties.getTeams(), this::insertTeams);
+            insertInChunks(executor, properties.getMembers(), this::insertMembers);
+        } finally {
+            executor.shutdownNow();
+        }
+        restartSequence("team_seq", properties.getTeams());
+        restartSequence("member_seq", properties.getMembers());
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+        log.info("부하 테스트 데이터를 만들었습니다. 팀 {}개, 회원 {}명, {}초 ({}행/초)",
+                properties.getTeams(), properties.getMembers(), String.format("%.1f", seconds),
+                Math.round((properties.getTeams() + properties.getMembers()) / seconds));
+    }
+
+    private void insertInChunks(ExecutorService executor, long rows, ChunkWriter writer)
+            throws InterruptedException, ExecutionException {
+        int chunkSize = properties.getChunkSize();
+        List<Future<?>> futures = new ArrayList<>();
+        for (long from = 1, chunk = 0; from <= rows; from += chunkSize, chunk++) {
+            long firstId = from;
+            long lastId = Math.min(from + chunkSize - 1, rows);
+            long chunkIndex = chunk;
+            futures.add(executor.submit(() -> transactionTemplate.executeWithoutResult(
+                    status -> writer.write(firstId, lastId, new SplittableRandom(properties.getRandomSeed() + chunkIndex)))));
+        }
+        // 하나라도 실패하면 바로 던진다. (나머지는 `shutdownNow()`로 중단)
+        for (Future<?> future : futures) {
+            future.get();
+        }
+    }
+
+    private void insertTeams(long firstId, long lastId, SplittableRandom random) {
+        batchInsert(INSERT_TEAM, firstId, lastId, (ps, id) -> {
+            ps.setLong(1, id);
+            ps.setString(2, "team" + id);
+        });
+    }
+
+    private void insertMembers(long firstId, long lastId, SplittableRandom random) {
+        ZipfDistribution teams = properties.getTeams() == 0 ? null
+                : new ZipfDistribution(properties.getTeams(), properties.getTeamSkew());
+        ZipfDistribution usernames = new ZipfDistribution(properties.getUsernameCardinality(), properties.getUsernameSkew());
+        ZipfDistribution ages = new ZipfDistribution(properties.getMaxAge() - properties.getMinAge() + 1, properties.getAgeSkew());
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+
+        batchInsert(INSERT_MEMBER, firstId, lastId, (ps, id) -> {
+            ps.setLong(1, id);
+            // 순위 그대로 쓰면 "member1"이 가장 흔한 이름이 된다.
+            ps.setString(2, "member" + usernames.sample(random));
+            ps.setInt(3, properties.getMinAge() + (int) ages.sample(random) - 1);
+            if (teams == null || random.nextDouble() < properties.getNoTeamRatio()) {
+                ps.setNull(4, Types.BIGINT);
+            } else {
+                ps.setLong(4, teams.sample(random));
+            }
+            ps.setTimestamp(5, now);
+            ps.setTimestamp(6, now);
+        });
+    }
+
+    private void batchInsert(String sql, long firstId, long lastId, RowSetter setter) {
+        int batchSize = properties.getBatchSize();
+        jdbcTemplate.execute(sql, (PreparedStatement ps) -> {
+            int pending = 0;
+            for (long id = firstId; id <= lastId; id++) {
+                setter.set(ps, id);
+                ps.addBatch();
+                if (++pending == batchSize) {
+                    ps.executeBatch();
+                    pending = 0;
+                }
+            }
+            if (pending > 0) {
+                ps.executeBatch();
+            }
+            return null;
+        });
+    }
+
+    // 하이버네이트 pooled 옵티마이저는 시퀀스 값 v 를 받으면 (v - 49) ~ v 를 쓴다.
+    private void restartSequence(String sequence, long maxId) {
+        jdbcTemplate.execute("alter sequence " + sequence + " restart with " + (maxId + SEQUENCE_ALLOCATION_SIZE));
+    }
+
+    @FunctionalInterface
+    private interface ChunkWriter {
+        void write(long firstId, long lastId, SplittableRandom random);
+    }
+
+    @FunctionalInterface
+    private interface RowSetter {
+        void set(PreparedStatement ps, long id) throws SQLException;
+    }
+}
@@ -0,0 +1,89 @@
+package study.datajpa.perf;
+
+import java.util.SplittableRandom;
+
+// 1 ~ n 중에서 k 가 뽑힐 확률이 1 / k^s 에 비례하는 분포 (지프 분포)
+// s = 0 이면 균등분포, 클수록 앞쪽(1, 2, 3 ...)에 몰린다. (s = 1 이면 1등이 2등의 두 배)
+// 실제 데이터는 흔한 이름, 큰 팀, 인기 있는 회원에 몰려 있어서 균등분포로 만든 데이터로는 인덱스, 캐시 효과가 다르게 나온다.
+//
+// n 이 천만이어도 누적분포 표를 만들지 않도록 rejection-inversion 방식(Hörmann, Derflinger)으로 뽑는다.
+// 메모리는 상수, 한 번 뽑는데 평균 1.x 번 시도한다.
+public final class ZipfDistribution {
+
+    private final long n;
+    private final double exponent;
+    private final double hIntegralX1;
+    private final double hIntegralN;
+    private final double threshold;
+
+    public ZipfDistribution(long n, double exponent) {
+        if (n < 1 || exponent < 0) {
+            throw new IllegalArgumentException("n=" + n + ", exponent=" + exponent);
+        }
+        this.n = n;
+        this.exponent = exponent;
+        this.hIntegralX1 = hIntegral(1.5) - 1;
+        this.hIntegralN = hIntegral(n + 0.5);
+        this.threshold = 2 - hIntegralInverse(hIntegral(2.5) - h(2));
+    }
+
+    // 1 ~ n
+    public long sample(SplittableRandom random) {
+        while (true) {
+            double u = hIntegralN + random.nextDouble() * (hIntegralX1 - hIntegralN);
+            double x = hIntegralInverse(u);
+            long k = (long) (x + 0.5);
+            if (k < 1) {
+                k = 1;
+            } else if (k > n) {
+                k = n;
+            }
+            if (k - x <= threshold || u >= hIntegral(k + 0.5) - h(k)) {
+                return k;
+            }
+        }
+    }
+
+    public long getN() {
+        return n;
+    }
+
+    public double getExponent() {
+        return exponent;
+    }
+
+    // h(x) = 1 / x^s 의 적분
+    private double hIntegral(double x) {
+        double logX = Math.log(x);
+        return expm1OverX((1 - exponent) * logX) * logX;
+    }
+
+    private double h(double x) {
+        return Math.exp(-exponent * Math.log(x));
+    }
+
+    private double hIntegralInverse(double x) {
+        double t = x * (1 - exponent);
+        if (t < -1) {
+            // 반올림 오차로 -1 보다 작아지는 것 방지
+            t = -1;
+        }
+        return Math.exp(log1pOverX(t) * x);
+    }
+
+    // log(1 + x) / x - x 가 0 근처일 때는 테일러 전개
+    private static double log1pOverX(double x) {
+        if (Math.abs(x) > 1e-8) {
+            return Math.log1p(x) / x;
+        }
+        return 1 - x * (0.5 - x * (1.0 / 3 - 0.25 * x));
+    }
+
+    // (e^x - 1) / x - x 가 0 근처일 때는 테일러 전개
+    private static double expm1OverX(double x) {
+        if (Math.abs(x) > 1e-8) {
+            return Math.expm1(x) / x;
+        }
+        return 1 + x * 0.5 * (1 + x * (1.0 / 3) * (1 + 0.25 * x));
+    }
+}
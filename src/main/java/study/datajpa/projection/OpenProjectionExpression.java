@@ -0,0 +1,180 @@
+package study.datajpa.projection;
+
+import org.springframework.expression.Expression;
+import org.springframework.expression.ParserContext;
+import org.springframework.expression.spel.SpelCompilerMode;
+import org.springframework.expression.spel.SpelNode;
+import org.springframework.expression.spel.SpelParserConfiguration;
+import org.springframework.expression.spel.ast.CompoundExpression;
+import org.springframework.expression.spel.ast.IntLiteral;
+import org.springframework.expression.spel.ast.Literal;
+import org.springframework.expression.spel.ast.LongLiteral;
+import org.springframework.expression.spel.ast.OpPlus;
+import org.springframework.expression.spel.ast.PropertyOrFieldReference;
+import org.springframework.expression.spel.ast.StringLiteral;
+import org.springframework.expression.spel.standard.SpelExpression;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.util.ClassUtils;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+// 열린 프로젝션(`@Value("#{target.username + ' ' + target.age}")`)의 표현식
+//
+// 스프링 데이터는 열린 프로젝션이면 엔티티 전체를 조회하고, getter 를 부를 때마다 SpEL 을 해석(interpret)한다.
+// 여기서는 앱이 뜰 때 표현식을 한 번 분석해서
+// 1. 문자열 이어붙이기뿐이면 JPQL 식으로 바꿔서 DB 가 계산하게 하고 (`concat(coalesce(r.username, 'null'), ' ', cast(r.age as string))`)
+// 2. 그게 안 되면 참조하는 컬럼만 조회해서 컴파일된 SpEL(`SpelCompilerMode.MIXED`)로 row 마다 한 번 계산한다.
+//
+// `target.<속성>`, 문자열/정수 리터럴, `+`만 이해한다. 그 밖의 것(`@bean`, 메소드 호출, `target.team.name` 등)이 있으면
+// 분석하지 않고(`null`) 원래처럼 엔티티를 조회한다.
+final class OpenProjectionExpression {
+
+    private static final SpelExpressionParser ANALYZER = new SpelExpressionParser();
+
+    private final String template;
+    private final SpelNode ast;
+    // 참조하는 속성 이름 (표현식에 나온 순서)
+    private final Set<String> properties;
+
+    private OpenProjectionExpression(String template, SpelNode ast, Set<String> properties) {
+        this.template = template;
+        this.ast = ast;
+        this.properties = properties;
+    }
+
+    static OpenProjectionExpression parse(String template) {
+        Expression expression = ANALYZER.parseExpression(template, ParserContext.TEMPLATE_EXPRESSION);
+        // `"이름: #{target.username}"`처럼 템플릿 바깥에 글자가 있으면 `CompositeStringExpression`이 된다.
+        if (!(expression instanceof SpelExpression)) {
+            return null;
+        }
+        SpelNode ast = ((SpelExpression) expression).getAST();
+        Set<String> properties = new LinkedHashSet<>();
+        return collect(ast, properties) ? new OpenProjectionExpression(template, ast, properties) : null;
+    }
+
+    private static boolean collect(SpelNode node, Set<String> properties) {
+        String property = targetProperty(node);
+        if (property != null) {
+            properties.add(property);
+            return true;
+        }
+        if (node instanceof StringLiteral || node instanceof IntLiteral || node instanceof LongLiteral) {
+            return true;
+        }
+        if (node instanceof OpPlus && node.getChildCount() == 2) {
+            return collect(node.getChild(0), properties) && collect(node.getChild(1), properties);
+        }
+        return false;
+    }
+
+    // `target.username` -> "username"
+    private static String targetProperty(SpelNode node) {
+        if (node instanceof CompoundExpression && node.getChildCount() == 2
+                && node.getChild(0) instanceof PropertyOrFieldReference
+                && node.getChild(1) instanceof PropertyOrFieldReference
+                && "target".equals(((PropertyOrFieldReference) node.getChild(0)).getName())) {
+            return ((PropertyOrFieldReference) node.getChild(1)).getName();
+        }
+        return null;
+    }
+
+    Set<String> getProperties() {
+        return properties;
+    }
+
+    // 결과가 문자열인 이어붙이기면 JPQL 식, 아니면 `null`
+    // `column`: 속성 이름 -> 컬럼 (`r.username`), `typeOf`: 속성 이름 -> 자바 타입, `nullable`: `null`일 수 있는 속성인지
+    String toJpql(Function<String, String> column, Function<String, Class<?>> typeOf, Function<String, Boolean> nullable) {
+        Term term = term(ast, column, typeOf, nullable);
+        return term != null && term.string ? term.jpql : null;
+    }
+
+    private static Term term(SpelNode node, Function<String, String> column,
+                             Function<String, Class<?>> typeOf, Function<String, Boolean> nullable) {
+        String property = targetProperty(node);
+        if (property != null) {
+            Class<?> type = ClassUtils.resolvePrimitiveIfNecessary(typeOf.apply(property));
+            if (type == String.class) {
+                return Term.string(column.apply(property), nullable.apply(property));
+            }
+            if (type == Integer.class || type == Long.class || type == Short.class) {
+                return Term.integral(column.apply(property), nullable.apply(property));
+            }
+            return null;
+        }
+        if (node instanceof StringLiteral) {
+            String value = (String) ((StringLiteral) node).getLiteralValue().getValue();
+            return Term.string("'" + value.replace("'", "''") + "'", false);
+        }
+        if (node instanceof IntLiteral || node instanceof LongLiteral) {
+            return Term.integral(String.valueOf(((Literal) node).getLiteralValue().getValue()), false);
+        }
+        if (node instanceof OpPlus && node.getChildCount() == 2) {
+            Term left = term(node.getChild(0), column, typeOf, nullable);
+            Term right = term(node.getChild(1), column, typeOf, nullable);
+            // 숫자끼리 더하는 것은 오버플로, `null` 처리가 SQL 과 달라서 내리지 않는다.
+            if (left == null || right == null || (!left.string && !right.string)) {
+                return null;
+            }
+            List<String> parts = new ArrayList<>();
+            left.appendTo(parts);
+            right.appendTo(parts);
+            return Term.concat(parts);
+        }
+        return null;
+    }
+
+    // 컴파일 모드로 파싱한다.
+    // 컴파일된 클래스는 `classLoader`의 자식 클래스 로더에 올라가기 때문에 `target` 클래스가 보이는 로더를 넘겨야 한다.
+    Expression compile(ClassLoader classLoader) {
+        SpelExpressionParser parser = new SpelExpressionParser(new SpelParserConfiguration(SpelCompilerMode.MIXED, classLoader));
+        return parser.parseExpression(template, ParserContext.TEMPLATE_EXPRESSION);
+    }
+
+    @Override
+    public String toString() {
+        return template;
+    }
+
+    private static final class Term {
+        final String jpql;
+        final boolean string;
+        final boolean nullable;
+        // `concat(a, b)` 안의 인자들 - 중첩된 `concat`을 하나로 펼치기 위해
+        final List<String> parts;
+
+        private Term(String jpql, boolean string, boolean nullable, List<String> parts) {
+            this.jpql = jpql;
+            this.string = string;
+            this.nullable = nullable;
+            this.parts = parts;
+        }
+
+        static Term string(String jpql, boolean nullable) {
+            return new Term(jpql, true, nullable, null);
+        }
+
+        static Term integral(String jpql, boolean nullable) {
+            return new Term(jpql, false, nullable, null);
+        }
+
+        static Term concat(List<String> parts) {
+            return new Term("concat(" + String.join(", ", parts) + ")", true, false, parts);
+        }
+
+        // 이어붙일 때 SpEL 은 `null`을 "null"로 바꾸고, SQL 은 전체가 `null`이 되니까 맞춰준다.
+        void appendTo(List<String> target) {
+            if (parts != null) {
+                target.addAll(parts);
+                return;
+            }
+            String text = string ? jpql : "cast(" + jpql + " as string)";
+            target.add(nullable ? "coalesce(" + text + ", 'null')" : text);
+        }
+    }
+}
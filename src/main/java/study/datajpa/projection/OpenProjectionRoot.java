@@ -0,0 +1,12 @@
+package study.datajpa.projection;
+
+// 열린 프로젝션 표현식의 루트 객체 - 스프링 데이터처럼 `target.username`으로 쓸 수 있게 한다.
+// SpEL 컴파일러는 `public` 클래스의 `public` 멤버만 바이트코드로 바꿀 수 있어서 필드를 열어둔다.
+public final class OpenProjectionRoot {
+
+    public final Object target;
+
+    OpenProjectionRoot(Object target) {
+        this.target = target;
+    }
+}
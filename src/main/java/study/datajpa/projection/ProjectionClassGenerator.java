@@ -0,0 +1,138 @@
+package study.datajpa.projection;
+
+import net.bytebuddy.ByteBuddy;
+import net.bytebuddy.description.modifier.Visibility;
+import net.bytebuddy.dynamic.DynamicType;
+import net.bytebuddy.dynamic.loading.ClassLoadingStrategy;
+import net.bytebuddy.implementation.EqualsMethod;
+import net.bytebuddy.implementation.FieldAccessor;
+import net.bytebuddy.implementation.HashCodeMethod;
+import net.bytebuddy.implementation.ToStringMethod;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static net.bytebuddy.matcher.ElementMatchers.is;
+import static net.bytebuddy.matcher.ElementMatchers.isEquals;
+import static net.bytebuddy.matcher.ElementMatchers.isHashCode;
+import static net.bytebuddy.matcher.ElementMatchers.isToString;
+
+// 프로젝션 인터페이스의 구현 클래스를 만든다.
+// 스프링 데이터의 프로젝션은 `Map`(`TupleBackedMap`)을 JDK 프록시로 감싸서 getter 마다 이름으로 찾는데,
+// 여기서는 getter 마다 필드를 하나씩 두고 그 필드를 바로 돌려주는 평범한 클래스를 만든다.
+//   public class NestedClosedProjections$Projection implements NestedClosedProjections {
+//       public String f0;
+//       public TeamInfo f1;
+//       public String getUsername() { return f0; }
+//       public TeamInfo getTeam() { return f1; }
+//   }
+final class ProjectionClassGenerator {
+
+    private static final MethodType CONSTRUCTOR_TYPE = MethodType.methodType(Object.class);
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+    private static final AtomicInteger TARGET_SEQUENCE = new AtomicInteger();
+
+    private ProjectionClassGenerator() {
+    }
+
+    static Instantiator generate(Class<?> projectionType, List<Method> getters) {
+        DynamicType.Builder<?> builder = new ByteBuddy()
+                .subclass(Object.class)
+                .implement(projectionType)
+                .name(projectionType.getName() + "$Projection");
+
+        for (int i = 0; i < getters.size(); i++) {
+            builder = builder.defineField("f" + i, getters.get(i).getReturnType(), Visibility.PUBLIC)
+                    .method(is(getters.get(i))).intercept(FieldAccessor.ofField("f" + i));
+        }
+
+        Class<?> generated = builder
+                .method(isToString()).intercept(ToStringMethod.prefixedBySimpleClassName())
+                .method(isEquals()).intercept(EqualsMethod.isolated())
+                .method(isHashCode()).intercept(HashCodeMethod.usingDefaultOffset())
+                .make()
+                .load(projectionType.getClassLoader(), ClassLoadingStrategy.Default.WRAPPER)
+                .getLoaded();
+
+        List<String> fields = new ArrayList<>(getters.size());
+        List<Class<?>> types = new ArrayList<>(getters.size());
+        for (int i = 0; i < getters.size(); i++) {
+            fields.add("f" + i);
+            types.add(getters.get(i).getReturnType());
+        }
+        return instantiator(generated, fields, types);
+    }
+
+    // 열린 프로젝션의 SpEL 에서 `target`으로 쓸 클래스를 만든다.
+    // 표현식이 참조하는 속성만 같은 이름의 `public` 필드로 둔다. (`target.username` -> 필드 `username`)
+    // `public` 필드라서 SpEL 컴파일러가 리플렉션 없이 바로 읽는 바이트코드를 만들 수 있다.
+    static Instantiator generateTarget(Class<?> entityType, List<String> properties, List<Class<?>> types) {
+        DynamicType.Builder<?> builder = new ByteBuddy()
+                .subclass(Object.class)
+                .name(entityType.getName() + "$ProjectionTarget$" + TARGET_SEQUENCE.incrementAndGet());
+        for (int i = 0; i < properties.size(); i++) {
+            builder = builder.defineField(properties.get(i), types.get(i), Visibility.PUBLIC);
+        }
+
+        Class<?> generated = builder
+                .method(isToString()).intercept(ToStringMethod.prefixedBySimpleClassName())
+                .make()
+                .load(entityType.getClassLoader(), ClassLoadingStrategy.Default.WRAPPER)
+                .getLoaded();
+        return instantiator(generated, properties, types);
+    }
+
+    private static Instantiator instantiator(Class<?> generated, List<String> fields, List<Class<?>> types) {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+            MethodHandle constructor = lookup.findConstructor(generated, MethodType.methodType(void.class))
+                    .asType(CONSTRUCTOR_TYPE);
+            MethodHandle[] setters = new MethodHandle[fields.size()];
+            for (int i = 0; i < setters.length; i++) {
+                setters[i] = lookup.findSetter(generated, fields.get(i), types.get(i)).asType(SETTER_TYPE);
+            }
+            return new Instantiator(generated, constructor, setters);
+        } catch (NoSuchMethodException | NoSuchFieldException | IllegalAccessException e) {
+            throw new IllegalStateException("프로젝션 클래스에 접근할 수 없습니다. " + generated, e);
+        }
+    }
+
+    // 만든 클래스의 객체를 만들고 getter 순서대로 값을 넣는다.
+    static final class Instantiator {
+        private final Class<?> type;
+        private final MethodHandle constructor;
+        private final MethodHandle[] setters;
+
+        Instantiator(Class<?> type, MethodHandle constructor, MethodHandle[] setters) {
+            this.type = type;
+            this.constructor = constructor;
+            this.setters = setters;
+        }
+
+        Class<?> getType() {
+            return type;
+        }
+
+        Object newInstance(Object[] values) {
+            try {
+                Object instance = (Object) constructor.invokeExact();
+                for (int i = 0; i < setters.length; i++) {
+                    // `int` 같은 기본형 필드에 `null`이 오면 기본값(0)으로 둔다.
+                    if (values[i] != null) {
+                        setters[i].invokeExact(instance, values[i]);
+                    }
+                }
+                return instance;
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,429 @@
+package study.datajpa.projection;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.data.mapping.PreferredConstructor;
+import org.springframework.data.mapping.model.PreferredConstructorDiscoverer;
+import org.springframework.data.projection.ProjectionFactory;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+import org.springframework.expression.Expression;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+import study.datajpa.config.ProjectionProperties;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+import javax.persistence.metamodel.Attribute;
+import javax.persistence.metamodel.EntityType;
+import javax.persistence.metamodel.ManagedType;
+import javax.persistence.metamodel.Metamodel;
+import javax.persistence.metamodel.SingularAttribute;
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
+
+// `findProjectionsByUsername(String, Class<T>)` 같은 동적 프로젝션을 직접 처리한다.
+//
+// 스프링 데이터는 중첩된 닫힌 프로젝션(`NestedClosedProjections.getTeam()`)을 만나면
+// `select m.username, t from Member m left join m.team t`처럼 팀 엔티티 전체를 조회하고,
+// 각 row 를 `TupleBackedMap` + JDK 프록시로 감싼다. (row 하나에 Map, 프록시, 팀 엔티티)
+//
+// 여기서는 프로젝션 인터페이스를 메타모델과 맞춰보고 실제로 쓰는 컬럼만 조회한다.
+//   select r.username, j1.id, j1.name from Member r left join r.team j1 where r.username = :value
+// 결과는 `ProjectionClassGenerator`가 만든 클래스에 바로 담는다.
+//
+// `@Value`가 붙은 열린 프로젝션도 표현식을 분석해서 필요한 컬럼만 조회한다. (`OpenProjectionExpression`)
+// 분석이 안 되는 경우(이해할 수 없는 표현식, 컬렉션, 메타모델에 없는 getter 등)는
+// 원래처럼 엔티티를 조회해서 `ProjectionFactory`로 감싼다.
+@Slf4j
+@Component
+public class ProjectionEngine {
+
+    private static final String ROOT_ALIAS = "r";
+
+    private final EntityManager em;
+    private final ProjectionProperties properties;
+    private final ProjectionFactory projectionFactory = new SpelAwareProxyProjectionFactory();
+
+    // (엔티티, 프로젝션 타입) -> 조회 계획, 분석이 안 되는 타입은 `Optional.empty()`로 남겨서 다시 분석하지 않는다.
+    private final Map<Class<?>, Map<Class<?>, Optional<Plan>>> plans = new ConcurrentHashMap<>();
+
+    public ProjectionEngine(EntityManager em, ProjectionProperties properties) {
+        this.em = em;
+        this.properties = properties;
+    }
+
+    // 설정한 프로젝션을 미리 분석해서 조회 계획(JPQL, 생성한 클래스, 표현식)을 만들어둔다.
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        properties.getWarmUp().forEach((entityName, projectionTypes) -> {
+            Class<?> rootType = em.getMetamodel().getEntities().stream()
+                    .filter(entity -> entity.getName().equals(entityName))
+                    .map(EntityType::getJavaType)
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalStateException("app.projection.warm-up 에 없는 엔티티가 있습니다. " + entityName));
+            for (Class<?> projectionType : projectionTypes) {
+                boolean supported = supports(rootType, projectionType);
+                log.info("프로젝션 {} -> {}: {}", entityName, projectionType.getSimpleName(), supported ? "컬럼 조회" : "엔티티 조회");
+            }
+        });
+    }
+
+    // `select ... from <rootType> r where r.<attribute> = :value` 결과를 `projectionType`으로 돌려준다.
+    public <T> List<T> findBy(Class<?> rootType, String attribute, Object value, Class<T> projectionType) {
+        Optional<Plan> plan = planFor(rootType, projectionType);
+        if (plan.isPresent()) {
+            return plan.get().execute(em, attribute, value, projectionType);
+        }
+
+        List<?> entities = em.createQuery(selectEntity(rootType) + where(attribute), rootType)
+                .setParameter("value", value)
+                .getResultList();
+        List<T> result = new ArrayList<>(entities.size());
+        for (Object entity : entities) {
+            result.add(projectionType.isInstance(entity)
+                    ? projectionType.cast(entity)
+                    : projectionFactory.createProjection(projectionType, entity));
+        }
+        return result;
+    }
+
+    // 컬럼만 골라서 조회할 수 있는 프로젝션인지
+    public boolean supports(Class<?> rootType, Class<?> projectionType) {
+        return planFor(rootType, projectionType).isPresent();
+    }
+
+    Optional<Plan> planFor(Class<?> rootType, Class<?> projectionType) {
+        return plans.computeIfAbsent(rootType, key -> new ConcurrentHashMap<>())
+                .computeIfAbsent(projectionType, key -> analyze(rootType, projectionType));
+    }
+
+    private Optional<Plan> analyze(Class<?> rootType, Class<?> projectionType) {
+        Metamodel metamodel = em.getMetamodel();
+        ManagedType<?> root = metamodel.managedType(rootType);
+        try {
+            Plan plan;
+            if (projectionType.isInterface()) {
+                Selection selection = new Selection(selectEntity(rootType));
+                Node node = interfaceNode(metamodel, root, ROOT_ALIAS, projectionType, -1, selection, new HashSet<>());
+                plan = node == null ? null : new Plan(selection, node);
+            } else {
+                plan = dtoPlan(root, rootType, projectionType);
+            }
+
+            if (plan == null) {
+                log.debug("컬럼 단위로 조회할 수 없는 프로젝션이라 엔티티를 조회합니다. {} -> {}", rootType.getSimpleName(), projectionType.getName());
+                return Optional.empty();
+            }
+            log.debug("프로젝션 조회 계획 {} -> {}: {}", rootType.getSimpleName(), projectionType.getName(), plan.from);
+            return Optional.of(plan);
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            log.debug("프로젝션 분석 실패 {} -> {}", rootType.getSimpleName(), projectionType.getName(), e);
+            return Optional.empty();
+        }
+    }
+
+    // 인터페이스 프로젝션 - getter 마다 기본 타입 속성이면 컬럼 하나, 인터페이스를 돌려주는 to-one 연관관계면 left join 을 하나 추가한다.
+    private Node interfaceNode(Metamodel metamodel, ManagedType<?> managed, String alias, Class<?> projectionType,
+                               int nullCheckColumn, Selection selection, Set<Class<?>> path) {
+        // 생성한 클래스는 다른 클래스 로더에 올라가기 때문에 `public` 인터페이스만 구현할 수 있다.
+        // 자기 자신을 다시 참조하는 프로젝션(`Member.getTeam().getLeader()...`)도 끝이 없으니 지원하지 않는다.
+        if (!Modifier.isPublic(projectionType.getModifiers()) || !path.add(projectionType)) {
+            return null;
+        }
+
+        List<Method> getters = new ArrayList<>();
+        List<ValueReader> readers = new ArrayList<>();
+
+        for (Method method : projectionType.getMethods()) {
+            if (!Modifier.isAbstract(method.getModifiers())) {
+                continue;
+            }
+            if (method.getParameterCount() != 0) {
+                return null;
+            }
+
+            // 열린 프로젝션
+            Value value = AnnotatedElementUtils.findMergedAnnotation(method, Value.class);
+            if (value != null) {
+                ValueReader reader = openReader(managed, alias, method, value.value(), selection);
+                if (reader == null) {
+                    return null;
+                }
+                getters.add(method);
+                readers.add(reader);
+                continue;
+            }
+
+            PropertyDescriptor property = BeanUtils.findPropertyForMethod(method);
+            if (property == null) {
+                return null;
+            }
+
+            // 없는 속성이면 `IllegalArgumentException`
+            Attribute<?, ?> attribute = managed.getAttribute(property.getName());
+            Class<?> returnType = method.getReturnType();
+            String attributePath = alias + "." + attribute.getName();
+
+            switch (attribute.getPersistentAttributeType()) {
+                case BASIC:
+                    if (!ClassUtils.isAssignable(returnType, attribute.getJavaType())) {
+                        return null;
+                    }
+                    getters.add(method);
+                    readers.add(new ColumnReader(selection.add(attributePath)));
+                    break;
+                case MANY_TO_ONE:
+                case ONE_TO_ONE:
+                    if (!returnType.isInterface()) {
+                        return null;
+                    }
+                    EntityType<?> target = metamodel.entity(attribute.getJavaType());
+                    String joinAlias = selection.join(attributePath);
+                    // 연관된 엔티티가 없으면(`team_id is null`) 중첩 프로젝션도 `null`이어야 해서 조인한 쪽의 id 를 같이 조회한다.
+                    int idColumn = selection.add(joinAlias + "." + target.getId(target.getIdType().getJavaType()).getName());
+                    Node child = interfaceNode(metamodel, target, joinAlias, returnType, idColumn, selection, path);
+                    if (child == null) {
+                        return null;
+                    }
+                    getters.add(method);
+                    readers.add(child);
+                    break;
+                default:
+                    // 컬렉션, 임베디드 타입은 row 하나로 펼칠 수 없다.
+                    return null;
+            }
+        }
+
+        path.remove(projectionType);
+        return new Node(ProjectionClassGenerator.generate(projectionType, getters),
+                readers.toArray(new ValueReader[0]),
+                nullCheckColumn);
+    }
+
+    // `@Value` getter - 표현식을 JPQL 식으로 내릴 수 있으면 그 식을 컬럼 하나로 조회하고,
+    // 아니면 참조하는 컬럼만 조회해서 컴파일된 SpEL 로 계산한다.
+    private ValueReader openReader(ManagedType<?> managed, String alias, Method method, String template, Selection selection) {
+        OpenProjectionExpression expression = OpenProjectionExpression.parse(template);
+        if (expression == null) {
+            return null;
+        }
+
+        List<String> properties = new ArrayList<>(expression.getProperties());
+        List<Class<?>> types = new ArrayList<>(properties.size());
+        for (String property : properties) {
+            Attribute<?, ?> attribute = managed.getAttribute(property);
+            if (attribute.getPersistentAttributeType() != Attribute.PersistentAttributeType.BASIC) {
+                return null;
+            }
+            types.add(attribute.getJavaType());
+        }
+
+        if (method.getReturnType() == String.class) {
+            String jpql = expression.toJpql(
+                    property -> alias + "." + property,
+                    property -> managed.getAttribute(property).getJavaType(),
+                    property -> isNullable(managed.getAttribute(property)));
+            if (jpql != null) {
+                log.debug("열린 프로젝션 {}.{} -> {}", method.getDeclaringClass().getSimpleName(), method.getName(), jpql);
+                return new ColumnReader(selection.add(jpql));
+            }
+        }
+
+        int[] columns = new int[properties.size()];
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = selection.add(alias + "." + properties.get(i));
+        }
+        ProjectionClassGenerator.Instantiator target = ProjectionClassGenerator.generateTarget(managed.getJavaType(), properties, types);
+        log.debug("열린 프로젝션 {}.{} -> SpEL 컴파일 {}", method.getDeclaringClass().getSimpleName(), method.getName(), expression);
+        return new ExpressionReader(target, columns, expression.compile(target.getType().getClassLoader()), method.getReturnType());
+    }
+
+    private static boolean isNullable(Attribute<?, ?> attribute) {
+        return attribute instanceof SingularAttribute
+                && ((SingularAttribute<?, ?>) attribute).isOptional()
+                && !attribute.getJavaType().isPrimitive();
+    }
+
+    // DTO 프로젝션 - 생성자 파라미터 이름으로 컬럼을 찾아서 `select new ...` 로 조회한다. (스프링 데이터와 같은 방식)
+    private Plan dtoPlan(ManagedType<?> root, Class<?> rootType, Class<?> projectionType) {
+        if (projectionType.isAssignableFrom(rootType)) {
+            return null;
+        }
+        PreferredConstructor<?, ?> constructor = PreferredConstructorDiscoverer.discover(projectionType);
+        if (constructor == null || !constructor.hasParameters()) {
+            return null;
+        }
+
+        StringJoiner arguments = new StringJoiner(", ", "select new " + projectionType.getName() + "(", ")");
+        for (PreferredConstructor.Parameter<Object, ?> parameter : constructor.getParameters()) {
+            Attribute<?, ?> attribute = root.getAttribute(parameter.getName());
+            if (attribute.getPersistentAttributeType() != Attribute.PersistentAttributeType.BASIC
+                    || !ClassUtils.isAssignable(parameter.getRawType(), attribute.getJavaType())) {
+                return null;
+            }
+            arguments.add(ROOT_ALIAS + "." + attribute.getName());
+        }
+        return new Plan(arguments + " from " + rootType.getSimpleName() + " " + ROOT_ALIAS);
+    }
+
+    private static String selectEntity(Class<?> rootType) {
+        return "select " + ROOT_ALIAS + " from " + rootType.getSimpleName() + " " + ROOT_ALIAS;
+    }
+
+    private static String where(String attribute) {
+        return " where " + ROOT_ALIAS + "." + attribute + " = :value";
+    }
+
+    // 조회할 컬럼과 조인을 모은다.
+    private static final class Selection {
+        private final StringJoiner columns = new StringJoiner(", ", "select ", "");
+        private final StringBuilder joins = new StringBuilder();
+        private final String from;
+        private int columnCount;
+        private int joinCount;
+
+        Selection(String selectEntity) {
+            // "select r from Member r" -> " from Member r"
+            this.from = selectEntity.substring(selectEntity.indexOf(" from "));
+        }
+
+        int add(String path) {
+            columns.add(path);
+            return columnCount++;
+        }
+
+        String join(String path) {
+            String alias = "j" + (++joinCount);
+            joins.append(" left join ").append(path).append(' ').append(alias);
+            return alias;
+        }
+
+        String jpql() {
+            return columns + from + joins;
+        }
+    }
+
+    // row(`Object[]`)에서 getter 하나의 값을 꺼낸다.
+    private interface ValueReader {
+        Object read(Object[] row);
+    }
+
+    private static final class ColumnReader implements ValueReader {
+        private final int column;
+
+        ColumnReader(int column) {
+            this.column = column;
+        }
+
+        @Override
+        public Object read(Object[] row) {
+            return row[column];
+        }
+    }
+
+    // 참조하는 컬럼으로 `target` 객체를 만들고 표현식을 계산한다.
+    // 처음 몇 번은 해석(interpret)하다가 타입이 정해지면 바이트코드로 컴파일된다. (`SpelCompilerMode.MIXED`)
+    private static final class ExpressionReader implements ValueReader {
+        private final ProjectionClassGenerator.Instantiator target;
+        private final int[] columns;
+        private final Expression expression;
+        private final Class<?> resultType;
+
+        ExpressionReader(ProjectionClassGenerator.Instantiator target, int[] columns, Expression expression, Class<?> resultType) {
+            this.target = target;
+            this.columns = columns;
+            this.expression = expression;
+            this.resultType = resultType;
+        }
+
+        @Override
+        public Object read(Object[] row) {
+            Object[] values = new Object[columns.length];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = row[columns[i]];
+            }
+            return expression.getValue(new OpenProjectionRoot(target.newInstance(values)), resultType);
+        }
+    }
+
+    // row(`Object[]`)에서 프로젝션 객체 하나를 만든다.
+    private static final class Node implements ValueReader {
+        private final ProjectionClassGenerator.Instantiator instantiator;
+        private final ValueReader[] readers;
+        private final int nullCheckColumn;
+
+        Node(ProjectionClassGenerator.Instantiator instantiator, ValueReader[] readers, int nullCheckColumn) {
+            this.instantiator = instantiator;
+            this.readers = readers;
+            this.nullCheckColumn = nullCheckColumn;
+        }
+
+        @Override
+        public Object read(Object[] row) {
+            if (nullCheckColumn >= 0 && row[nullCheckColumn] == null) {
+                return null;
+            }
+            Object[] values = new Object[readers.length];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = readers[i].read(row);
+            }
+            return instantiator.newInstance(values);
+        }
+    }
+
+    static final class Plan {
+        private final String from;
+        private final Node root;
+        private final boolean singleColumn;
+        // 조건 속성 -> 완성된 JPQL (같은 문자열이어야 하이버네이트 쿼리 플랜 캐시를 탄다.)
+        private final Map<String, String> jpqlByAttribute = new ConcurrentHashMap<>();
+
+        Plan(Selection selection, Node root) {
+            this.from = selection.jpql();
+            this.root = root;
+            this.singleColumn = selection.columnCount == 1;
+        }
+
+        // DTO 는 하이버네이트가 생성자를 호출해주기 때문에 row 를 직접 다루지 않는다.
+        Plan(String from) {
+            this.from = from;
+            this.root = null;
+            this.singleColumn = false;
+        }
+
+        String jpql(String attribute) {
+            return jpqlByAttribute.computeIfAbsent(attribute, key -> from + where(key));
+        }
+
+        @SuppressWarnings("unchecked")
+        <T> List<T> execute(EntityManager em, String attribute, Object value, Class<T> projectionType) {
+            if (root == null) {
+                return em.createQuery(jpql(attribute), projectionType)
+                        .setParameter("value", value)
+                        .getResultList();
+            }
+
+            Query query = em.createQuery(jpql(attribute)).setParameter("value", value);
+            List<Object> rows = query.getResultList();
+            List<T> result = new ArrayList<>(rows.size());
+            for (Object row : rows) {
+                // 컬럼이 하나뿐이면 하이버네이트가 `Object[]`로 감싸지 않는다.
+                result.add((T) root.read(singleColumn ? new Object[]{row} : (Object[]) row));
+            }
+            return result;
+        }
+    }
+}
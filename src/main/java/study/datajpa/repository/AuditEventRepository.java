@@ -0,0 +1,11 @@
+package study.datajpa.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import study.datajpa.entity.AuditEvent;
+
+import java.util.List;
+
+public interface AuditEventRepository extends JpaRepository<AuditEvent, Long> {
+
+    List<AuditEvent> findByEntityNameAndEntityIdOrderByIdAsc(String entityName, String entityId);
+}
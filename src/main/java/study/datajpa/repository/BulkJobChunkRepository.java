@@ -0,0 +1,22 @@
+package study.datajpa.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import study.datajpa.entity.BulkJobChunk;
+
+import java.util.List;
+
+public interface BulkJobChunkRepository extends JpaRepository<BulkJobChunk, Long> {
+
+    // 이미 끝난 청크 - 이어서 실행할 때 건너뛴다.
+    @Query("select c.startId from BulkJobChunk c where c.job.id = :jobId")
+    List<Long> findStartIdsByJobId(@Param("jobId") Long jobId);
+
+    boolean existsByJobIdAndStartId(Long jobId, long startId);
+
+    long countByJobId(Long jobId);
+
+    @Query("select coalesce(sum(c.updatedRows), 0) from BulkJobChunk c where c.job.id = :jobId")
+    long sumUpdatedRowsByJobId(@Param("jobId") Long jobId);
+}
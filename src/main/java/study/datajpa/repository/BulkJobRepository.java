@@ -0,0 +1,12 @@
+package study.datajpa.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import study.datajpa.entity.BulkJob;
+import study.datajpa.entity.BulkJobStatus;
+
+import java.util.List;
+
+public interface BulkJobRepository extends JpaRepository<BulkJob, Long> {
+
+    List<BulkJob> findByStatus(BulkJobStatus status);
+}
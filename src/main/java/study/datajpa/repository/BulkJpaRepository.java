@@ -0,0 +1,42 @@
+package study.datajpa.repository;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+
+// 대량 insert 전용 리포지토리
+// `save()`를 하나씩 부르면 영속성 컨텍스트에 엔티티가 계속 쌓이고, 커밋할 때 한꺼번에 더티체킹을 해서 점점 느려진다.
+// JDBC 배치 크기만큼 `persist()` 한 뒤 `flush()` + `clear()`로 영속성 컨텍스트를 비워서 메모리를 일정하게 유지한다.
+@Repository
+public class BulkJpaRepository {
+
+    private final EntityManager em;
+    private final int batchSize;
+
+    public BulkJpaRepository(EntityManager em,
+                             @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}") int batchSize) {
+        this.em = em;
+        this.batchSize = Math.max(batchSize, 1);
+    }
+
+    // 주의! 중간에 `clear()`를 하기 때문에, 같은 트랜잭션 안에서 미리 조회해둔 엔티티도 준영속 상태가 된다.
+    // 연관관계로 넣어준 엔티티(ex. `Member.team`)는 이미 저장되어 id가 있어야 한다.
+    @Transactional
+    public <T> int persistAll(Iterable<T> entities) {
+        int count = 0;
+        for (T entity : entities) {
+            em.persist(entity);
+
+            if (++count % batchSize == 0) {
+                em.flush();
+                em.clear();
+            }
+        }
+
+        em.flush();
+        em.clear();
+        return count;
+    }
+}
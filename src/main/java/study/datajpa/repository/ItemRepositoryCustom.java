@@ -0,0 +1,16 @@
+package study.datajpa.repository;
+
+import study.datajpa.entity.Item;
+
+// id를 직접 넣는 `Item`을 대량으로 넣기 위한 메소드
+// `save()`는 `isNew()`가 `false`면 `merge()`로 가서 row 마다 select 를 먼저 한다.
+// 여기서는 엔티티를 거치지 않고 JDBC 배치로 바로 넣기 때문에 select 가 없다. (영속성 컨텍스트에도 안 올라간다.)
+public interface ItemRepositoryCustom {
+
+    // 이미 있는 id가 섞여 있으면 `DuplicateKeyException`이 난다.
+    int insertAll(Iterable<Item> items);
+
+    // 이미 있는 id는 건너뛰고 없는 것만 넣는다. 같은 메시지를 다시 받아도(재전송) 결과가 같다.
+    // 새로 들어간 row 수를 돌려준다.
+    int upsertAll(Iterable<Item> items);
+}
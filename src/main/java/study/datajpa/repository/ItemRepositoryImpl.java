@@ -0,0 +1,77 @@
+package study.datajpa.repository;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.entity.Item;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+// JDBC 템플릿으로 구현한 `ItemRepositoryCustom`
+// `JpaTransactionManager`가 JPA 와 같은 커넥션을 JDBC 템플릿에도 넘겨주기 때문에, 트랜잭션도 같이 묶인다.
+public class ItemRepositoryImpl implements ItemRepositoryCustom {
+
+    private static final String INSERT_SQL = "insert into item (id, created_date) values (?, ?)";
+
+    // H2 전용 - 같은 id가 있으면 아무것도 안 한다. (MySQL 이면 `insert ignore`, PostgreSQL 이면 `on conflict do nothing`)
+    private static final String UPSERT_SQL = "merge into item t " +
+            "using (select cast(? as varchar) as id, cast(? as timestamp) as created_date) s " +
+            "on t.id = s.id " +
+            "when not matched then insert (id, created_date) values (s.id, s.created_date)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int batchSize;
+
+    public ItemRepositoryImpl(JdbcTemplate jdbcTemplate,
+                              @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchSize = Math.max(batchSize, 1);
+    }
+
+    @Override
+    @Transactional
+    public int insertAll(Iterable<Item> items) {
+        return batchUpdate(INSERT_SQL, items);
+    }
+
+    @Override
+    @Transactional
+    public int upsertAll(Iterable<Item> items) {
+        return batchUpdate(UPSERT_SQL, items);
+    }
+
+    // 전체를 `List`로 만들지 않고 배치 크기만큼만 모아서 보낸다.
+    private int batchUpdate(String sql, Iterable<Item> items) {
+        // `@CreatedDate`는 엔티티 리스너가 넣어주는 값이라, 여기서는 직접 넣는다.
+        Timestamp createdDate = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> batch = new ArrayList<>(batchSize);
+        int updated = 0;
+
+        for (Item item : items) {
+            batch.add(new Object[]{item.getId(), createdDate});
+            if (batch.size() == batchSize) {
+                updated += execute(sql, batch);
+                batch.clear();
+            }
+        }
+
+        if (!batch.isEmpty()) {
+            updated += execute(sql, batch);
+        }
+        return updated;
+    }
+
+    private int execute(String sql, List<Object[]> batch) {
+        int updated = 0;
+        for (int count : jdbcTemplate.batchUpdate(sql, batch)) {
+            // 드라이버가 개수를 안 알려주면(`SUCCESS_NO_INFO`) 음수가 온다.
+            if (count > 0) {
+                updated += count;
+            }
+        }
+        return updated;
+    }
+}
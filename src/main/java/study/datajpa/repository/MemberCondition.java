@@ -0,0 +1,122 @@
+package study.datajpa.repository;
+
+import org.springframework.data.jpa.domain.Specification;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Join;
+import javax.persistence.criteria.JoinType;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+// `MemberSpec`이 만드는 검색 조건
+// 람다로 된 `Specification`과 달리 "어떤 필드에 조건이 있는지"(구조)와 "값"(파라미터)을 따로 알 수 있다.
+// 그래서 구조가 같은 조건은 한 번 만든 JPQL 을 재사용하고 파라미터만 바꿔서 실행할 수 있다. (`MemberRepositoryImpl.findAll`)
+// 다른 `Specification`과 섞어 쓰면(`Specification.and`) 일반 `Specification`처럼 Criteria 로 실행된다.
+public final class MemberCondition implements Specification<Member> {
+
+    enum Field {
+        USERNAME("m.username", false),
+        TEAM_NAME("t.name", true);
+
+        private final String path;
+        private final boolean needsTeam;
+
+        Field(String path, boolean needsTeam) {
+            this.path = path;
+            this.needsTeam = needsTeam;
+        }
+    }
+
+    private static final class Term {
+        private final Field field;
+        private final Object value;
+
+        Term(Field field, Object value) {
+            this.field = field;
+            this.value = value;
+        }
+    }
+
+    // 필드 순서로 정렬해둔다. `a.and(b)`와 `b.and(a)`가 같은 구조가 되도록
+    private final List<Term> terms;
+
+    private MemberCondition(List<Term> terms) {
+        List<Term> sorted = new ArrayList<>(terms);
+        sorted.sort(Comparator.comparing(term -> term.field));
+        this.terms = Collections.unmodifiableList(sorted);
+    }
+
+    static MemberCondition empty() {
+        return new MemberCondition(Collections.emptyList());
+    }
+
+    static MemberCondition of(Field field, Object value) {
+        return new MemberCondition(Collections.singletonList(new Term(field, value)));
+    }
+
+    public MemberCondition and(MemberCondition other) {
+        List<Term> merged = new ArrayList<>(terms);
+        merged.addAll(other.terms);
+        return new MemberCondition(merged);
+    }
+
+    // 값은 빼고 어떤 필드에 조건이 있는지만 나타내는 키 (ex. `USERNAME&TEAM_NAME`)
+    public String structureKey() {
+        return terms.stream()
+                .map(term -> term.field.name())
+                .collect(Collectors.joining("&"));
+    }
+
+    // 파라미터 이름은 정렬된 순서대로 `p0`, `p1`, ...
+    public String toJpql() {
+        StringBuilder jpql = new StringBuilder("select m from Member m");
+        if (needsTeam()) {
+            jpql.append(" join m.team t");
+        }
+
+        for (int i = 0; i < terms.size(); i++) {
+            jpql.append(i == 0 ? " where " : " and ")
+                    .append(terms.get(i).field.path)
+                    .append(" = :p").append(i);
+        }
+        return jpql.toString();
+    }
+
+    public <T> TypedQuery<T> bind(TypedQuery<T> query) {
+        for (int i = 0; i < terms.size(); i++) {
+            query.setParameter("p" + i, terms.get(i).value);
+        }
+        return query;
+    }
+
+    @Override
+    public Predicate toPredicate(Root<Member> root, CriteriaQuery<?> query, CriteriaBuilder builder) {
+        if (terms.isEmpty()) {
+            return null;
+        }
+
+        Join<Member, Team> team = needsTeam() ? root.join("team", JoinType.INNER) : null;
+        List<Predicate> predicates = new ArrayList<>();
+        for (Term term : terms) {
+            if (term.field == Field.TEAM_NAME) {
+                predicates.add(builder.equal(team.get("name"), term.value));
+            } else {
+                predicates.add(builder.equal(root.get("username"), term.value));
+            }
+        }
+        return builder.and(predicates.toArray(new Predicate[0]));
+    }
+
+    private boolean needsTeam() {
+        return terms.stream().anyMatch(term -> term.field.needsTeam);
+    }
+}
@@ -77,14 +77,17 @@ public class MemberJpaRepository {
 
     // 보통 페이징에서 몇번째 페이지인지 알기 위해 가져오게 돼있음
     // 여기서는 당연히 쿼리에 `sorting`이 필요 없음
+    // 페이지마다 다시 세지 않도록 `MemberPageService.findByAgeWithJpa()`에서 `PageCounter`를 거쳐서 부른다.
     public long totalCount(int age) {
         return em.createQuery("select count(m) from Member m where m.age = :age", Long.class)
                 .setParameter("age", age)
                 .getSingleResult();
     }
 
+    // 데이터가 많으면 `BulkUpdateService.agePlus()`로 PK 범위를 나눠서 실행하자.
+    // `MemberRepository.bulkAgePlus()`와 같게 `@Version`, `updatedDate`도 올린다. (낙관적 락, 조건부 GET)
     public int bulkAgePlus(int age) {
-        return em.createQuery("update Member m set m.age = m.age + 1 where m.age >= :age")
+        return em.createQuery("update versioned Member m set m.age = m.age + 1, m.updatedDate = current_timestamp where m.age >= :age")
                 .setParameter("age", age)
                 .executeUpdate();
     }
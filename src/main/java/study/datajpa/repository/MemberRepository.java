@@ -5,8 +5,11 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.*;
 import org.springframework.data.repository.query.Param;
+import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import study.datajpa.dto.MemberDto;
+import study.datajpa.dto.MemberVersion;
 import study.datajpa.entity.Member;
 
 import javax.persistence.Entity;
@@ -14,6 +17,8 @@ import javax.persistence.LockModeType;
 import javax.persistence.QueryHint;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
 
 // Ctrl + P 를 누르면 넣어야 하는 것들의 타입이 나온다.
 // T extends Object, ID extends Object
@@ -66,14 +71,44 @@ public interface MemberRepository extends JpaRepository<Member, Long>, MemberRep
     @Query("select new study.datajpa.dto.MemberDto(m.id, m.username, t.name) from Member m join m.team t")
     List<MemberDto> findMemberDto();
 
+    // 전체 회원을 `List`로 한번에 받으면 테이블 크기만큼 힙을 먹는다.
+    // `Stream`으로 받으면 내부적으로 forward-only `ScrollableResults`를 써서 `fetchSize`만큼씩 가져온다.
+    // 엔티티가 아니라 DTO 로 바로 받기 때문에 영속성 컨텍스트에 아무것도 쌓이지 않는다. (따로 `detach`할 필요가 없다.)
+    // 반드시 트랜잭션 안에서 쓰고, 다 쓰면 `close()` 해주어야 커넥션이 반납된다.
+    @QueryHints(value = {
+            @QueryHint(name = "org.hibernate.fetchSize", value = "500"),
+            @QueryHint(name = "org.hibernate.readOnly", value = "true")
+    })
+    @Query("select new study.datajpa.dto.MemberDto(m.id, m.username, t.name) from Member m left join m.team t")
+    Stream<MemberDto> streamMemberDto();
+
+    // `/members` 페이지용 - `Pageable`의 offset/limit, 정렬이 그대로 붙는다.
+    // 팀 이름까지 한 번에 가져오니까 엔티티 -> DTO 변환이나 팀 지연로딩이 없다.
+    @QueryHints(value = {
+            @QueryHint(name = "org.hibernate.fetchSize", value = "500"),
+            @QueryHint(name = "org.hibernate.readOnly", value = "true")
+    })
+    @Query("select new study.datajpa.dto.MemberDto(m.id, m.username, t.name) from Member m left join m.team t")
+    Stream<MemberDto> streamMemberDto(Pageable pageable);
+
     @Query("select m from Member m where m.username in :names")
     List<Member> findByNames(@Param("names") List<String> names);
 
-    List<Member> findMembersByUsername(String username); // 컬렉션
-    Member findMemberByUsername(String username); // 단건
-    Optional<Member> findOptionalMemberByUsername(String username); // 단건
+    // `findMembersByUsername`, `findMemberByUsername`, `findOptionalMemberByUsername`은
+    // `MemberRepositoryCustom`에서 username 인덱스(`UsernameIndex`)를 먼저 보고 조회한다.
+
+    // username 인덱스를 다시 만들 때 쓴다. (`UsernameIndexLoader`)
+    // 트랜잭션 안에서 쓰고, 다 쓰면 `close()` 해주어야 한다.
+    @QueryHints(value = {
+            @QueryHint(name = "org.hibernate.fetchSize", value = "1000"),
+            @QueryHint(name = "org.hibernate.readOnly", value = "true")
+    })
+    @Query("select m.username from Member m where m.username is not null")
+    Stream<String> streamUsernames();
 
     // 페이징 쿼리 등이 표준화되면서 개발자는 더욱 더 비즈니스에 관련된 복잡한 쿼리에만 집중할 수 있게 되었다.
+    // `Page`를 반환하면 페이지마다 `count`가 같이 나간다. `count` 방법을 고르려면 `MemberPageService`를 쓰자.
+    // 뒤 페이지로 갈수록 `offset`이 느려지니 깊이 넘길 때는 키셋 버전(`findByAgeOrderByIdDesc`, `findNextByAge`)을 쓰자.
     Page<Member> findByAge(int age, Pageable pageable);
     Slice<Member> findSliceByAge(int age, Pageable pageable);
     List<Member> findListByAge(int age, Pageable pageable);
@@ -82,11 +117,82 @@ public interface MemberRepository extends JpaRepository<Member, Long>, MemberRep
             countQuery = "select count(m) from Member m")
     Page<Member> findSplitCountByAge(int age, Pageable pageable);
 
+    // `Page` 대신 내용만 조회하고, `count`는 `PageCounter`에서 필요할 때만 따로 실행한다.
+    @Query("select m from Member m")
+    List<Member> findMemberList(Pageable pageable);
+    long countByAge(int age);
+
+    // 키셋(seek) 페이징
+    // `offset`은 앞 페이지의 row 를 전부 읽고 버리기 때문에 뒤 페이지로 갈수록 느려진다.
+    // 마지막으로 본 `(age, id)` 다음부터 찾으면 인덱스를 타고 바로 그 위치부터 읽기 때문에 몇 번째 페이지든 속도가 같다.
+    // `pageable`은 `PageRequest.of(0, size)`처럼 `limit` 용도로만 넘긴다.
+    @Query("select m from Member m order by m.age desc, m.id desc")
+    List<Member> findAllOrderByAgeDesc(Pageable pageable);
+    // JPQL 은 `(m.age, m.id) < (:age, :id)` 같은 row value 비교를 지원하지 않아서 풀어서 적었다.
+    @Query("select m from Member m where m.age < :age or (m.age = :age and m.id < :id) order by m.age desc, m.id desc")
+    List<Member> findNextByAgeDesc(@Param("age") int age, @Param("id") Long id, Pageable pageable);
+
+    // `username` 정렬은 `idx_member_username_id`의 순서를 그대로 따른다. H2 는 오름차순 인덱스에서 `null`을 맨 앞에 두기 때문에
+    // `username`이 없는 회원이 먼저 오고, 그 다음 이름순이다. (`nulls last`를 붙이면 인덱스 순서와 달라져서 매번 정렬한다.)
+    // `null` 구간은 `findNextByNullUsernameAsc`, 다 읽으면 `findNamedOrderByUsernameAsc`로 이름 있는 회원 첫 페이지를 읽는다.
+    @Query("select m from Member m order by m.username asc, m.id asc")
+    List<Member> findAllOrderByUsernameAsc(Pageable pageable);
+    @Query("select m from Member m where m.username is null and m.id > :id order by m.id asc")
+    List<Member> findNextByNullUsernameAsc(@Param("id") Long id, Pageable pageable);
+    @Query("select m from Member m where m.username is not null order by m.username asc, m.id asc")
+    List<Member> findNamedOrderByUsernameAsc(Pageable pageable);
+    // `m.username > :username or (...)`로 쓰면 H2 가 인덱스 범위를 못 잡고 테이블을 훑는다.
+    // 앞에 `m.username >= :username`을 따로 두어야 그 위치부터 인덱스를 읽는다.
+    @Query("select m from Member m where m.username >= :username and (m.username > :username or m.id > :id)" +
+            " order by m.username asc, m.id asc")
+    List<Member> findNextByUsernameAsc(@Param("username") String username, @Param("id") Long id, Pageable pageable);
+
+    // `findByAge(int, Pageable)`의 키셋 버전 - 같은 나이 안에서는 `id`로만 이어가면 된다. (`idx_member_age_id`)
+    List<Member> findByAgeOrderByIdDesc(int age, Pageable pageable);
+    @Query("select m from Member m where m.age = :age and m.id < :id order by m.id desc")
+    List<Member> findNextByAge(@Param("age") int age, @Param("id") Long id, Pageable pageable);
+
     // `@Modifying`을 빼면 에러가 나는데, `invalid data access`, `not supported DML` 등의 에러가 난다.
+    // 2차 캐시를 켜둔 경우, 벌크 연산을 하면 하이버네이트가 `Member` 캐시 영역과 관련된 쿼리 캐시를 통째로 비운다.
+    // 테이블 전체를 한 번에 수정하기 때문에, 끝날 때까지 대상 row 전부에 락이 걸린다.
+    // 데이터가 많으면 `BulkUpdateService.agePlus()`로 PK 범위를 나눠서 실행하자.
     @Modifying(clearAutomatically = true)
-    @Query("update Member m set m.age = m.age + 1 where m.age >= :age")
+    // `versioned`를 붙여야 `@Version`도 같이 올라가서, 그 사이에 회원을 읽어둔 낙관적 락 트랜잭션이 덮어쓰지 못한다.
+    // 조건부 GET 의 `Last-Modified`가 맞도록 `updatedDate`도 같이 바꾼다. (벌크 연산에는 `@LastModifiedDate`가 안 붙는다.)
+    @Query("update versioned Member m set m.age = m.age + 1, m.updatedDate = current_timestamp where m.age >= :age")
     int bulkAgePlus(@Param("age") int age);
 
+    // `bulkAgePlus()`를 PK 범위(`fromId <= id < toId`)로 나눈 것 - 청크 하나에 해당하는 row 에만 락이 걸린다.
+    @Modifying
+    @Query("update versioned Member m set m.age = m.age + 1, m.updatedDate = current_timestamp"
+            + " where m.age >= :age and m.id >= :fromId and m.id < :toId")
+    int bulkAgePlusInRange(@Param("age") int age, @Param("fromId") long fromId, @Param("toId") long toId);
+
+    // 조건부 GET 확인용 - 엔티티를 만들지 않고 버전, 수정 시각만 읽는다. (`MemberETagInterceptor`)
+    // 2차 캐시를 켜면 쿼리 캐시에서 나오고, 회원이 수정되면(벌크 연산 포함) 하이버네이트가 쿼리 캐시를 무효화한다.
+    @Transactional(readOnly = true)
+    @QueryHints(value = @QueryHint(name = "org.hibernate.cacheable", value = "true"))
+    @Query("select new study.datajpa.dto.MemberVersion(m.version, m.updatedDate) from Member m where m.id = :id")
+    Optional<MemberVersion> findVersionById(@Param("id") Long id);
+
+    // 비동기 버전 - `repositoryExecutor` 스레드에서 실행되고 바로 `CompletableFuture`를 돌려준다. (`AsyncConfig`)
+    // 호출한 쪽의 트랜잭션, 영속성 컨텍스트와 상관없이 실행되므로, 지연로딩이 필요 없는 결과(DTO, 단순 값)만 돌려준다.
+    @Async("repositoryExecutor")
+    @Transactional(readOnly = true)
+    @Query("select m.username from Member m where m.id = :id")
+    CompletableFuture<String> findUsernameAsyncById(@Param("id") Long id);
+
+    @Async("repositoryExecutor")
+    @Transactional(readOnly = true)
+    @Query("select new study.datajpa.dto.MemberDto(m.id, m.username, t.name) from Member m left join m.team t")
+    CompletableFuture<List<MemberDto>> findMemberDtoAsync(Pageable pageable);
+
+    @Query("select min(m.id) from Member m")
+    Long findMinId();
+
+    @Query("select max(m.id) from Member m")
+    Long findMaxId();
+
     // JPA의 벌크성 API는 주의점이 있다.
     // 기본적으로 JPA는 자바 객체 엔티티를 기반으로 지속적인 동기화를 통해 여러가지 변화가 이루어진다.
     // 그런데 벌크성 API는 바로 DB에 날아가는 것이기 때문에, 이러한 기본 매커니즘을 위배하는 행동이다.
@@ -117,18 +223,24 @@ public interface MemberRepository extends JpaRepository<Member, Long>, MemberRep
     List<Member> findNamedEntityGraphByUsername(@Param("username") String username);
 
     // 이렇게 세팅하면, JPA가 제공하는 쿼리 힌트를 이용할 수 있다.
+    // `readOnly` 힌트는 스냅샷을 안 만드는 것뿐이고, 레플리카로 보내려면 읽기 전용 트랜잭션이어야 한다. (`RoutingDataSourceConfig`)
+    @Transactional(readOnly = true)
     @QueryHints(value = @QueryHint(name = "org.hibernate.readOnly", value = "true"))
     Member findReadOnlyByUsername(String username);
 
+    @Transactional(readOnly = true)
     @QueryHints(value = {@QueryHint(name = "org.hibernate.readOnly", value = "true")},
                 forCounting = true)
     List<Member> findPageByUsername(String username, Pageable pageable);
 
 
     // JPA에서 LOCK을 지원한다.
+    // `select ... for update` - 커밋할 때까지 다른 트랜잭션은 DB 에서 기다린다. (그동안 커넥션도 잡고 있다.)
+    // 충돌이 드물면 `@Version` + `OptimisticRetryTemplate`이 낫다. (`MemberAgeService`)
     @Lock(LockModeType.PESSIMISTIC_WRITE)
     List<Member> findLockByUsername(String username);
 
-    // `Generic`으로 타입을 받아서 동적으로 타입을 결정하는 것을 동적 `Projection`이라고 한다.
-    <T> List<T> findProjectionsByUsername(@Param("username") String username, Class<T> type);
+    // `findProjectionsByUsername`은 `MemberRepositoryCustom`에서 직접 처리한다. (`ProjectionEngine`)
+    // 스프링 데이터가 만들어주는 원래 동작과 비교하기 위해 남겨둔다. (`ProjectionBenchmark`)
+    <T> List<T> findDerivedProjectionsByUsername(@Param("username") String username, Class<T> type);
 }
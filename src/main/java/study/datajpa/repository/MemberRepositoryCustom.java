@@ -1,9 +1,34 @@
 package study.datajpa.repository;
 
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.transaction.annotation.Transactional;
 import study.datajpa.entity.Member;
 
 import java.util.List;
+import java.util.Optional;
 
 public interface MemberRepositoryCustom {
     List<Member> findMemberCustom();
+
+    // DB 통계에 있는 회원 테이블의 대략적인 row 수 (`count(*)`보다 훨씬 싸다)
+    long estimateCount();
+
+    // `JpaSpecificationExecutor.findAll(Specification)`을 대신한다.
+    // `MemberSpec`으로 만든 조건이면 구조별로 만들어둔 JPQL 을 재사용하고, 아니면 원래대로 Criteria 로 실행한다.
+    @Transactional(readOnly = true)
+    List<Member> findAll(Specification<Member> spec);
+
+    // `Generic`으로 타입을 받아서 동적으로 타입을 결정하는 것을 동적 `Projection`이라고 한다.
+    // 닫힌 프로젝션이면 중첩된 것까지 실제로 쓰는 컬럼만 조회한다. (`ProjectionEngine`)
+    @Transactional(readOnly = true)
+    <T> List<T> findProjectionsByUsername(String username, Class<T> type);
+
+    // 가입/로그인 확인처럼 없는 이름을 많이 찾는 조회 - username 인덱스(블룸 필터 + 니어 캐시)를 먼저 본다.
+    // 인덱스를 못 쓰는 경우에는 쿼리 캐시를 건 JPQL 로 조회한다. (`app.cache.enabled=true` 일 때만 동작)
+    @Transactional(readOnly = true)
+    List<Member> findMembersByUsername(String username); // 컬렉션
+    @Transactional(readOnly = true)
+    Member findMemberByUsername(String username); // 단건
+    @Transactional(readOnly = true)
+    Optional<Member> findOptionalMemberByUsername(String username); // 단건
 }
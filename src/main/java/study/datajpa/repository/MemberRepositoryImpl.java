@@ -1,12 +1,25 @@
 package study.datajpa.repository;
 
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.dao.IncorrectResultSizeDataAccessException;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.support.SimpleJpaRepository;
 import study.datajpa.entity.Member;
+import study.datajpa.index.UsernameIndex;
+import study.datajpa.projection.ProjectionEngine;
 
 import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
 
-@RequiredArgsConstructor
 // 이름은 `MemberRepositoryImpl`과 같이 `리포지토리 이름` + `Impl`을 맞추어주어야 JPA에서  잘 찾는다.
 // 바꿀려면 규칙을 바꿀 수도 있긴 하다.
 public class MemberRepositoryImpl implements MemberRepositoryCustom{
@@ -14,9 +27,141 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom{
     // 여기서 예를들어 JDBC 템플릿을 쓰고싶다면, 데이터베이스 커넥션을 얻어서 쓰면 된다.
 
     private final EntityManager em;
+    private final ProjectionEngine projectionEngine;
+    // `app.username-index.enabled=false`면 `null`
+    private final UsernameIndex usernameIndex;
+
+    // `MemberCondition` 구조(`USERNAME&TEAM_NAME` 등) -> JPQL
+    // 같은 JPQL 문자열이면 하이버네이트도 쿼리 플랜 캐시에서 SQL 변환 결과를 재사용한다.
+    // 조건이 될 수 있는 필드 조합 수만큼만 쌓인다.
+    private final Map<String, String> jpqlByStructure = new ConcurrentHashMap<>();
+    private final Counter specCacheHits;
+    private final Counter specCacheMisses;
+    private final Counter specCriteriaFallbacks;
+    // 람다로 만든 `Specification`용 - `em`은 트랜잭션마다 알맞은 영속성 컨텍스트를 찾아주는 공유 프록시라 하나만 만들어둔다.
+    private final SimpleJpaRepository<Member, Long> criteriaRepository;
+
+    public MemberRepositoryImpl(EntityManager em, MeterRegistry meterRegistry, ProjectionEngine projectionEngine,
+                                ObjectProvider<UsernameIndex> usernameIndex) {
+        this.em = em;
+        this.projectionEngine = projectionEngine;
+        this.usernameIndex = usernameIndex.getIfAvailable();
+        // 히트율: http://localhost:8080/actuator/metrics/member.spec.cache
+        this.specCacheHits = specCacheCounter(meterRegistry, "hit");
+        this.specCacheMisses = specCacheCounter(meterRegistry, "miss");
+        this.specCriteriaFallbacks = specCacheCounter(meterRegistry, "criteria");
+        this.criteriaRepository = new SimpleJpaRepository<>(Member.class, em);
+    }
 
     @Override
     public List<Member> findMemberCustom() {
         return em.createQuery("select m from Member m").getResultList();
     }
+
+    @Override
+    public long estimateCount() {
+        // H2 전용 - 다른 DB 라면 `pg_class.reltuples`(PostgreSQL), `information_schema.tables.table_rows`(MySQL) 같은 것을 쓴다.
+        Number estimate = (Number) em.createNativeQuery(
+                "select row_count_estimate from information_schema.tables where table_name = 'MEMBER'")
+                .getSingleResult();
+        return estimate.longValue();
+    }
+
+    @Override
+    public List<Member> findAll(Specification<Member> spec) {
+        if (!(spec instanceof MemberCondition)) {
+            // 람다로 만든 `Specification`은 구조를 알 수 없어서 매번 Criteria 로 만든다.
+            specCriteriaFallbacks.increment();
+            return criteriaRepository.findAll(spec);
+        }
+
+        MemberCondition condition = (MemberCondition) spec;
+        String jpql = jpqlByStructure.get(condition.structureKey());
+        if (jpql == null) {
+            specCacheMisses.increment();
+            jpql = jpqlByStructure.computeIfAbsent(condition.structureKey(), key -> condition.toJpql());
+        } else {
+            specCacheHits.increment();
+        }
+
+        return condition.bind(em.createQuery(jpql, Member.class)).getResultList();
+    }
+
+    @Override
+    public <T> List<T> findProjectionsByUsername(String username, Class<T> type) {
+        return projectionEngine.findBy(Member.class, "username", username, type);
+    }
+
+    @Override
+    public List<Member> findMembersByUsername(String username) {
+        if (username == null || usernameIndex == null) {
+            return selectByUsername(username);
+        }
+
+        SessionImplementor session = em.unwrap(SessionImplementor.class);
+        // 영속성 컨텍스트에 아직 flush 안 된 변경(새 회원, 이름 변경)이 있을 수 있으면 인덱스에 반영이 안 됐으니 그냥 조회한다.
+        // JPQL 은 실행 전에 flush 를 해주니까 원래 동작과 같다.
+        if (session.getPersistenceContextInternal().getNumberOfManagedEntities() > 0
+                || session.getActionQueue().hasAnyQueuedActions()) {
+            return selectByUsername(username);
+        }
+
+        if (!usernameIndex.mightContain(username)) {
+            return new ArrayList<>();
+        }
+
+        long[] ids = usernameIndex.cachedIds(username);
+        if (ids != null) {
+            // 영속성 컨텍스트 -> 2차 캐시 -> DB(`in` 쿼리 한 번) 순서로 찾는다.
+            List<Member> members = session.byMultipleIds(Member.class)
+                    .multiLoad(Arrays.stream(ids).boxed().collect(Collectors.toList()));
+            // 캐시한 뒤에 지워졌거나(`null`) 이름이 바뀐 회원이 있으면 캐시가 틀린 것이다.
+            // (벌크 수정이나 다른 서버에서 바꾼 것처럼 리스너를 거치지 않은 변경) 캐시를 비우고 DB 에서 다시 찾는다.
+            if (members.stream().allMatch(member -> member != null && username.equals(member.getUsername()))) {
+                return members;
+            }
+            usernameIndex.changed(username);
+        }
+
+        long generation = usernameIndex.generation();
+        List<Member> members = selectByUsername(username);
+        usernameIndex.loaded(username, members.stream().mapToLong(Member::getId).toArray(), generation);
+        return members;
+    }
+
+    @Override
+    public Member findMemberByUsername(String username) {
+        List<Member> members = findMembersByUsername(username);
+        if (members.size() > 1) {
+            throw new IncorrectResultSizeDataAccessException(1, members.size());
+        }
+        return members.isEmpty() ? null : members.get(0);
+    }
+
+    @Override
+    public Optional<Member> findOptionalMemberByUsername(String username) {
+        return Optional.ofNullable(findMemberByUsername(username));
+    }
+
+    // 자주 읽고 거의 안 바뀌는 조회는 쿼리 캐시를 걸어둔다. (`app.cache.enabled=true` 일 때만 동작)
+    // 쿼리 캐시에는 결과의 id만 저장되고, 엔티티는 2차 캐시에서 꺼낸다.
+    // `Member` 테이블이 바뀌면(벌크 연산 포함) 하이버네이트가 알아서 무효화한다.
+    private List<Member> selectByUsername(String username) {
+        if (username == null) {
+            // 스프링 데이터의 메소드 이름 쿼리처럼 `null`이면 `is null`로 찾는다.
+            return em.createQuery("select m from Member m where m.username is null", Member.class)
+                    .getResultList();
+        }
+        return em.createQuery("select m from Member m where m.username = :username", Member.class)
+                .setParameter("username", username)
+                .setHint("org.hibernate.cacheable", true)
+                .getResultList();
+    }
+
+    private static Counter specCacheCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("member.spec.cache")
+                .description("MemberSpec 조건의 JPQL 캐시 사용 결과")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
 }
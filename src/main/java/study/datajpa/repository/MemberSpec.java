@@ -1,26 +1,19 @@
 package study.datajpa.repository;
 
-import org.springframework.data.jpa.domain.Specification;
 import org.springframework.util.StringUtils;
-import study.datajpa.entity.Member;
-import study.datajpa.entity.Team;
-
-import javax.persistence.criteria.*;
 
 public class MemberSpec {
-    public static Specification<Member> teamName(final String teamName) {
-        return (root, query, criteriaBuilder) -> {
-
-            if(StringUtils.hasText(teamName)) {
-                return null;
-            }
+    // 팀 이름이 없으면 조건(과 조인)을 빼고, 있으면 팀과 조인해서 비교한다.
+    public static MemberCondition teamName(final String teamName) {
+        if(!StringUtils.hasText(teamName)) {
+            return MemberCondition.empty();
+        }
 
-            Join<Member, Team> t = root.join("team", JoinType.INNER);// 회원과 조인
-            return criteriaBuilder.equal(t.get("name"), teamName);
-        };
+        // 회원과 조인
+        return MemberCondition.of(MemberCondition.Field.TEAM_NAME, teamName);
     }
 
-    public static Specification<Member> username(final String username) {
-        return (root, query, builder) -> builder.equal(root.get("username"), username);
+    public static MemberCondition username(final String username) {
+        return MemberCondition.of(MemberCondition.Field.USERNAME, username);
     }
 }
@@ -5,7 +5,8 @@ public interface NestedClosedProjections {
     String getUsername();
     TeamInfo getTeam();
 
-    // 아직은 중첩 구조에 대한 쿼리 최적화를 지원하진 않는다.
+    // 스프링 데이터는 중첩 구조에 대한 쿼리 최적화를 지원하진 않는다. (팀 엔티티 전체를 조회한다.)
+    // `findProjectionsByUsername`은 `ProjectionEngine`이 `t.id, t.name`만 조회한다.
     interface TeamInfo {
         String getName();
     }
@@ -0,0 +1,217 @@
+package study.datajpa.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.config.BulkUpdateProperties;
+import study.datajpa.entity.BulkJob;
+import study.datajpa.entity.BulkJobChunk;
+import study.datajpa.repository.BulkJobChunkRepository;
+import study.datajpa.repository.BulkJobRepository;
+
+import java.util.HashSet;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+// `update ... where ...` 한 방을 PK 범위(청크)로 쪼개서 실행한다.
+// - 청크마다 트랜잭션을 따로 커밋해서, 락은 그 청크의 row 에만 잠깐 걸린다.
+// - 청크 수정과 `BulkJobChunk` 기록을 같은 트랜잭션에서 커밋하므로, 이어서 실행해도 같은 청크가 두 번 적용되지 않는다.
+// - `app.bulk.parallelism`개의 청크를 동시에 실행하고, `app.bulk.max-chunks-per-second`로 속도를 제한한다.
+@Slf4j
+@Component
+public class BulkUpdateEngine {
+
+    // `fromId <= id < toId` 범위를 수정하고 수정된 row 수를 돌려준다. (트랜잭션 안에서 호출된다.)
+    public interface RangeUpdate {
+        int update(long fromId, long toId);
+    }
+
+    private final BulkJobRepository bulkJobRepository;
+    private final BulkJobChunkRepository bulkJobChunkRepository;
+    private final Executor bulkExecutor;
+    private final BulkUpdateProperties properties;
+    private final TransactionTemplate tx;
+    private final RateLimiter rateLimiter;
+
+    public BulkUpdateEngine(BulkJobRepository bulkJobRepository,
+                            BulkJobChunkRepository bulkJobChunkRepository,
+                            @Qualifier("bulkExecutor") Executor bulkExecutor,
+                            BulkUpdateProperties properties,
+                            PlatformTransactionManager transactionManager) {
+        this.bulkJobRepository = bulkJobRepository;
+        this.bulkJobChunkRepository = bulkJobChunkRepository;
+        this.bulkExecutor = bulkExecutor;
+        this.properties = properties;
+        // 호출하는 쪽에 트랜잭션이 있어도 청크마다 따로 커밋되어야 한다.
+        this.tx = new TransactionTemplate(transactionManager);
+        this.tx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        // 여러 작업이 동시에 돌아도 DB 에 가는 부하는 합쳐서 제한한다.
+        this.rateLimiter = new RateLimiter(properties.getMaxChunksPerSecond());
+    }
+
+    public BulkJob createJob(String operation, long parameter, Long minId, Long maxId) {
+        // 테이블이 비어 있으면 청크가 하나도 없는 작업이 된다.
+        long min = minId == null ? 1 : minId;
+        long max = maxId == null ? 0 : maxId;
+        int chunkSize = Math.max(properties.getChunkSize(), 1);
+        return tx.execute(status -> bulkJobRepository.save(new BulkJob(operation, parameter, min, max, chunkSize)));
+    }
+
+    // 아직 안 끝난 청크만 실행한다. 처음 실행할 때와 이어서 실행할 때 모두 이 메소드를 쓴다.
+    // 모든 청크가 끝나면(혹은 하나라도 실패하면) 작업 상태를 바꾸고 완료된다.
+    public CompletableFuture<BulkJob> run(Long jobId, RangeUpdate rangeUpdate) {
+        BulkJob job = tx.execute(status -> {
+            BulkJob found = bulkJobRepository.findById(jobId)
+                    .orElseThrow(() -> new IllegalArgumentException("없는 작업입니다. id=" + jobId));
+            found.running();
+            return found;
+        });
+
+        Set<Long> completed = new HashSet<>(bulkJobChunkRepository.findStartIdsByJobId(jobId));
+        Queue<Long> pending = new ConcurrentLinkedQueue<>();
+        for (long start = job.getMinId(); start <= job.getMaxId(); start += job.getChunkSize()) {
+            if (!completed.contains(start)) {
+                pending.add(start);
+            }
+        }
+
+        Progress progress = new Progress(job, completed.size());
+        log.info("벌크 작업 시작 {} - 전체 청크 {}, 남은 청크 {}", job, job.getTotalChunks(), pending.size());
+
+        AtomicBoolean failed = new AtomicBoolean();
+        int workers = Math.max(1, Math.min(properties.getParallelism(), pending.size()));
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[workers];
+        for (int i = 0; i < workers; i++) {
+            futures[i] = CompletableFuture.runAsync(() -> work(job, pending, rangeUpdate, progress, failed), bulkExecutor);
+        }
+
+        return CompletableFuture.allOf(futures)
+                .handle((ignored, error) -> finish(jobId, error, progress));
+    }
+
+    // 큐가 빌 때까지 청크를 하나씩 가져가서 실행한다.
+    private void work(BulkJob job, Queue<Long> pending, RangeUpdate rangeUpdate, Progress progress, AtomicBoolean failed) {
+        Long start;
+        while (!failed.get() && (start = pending.poll()) != null) {
+            long end = Math.min(start + job.getChunkSize(), job.getMaxId() + 1);
+            rateLimiter.acquire();
+
+            try {
+                progress.chunkCompleted(runChunk(job.getId(), start, end, rangeUpdate));
+            } catch (RuntimeException e) {
+                // 나머지 작업 스레드도 멈춘다. 이미 커밋된 청크는 그대로 두고, 나중에 이어서 실행하면 된다.
+                failed.set(true);
+                throw e;
+            }
+        }
+    }
+
+    private int runChunk(Long jobId, long start, long end, RangeUpdate rangeUpdate) {
+        try {
+            Integer updatedRows = tx.execute(status -> {
+                if (bulkJobChunkRepository.existsByJobIdAndStartId(jobId, start)) {
+                    return 0;
+                }
+
+                int rows = rangeUpdate.update(start, end);
+                bulkJobChunkRepository.save(new BulkJobChunk(bulkJobRepository.getOne(jobId), start, end, rows));
+                return rows;
+            });
+            return updatedRows == null ? 0 : updatedRows;
+        } catch (DataIntegrityViolationException e) {
+            // 같은 청크를 다른 곳(다른 서버에서 이어서 실행 등)에서 먼저 커밋했다. 이 트랜잭션의 수정은 롤백됐다.
+            log.info("이미 끝난 청크라서 건너뜀 - job={}, range=[{}, {})", jobId, start, end);
+            return 0;
+        }
+    }
+
+    private BulkJob finish(Long jobId, Throwable error, Progress progress) {
+        BulkJob job = tx.execute(status -> {
+            BulkJob found = bulkJobRepository.findById(jobId).get();
+            if (error == null) {
+                found.completed();
+            } else {
+                Throwable cause = error.getCause() != null ? error.getCause() : error;
+                found.failed(cause.getClass().getSimpleName() + ": " + cause.getMessage());
+            }
+            return found;
+        });
+
+        if (error == null) {
+            log.info("벌크 작업 완료 {} - 이번에 수정한 row {}", job, progress.updatedRows.get());
+        } else {
+            log.error("벌크 작업 실패 {} - 청크 {}/{}까지 커밋됨", job, progress.completedChunks.get(), progress.totalChunks, error);
+        }
+        return job;
+    }
+
+    // 진행 상황 로그 - 전체의 10% 단위로 남긴다.
+    private static class Progress {
+        private final Long jobId;
+        private final long totalChunks;
+        private final long logInterval;
+        private final AtomicLong completedChunks;
+        private final AtomicLong updatedRows = new AtomicLong();
+        private final long startedAt = System.nanoTime();
+
+        Progress(BulkJob job, long alreadyCompleted) {
+            this.jobId = job.getId();
+            this.totalChunks = job.getTotalChunks();
+            this.logInterval = Math.max(totalChunks / 10, 1);
+            this.completedChunks = new AtomicLong(alreadyCompleted);
+        }
+
+        void chunkCompleted(int rows) {
+            long rowsSoFar = updatedRows.addAndGet(rows);
+            long done = completedChunks.incrementAndGet();
+            if (done % logInterval == 0 || done == totalChunks) {
+                long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+                log.info("벌크 작업 진행 job={} - 청크 {}/{} ({}%), 수정한 row {}, {}ms",
+                        jobId, done, totalChunks, done * 100 / totalChunks, rowsSoFar, elapsedMs);
+            }
+        }
+    }
+
+    // 초당 `permitsPerSecond`개까지만 통과시킨다. 호출한 순서대로 일정한 간격을 예약하는 방식
+    static class RateLimiter {
+        private final long intervalNanos;
+        private long nextPermitAt = System.nanoTime();
+
+        RateLimiter(double permitsPerSecond) {
+            this.intervalNanos = permitsPerSecond > 0 ? (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond) : 0;
+        }
+
+        void acquire() {
+            if (intervalNanos == 0) {
+                return;
+            }
+
+            long waitNanos = reserve();
+            if (waitNanos > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(waitNanos);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("벌크 작업 대기 중 인터럽트", e);
+                }
+            }
+        }
+
+        private synchronized long reserve() {
+            long now = System.nanoTime();
+            long permitAt = Math.max(nextPermitAt, now);
+            nextPermitAt = permitAt + intervalNanos;
+            return permitAt - now;
+        }
+    }
+}
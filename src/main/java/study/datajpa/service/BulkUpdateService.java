@@ -0,0 +1,88 @@
+package study.datajpa.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import study.datajpa.config.BulkUpdateProperties;
+import study.datajpa.entity.BulkJob;
+import study.datajpa.entity.BulkJobStatus;
+import study.datajpa.repository.BulkJobChunkRepository;
+import study.datajpa.repository.BulkJobRepository;
+import study.datajpa.repository.MemberRepository;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+// 회원 벌크 수정 작업
+// `MemberRepository.bulkAgePlus()`와 결과는 같지만, PK 범위로 나눠서 청크마다 커밋한다. (`BulkUpdateEngine`)
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BulkUpdateService {
+
+    static final String MEMBER_AGE_PLUS = "member.age-plus";
+
+    private final BulkUpdateEngine bulkUpdateEngine;
+    private final BulkJobRepository bulkJobRepository;
+    private final BulkJobChunkRepository bulkJobChunkRepository;
+    private final MemberRepository memberRepository;
+    private final BulkUpdateProperties properties;
+
+    // `age` 이상인 회원의 나이를 1 올린다.
+    // 작업이 끝나면 완료되는 `CompletableFuture`를 돌려준다. 기다릴 필요가 없으면 작업 id만 가져가면 된다.
+    public CompletableFuture<BulkJob> agePlus(int age) {
+        return resume(createAgePlusJob(age).getId());
+    }
+
+    // 작업만 만들어둔다. (실행은 `resume()`)
+    public BulkJob createAgePlusJob(int age) {
+        return bulkUpdateEngine.createJob(MEMBER_AGE_PLUS, age, memberRepository.findMinId(), memberRepository.findMaxId());
+    }
+
+    // 아직 안 끝난 청크부터 실행한다. 실패했거나 중간에 멈춘 작업도 이걸로 이어서 실행한다.
+    public CompletableFuture<BulkJob> resume(Long jobId) {
+        BulkJob job = bulkJobRepository.findById(jobId)
+                .orElseThrow(() -> new IllegalArgumentException("없는 작업입니다. id=" + jobId));
+        return bulkUpdateEngine.run(job.getId(), rangeUpdateOf(job));
+    }
+
+    public Map<String, Object> progress(Long jobId) {
+        BulkJob job = bulkJobRepository.findById(jobId)
+                .orElseThrow(() -> new IllegalArgumentException("없는 작업입니다. id=" + jobId));
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("id", job.getId());
+        result.put("operation", job.getOperation());
+        result.put("parameter", job.getParameter());
+        result.put("status", job.getStatus());
+        result.put("totalChunks", job.getTotalChunks());
+        result.put("completedChunks", bulkJobChunkRepository.countByJobId(jobId));
+        result.put("updatedRows", bulkJobChunkRepository.sumUpdatedRowsByJobId(jobId));
+        result.put("failureMessage", job.getFailureMessage());
+        return result;
+    }
+
+    // 서버가 죽어서 `RUNNING` 상태로 남은 작업을 다시 실행한다.
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeRunningJobs() {
+        if (!properties.isResumeOnStartup()) {
+            return;
+        }
+
+        for (BulkJob job : bulkJobRepository.findByStatus(BulkJobStatus.RUNNING)) {
+            log.info("중단된 벌크 작업을 이어서 실행 {}", job);
+            resume(job.getId());
+        }
+    }
+
+    private BulkUpdateEngine.RangeUpdate rangeUpdateOf(BulkJob job) {
+        if (MEMBER_AGE_PLUS.equals(job.getOperation())) {
+            int age = (int) job.getParameter();
+            return (fromId, toId) -> memberRepository.bulkAgePlusInRange(age, fromId, toId);
+        }
+        throw new IllegalArgumentException("모르는 벌크 작업입니다. operation=" + job.getOperation());
+    }
+}
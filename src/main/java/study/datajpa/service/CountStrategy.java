@@ -0,0 +1,13 @@
+package study.datajpa.service;
+
+// `Page`의 전체 개수(`totalElements`)를 어떻게 구할지
+public enum CountStrategy {
+    // 매번 `count` 쿼리 (스프링 데이터 JPA 기본 동작)
+    EXACT,
+    // 내용 조회와 `count` 쿼리를 동시에 실행
+    CONCURRENT,
+    // 같은 조건의 `count` 결과를 잠깐(TTL) 재사용
+    CACHED,
+    // DB 통계의 추정치를 쓰고 `estimated=true`로 표시 (추정치가 없는 조건이면 `CACHED`로 동작)
+    ESTIMATED
+}
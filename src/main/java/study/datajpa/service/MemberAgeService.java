@@ -0,0 +1,51 @@
+package study.datajpa.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.concurrency.LockWaitCounters;
+import study.datajpa.concurrency.OptimisticRetryTemplate;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+
+import java.util.List;
+
+// 같은 회원의 나이를 여러 요청이 동시에 바꾸는 경우 - 락 전략별 구현
+// - pessimistic: `select ... for update`, DB 에서 줄을 선다. 기다리는 동안 커넥션을 잡고 있다.
+// - optimistic: `@Version`으로 충돌을 잡고 트랜잭션을 새로 시작해서 다시 한다. 충돌이 드물면 가장 싸다.
+// - serialized: optimistic + 같은 username 끼리는 이 프로세스 안에서 먼저 줄을 세운다. (hot row)
+//   커넥션을 잡기 전에 기다리기 때문에 커넥션 풀이 락 대기로 마르지 않는다.
+// 비교: `MemberContentionBenchmark`
+@Service
+@RequiredArgsConstructor
+public class MemberAgeService {
+
+    private final MemberRepository memberRepository;
+    private final OptimisticRetryTemplate optimisticRetryTemplate;
+
+    @Transactional
+    public int addAgePessimistic(String username, int delta) {
+        long startedAt = System.nanoTime();
+        List<Member> members = memberRepository.findLockByUsername(username);
+        // 쿼리 시간도 들어가지만, 경합이 있으면 대부분 행 락을 기다린 시간이다.
+        LockWaitCounters.current().waited(System.nanoTime() - startedAt);
+        return addAge(members, delta);
+    }
+
+    public int addAgeOptimistic(String username, int delta) {
+        return optimisticRetryTemplate.execute(status -> addAge(memberRepository.findByUsername(username), delta));
+    }
+
+    public int addAgeSerialized(String username, int delta) {
+        return optimisticRetryTemplate.executeSerialized(username,
+                status -> addAge(memberRepository.findByUsername(username), delta));
+    }
+
+    // 변경 감지로 커밋할 때 `update member set age = ?, version = ? where member_id = ? and version = ?`
+    private static int addAge(List<Member> members, int delta) {
+        for (Member member : members) {
+            member.setAge(member.getAge() + delta);
+        }
+        return members.size();
+    }
+}
@@ -0,0 +1,98 @@
+package study.datajpa.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.dto.MemberDto;
+import study.datajpa.repository.MemberRepository;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+// 회원 전체를 내려받는 기능
+// 한 줄 읽을 때마다 바로 응답 스트림에 써버리기 때문에, 회원이 몇 명이든 메모리 사용량이 일정하다.
+@Service
+@RequiredArgsConstructor
+public class MemberExportService {
+
+    // 이 개수마다 응답을 `flush()` 해서 클라이언트가 바로 받아볼 수 있게 한다.
+    private static final int FLUSH_INTERVAL = 500;
+
+    private final MemberRepository memberRepository;
+    private final ObjectMapper objectMapper;
+
+    // `Stream`은 트랜잭션이 끝나면 닫히기 때문에, 다 쓸 때까지 트랜잭션을 유지해야 한다.
+    @Transactional(readOnly = true)
+    public long exportNdjson(OutputStream out) throws IOException {
+        // 한 줄마다 `flush()`가 일어나지 않도록 꺼둔다.
+        ObjectWriter writer = objectMapper.writerFor(MemberDto.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+        long count = 0;
+        try (Stream<MemberDto> rows = memberRepository.streamMemberDto();
+             JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            // 기본값은 값 사이에 공백을 넣는데, NDJSON 은 줄바꿈으로 구분해야 한다.
+            generator.setRootValueSeparator(null);
+
+            Iterator<MemberDto> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                writer.writeValue(generator, iterator.next());
+                generator.writeRaw('\n');
+
+                if (++count % FLUSH_INTERVAL == 0) {
+                    generator.flush();
+                }
+            }
+        }
+        return count;
+    }
+
+    @Transactional(readOnly = true)
+    public long exportCsv(OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write("id,username,teamName\n");
+
+        long count = 0;
+        try (Stream<MemberDto> rows = memberRepository.streamMemberDto()) {
+            Iterator<MemberDto> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                MemberDto row = iterator.next();
+                writer.write(String.valueOf(row.getId()));
+                writer.write(',');
+                writer.write(csv(row.getUsername()));
+                writer.write(',');
+                writer.write(csv(row.getTeamName()));
+                writer.write('\n');
+
+                if (++count % FLUSH_INTERVAL == 0) {
+                    writer.flush();
+                }
+            }
+        }
+
+        writer.flush();
+        return count;
+    }
+
+    private static String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,54 @@
+package study.datajpa.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberJpaRepository;
+import study.datajpa.repository.MemberRepository;
+
+// `Page<Member>`를 반환하는 리포지토리 메소드(`findByAge`, `findSplitCountByAge`, `findByPage` + `totalCount`)는
+// 페이지를 넘길 때마다 `count`를 매번 실행한다. 여기서는 내용만 `List`로 조회하고 `count`는 `PageCounter`에 맡긴다.
+// `strategy`가 `null`이면 `app.paging.count-strategy`(기본 `exact`)를 쓴다.
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class MemberPageService {
+
+    private final MemberRepository memberRepository;
+    private final MemberJpaRepository memberJpaRepository;
+    private final PageCounter pageCounter;
+
+    // `memberRepository.findByAge(age, pageable)` 대신
+    public Page<Member> findByAge(int age, Pageable pageable, CountStrategy strategy) {
+        return pageCounter.getPage(pageable, strategy, ageCountKey(age),
+                () -> memberRepository.findListByAge(age, pageable),
+                () -> memberRepository.countByAge(age),
+                null);
+    }
+
+    // `memberRepository.findSplitCountByAge(age, pageable)` 대신
+    // 원래 쿼리도 `age` 조건 없이 전체 회원을 조회하고 조인 없이 `count`만 따로 했으니, `/members`와 같은 `count`를 쓴다.
+    public Page<Member> findSplitCount(Pageable pageable, CountStrategy strategy) {
+        return pageCounter.getPage(pageable, strategy, "members",
+                () -> memberRepository.findMemberList(pageable),
+                memberRepository::count,
+                memberRepository::estimateCount);
+    }
+
+    // 순수 JPA 버전 - `memberJpaRepository.findByPage()` + `totalCount()` 대신
+    // 정렬은 `findByPage`에 고정(`username desc`)되어 있어서 `pageable`의 offset/limit 만 쓴다.
+    public Page<Member> findByAgeWithJpa(int age, Pageable pageable, CountStrategy strategy) {
+        return pageCounter.getPage(pageable, strategy, ageCountKey(age),
+                () -> memberJpaRepository.findByPage(age, (int) pageable.getOffset(), pageable.getPageSize()),
+                () -> memberJpaRepository.totalCount(age),
+                null);
+    }
+
+    // 조건이 같으면 `count`도 같으니 두 리포지토리가 같은 키를 쓴다.
+    private static String ageCountKey(int age) {
+        return "members:age=" + age;
+    }
+}
@@ -0,0 +1,80 @@
+package study.datajpa.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.dto.MemberDto;
+import study.datajpa.repository.MemberRepository;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+// `/members` 응답을 `Page<MemberDto>` 대신 결과셋에서 한 줄 읽을 때마다 바로 JSON 으로 쓴다.
+// `Page`를 그대로 내보내면 내용 `List`, 엔티티, DTO 를 다 만든 다음 `PageImpl`을 리플렉션으로 직렬화하고,
+// 클라이언트가 안 쓰는 `pageable`, `sort`, `numberOfElements`, `empty` 까지 내려간다.
+// 필드 이름은 `Page` JSON 과 같게 두고 쓰는 것만 남겼다.
+//   {"content":[{"id":1,"username":"member1","teamName":"teamA"}, ...],
+//    "number":0,"size":5,"totalElements":100,"totalPages":20,"first":true,"last":false,"estimated":false}
+// 전체 개수는 내용을 다 쓴 다음에 구한다. (내용 개수를 보고 `count`를 생략할 수 있어서)
+//
+// 응답이 커서 버퍼가 차면 중간에 커밋되기 때문에, 그 뒤에 예외가 나면 500 이 아니라 잘린 JSON 이 나간다.
+// `/members`의 작은 페이지는 `ShallowEtagHeaderFilter`가 본문을 모으니까 이런 일이 없고,
+// 큰 페이지(`app.paging.stream-page-size` 초과)만 필터를 건너뛰고 쓰는 대로 나간다.
+@Service
+@RequiredArgsConstructor
+public class MemberPageWriter {
+
+    private final MemberRepository memberRepository;
+    private final PageCounter pageCounter;
+    private final ObjectMapper objectMapper;
+
+    // `Stream`은 트랜잭션이 끝나면 닫히기 때문에, 다 쓸 때까지 트랜잭션을 유지해야 한다.
+    // 쓴 회원 수를 반환한다.
+    @Transactional(readOnly = true)
+    public int write(Pageable pageable, CountStrategy countStrategy, OutputStream out) throws IOException {
+        int rows = 0;
+        try (PageCounter.Total total = pageCounter.startCount(pageable, countStrategy, "members",
+                memberRepository::count, memberRepository::estimateCount);
+             Stream<MemberDto> content = memberRepository.streamMemberDto(pageable);
+             JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            // 중간에 예외가 나도 `close()`가 괄호를 닫아서 멀쩡한 JSON 처럼 보이지 않도록
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT);
+
+            generator.writeStartObject();
+            generator.writeArrayFieldStart("content");
+            Iterator<MemberDto> iterator = content.iterator();
+            while (iterator.hasNext()) {
+                writeMember(generator, iterator.next());
+                rows++;
+            }
+            generator.writeEndArray();
+
+            long totalElements = total.get(rows);
+            int totalPages = (int) ((totalElements + pageable.getPageSize() - 1) / pageable.getPageSize());
+            generator.writeNumberField("number", pageable.getPageNumber());
+            generator.writeNumberField("size", pageable.getPageSize());
+            generator.writeNumberField("totalElements", totalElements);
+            generator.writeNumberField("totalPages", totalPages);
+            generator.writeBooleanField("first", pageable.getPageNumber() == 0);
+            generator.writeBooleanField("last", pageable.getPageNumber() + 1 >= totalPages);
+            generator.writeBooleanField("estimated", total.isEstimated());
+            generator.writeEndObject();
+        }
+        return rows;
+    }
+
+    // `BeanSerializer`를 거치지 않고 필드를 직접 쓴다. `MemberDto` 필드가 바뀌면 여기도 바꿔야 한다.
+    private static void writeMember(JsonGenerator generator, MemberDto member) throws IOException {
+        generator.writeStartObject();
+        generator.writeNumberField("id", member.getId());
+        generator.writeStringField("username", member.getUsername());
+        generator.writeStringField("teamName", member.getTeamName());
+        generator.writeEndObject();
+    }
+}
@@ -0,0 +1,182 @@
+package study.datajpa.service;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import study.datajpa.dto.CountedPage;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+// `Page`를 만들 때 `count` 쿼리를 어떻게 실행할지 결정한다.
+// 테이블이 크면 내용 조회보다 `count` 쿼리가 더 오래 걸리는 경우가 많다.
+// 사용법은 `Page<Member>`를 반환하는 메소드 대신, 내용은 `List`(`Pageable` 적용)로 조회하고 `count`는 따로 넘겨주면 된다.
+//   pageCounter.getPage(pageable, strategy, "members:age=" + age,
+//           () -> memberRepository.findListByAge(age, pageable),
+//           () -> memberRepository.countByAge(age),
+//           null);
+@Component
+public class PageCounter {
+
+    // 조건(countKey)이 너무 다양해서 캐시가 끝없이 커지지 않도록
+    private static final int MAX_CACHED_COUNTS = 1_000;
+
+    private final Executor countExecutor;
+    private final long ttlNanos;
+    private final CountStrategy defaultStrategy;
+    private final Map<String, CachedCount> cachedCounts = new ConcurrentHashMap<>();
+
+    public PageCounter(@Qualifier("countExecutor") Executor countExecutor,
+                       @Value("${app.paging.count-ttl:5s}") Duration ttl,
+                       @Value("${app.paging.count-strategy:exact}") CountStrategy defaultStrategy) {
+        this.countExecutor = countExecutor;
+        this.ttlNanos = ttl.toNanos();
+        this.defaultStrategy = defaultStrategy;
+    }
+
+    public CountStrategy getDefaultStrategy() {
+        return defaultStrategy;
+    }
+
+    // `strategy`가 `null`이면 `app.paging.count-strategy`를 쓴다.
+    // `estimate`는 추정치를 구할 수 없는 조건이면 `null`을 넘긴다.
+    public <T> Page<T> getPage(Pageable pageable, CountStrategy strategy, String countKey,
+                               Supplier<List<T>> content, LongSupplier count, LongSupplier estimate) {
+        try (Total total = startCount(pageable, strategy, countKey, count, estimate)) {
+            List<T> rows = content.get();
+            return new CountedPage<>(rows, pageable, total.get(rows.size()), total.isEstimated());
+        }
+    }
+
+    // 내용을 `List`로 모으지 않고 바로 응답에 쓰는 경우(`MemberPageWriter`)
+    // 내용보다 먼저 불러서(`CONCURRENT`면 이때 `count`가 시작된다) 내용을 다 쓴 다음 `Total.get()`으로 전체 개수를 받는다.
+    public Total startCount(Pageable pageable, CountStrategy strategy, String countKey,
+                            LongSupplier count, LongSupplier estimate) {
+        CountStrategy actual = strategy != null ? strategy : defaultStrategy;
+
+        switch (actual) {
+            case CONCURRENT:
+                return concurrent(pageable, count);
+            case CACHED:
+                return new Total(pageable, () -> cachedCount(countKey, count), false, null);
+            case ESTIMATED:
+                if (estimate == null) {
+                    return new Total(pageable, () -> cachedCount(countKey, count), false, null);
+                }
+                return new Total(pageable, estimate, true, null);
+            default:
+                return new Total(pageable, count, false, null);
+        }
+    }
+
+    public void evict(String countKey) {
+        cachedCounts.remove(countKey);
+    }
+
+    private Total concurrent(Pageable pageable, LongSupplier count) {
+        CompletableFuture<Long> futureCount;
+        try {
+            futureCount = CompletableFuture.supplyAsync(count::getAsLong, countExecutor);
+        } catch (RejectedExecutionException e) {
+            // `count` 전용 스레드가 다 바쁘면 그냥 순서대로 실행한다.
+            return new Total(pageable, count, false, null);
+        }
+        return new Total(pageable, () -> join(futureCount), false, futureCount);
+    }
+
+    private long cachedCount(String countKey, LongSupplier count) {
+        long now = System.nanoTime();
+        CachedCount cached = cachedCounts.get(countKey);
+        if (cached != null && now - cached.createdAt < ttlNanos) {
+            return cached.value;
+        }
+
+        long value = count.getAsLong();
+        if (cachedCounts.size() >= MAX_CACHED_COUNTS) {
+            cachedCounts.clear();
+        }
+        cachedCounts.put(countKey, new CachedCount(value, now));
+        return value;
+    }
+
+    private static long join(CompletableFuture<Long> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    // 내용의 개수를 받아서 전체 개수를 정한다.
+    public static final class Total implements AutoCloseable {
+        private final Pageable pageable;
+        private final LongSupplier count;
+        private final boolean countEstimated;
+        private final CompletableFuture<Long> futureCount;
+        private boolean estimated;
+
+        private Total(Pageable pageable, LongSupplier count, boolean countEstimated, CompletableFuture<Long> futureCount) {
+            this.pageable = pageable;
+            this.count = count;
+            this.countEstimated = countEstimated;
+            this.futureCount = futureCount;
+        }
+
+        // `PageableExecutionUtils.getPage()`와 같은 방식으로, 내용만 보고 전체 개수를 알 수 있으면 `count`를 생략한다.
+        public long get(int contentSize) {
+            if (pageable.isUnpaged() || pageable.getOffset() == 0) {
+                if (pageable.isUnpaged() || pageable.getPageSize() > contentSize) {
+                    return contentSize;
+                }
+                return counted();
+            }
+
+            // 마지막 페이지
+            if (contentSize != 0 && pageable.getPageSize() > contentSize) {
+                return pageable.getOffset() + contentSize;
+            }
+            return counted();
+        }
+
+        // `get()`에서 추정치를 썼는지
+        public boolean isEstimated() {
+            return estimated;
+        }
+
+        private long counted() {
+            estimated = countEstimated;
+            return count.getAsLong();
+        }
+
+        // 첫 페이지인데 내용이 `size`보다 적은 경우처럼 `count`가 필요 없었으면 취소한다. (이미 끝났으면 아무 일도 안 일어남)
+        @Override
+        public void close() {
+            if (futureCount != null) {
+                futureCount.cancel(false);
+            }
+        }
+    }
+
+    private static class CachedCount {
+        private final long value;
+        private final long createdAt;
+
+        CachedCount(long value, long createdAt) {
+            this.value = value;
+            this.createdAt = createdAt;
+        }
+    }
+}
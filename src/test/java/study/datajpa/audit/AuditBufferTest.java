@@ -0,0 +1,43 @@
+package study.datajpa.audit;
+
+import org.junit.jupiter.api.Test;
+import study.datajpa.entity.AuditAction;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AuditBufferTest {
+
+    @Test
+    public void dropsWhenFullAfterTimeout() {
+        AuditBuffer buffer = new AuditBuffer(2, 1, TimeUnit.MILLISECONDS);
+
+        assertThat(buffer.offer(record("1"))).isTrue();
+        assertThat(buffer.offer(record("2"))).isTrue();
+        // 꽉 차서 1ms 기다린 뒤 버린다.
+        assertThat(buffer.offer(record("3"))).isFalse();
+
+        assertThat(buffer.size()).isEqualTo(2);
+        assertThat(buffer.getDropped()).isEqualTo(1);
+    }
+
+    @Test
+    public void drainInBatches() {
+        AuditBuffer buffer = new AuditBuffer(10, 0, TimeUnit.MILLISECONDS);
+        for (int i = 0; i < 5; i++) {
+            buffer.offer(record(String.valueOf(i)));
+        }
+
+        assertThat(buffer.drain(3)).extracting(AuditRecord::getEntityId).containsExactly("0", "1", "2");
+        assertThat(buffer.drain(3)).extracting(AuditRecord::getEntityId).containsExactly("3", "4");
+        assertThat(buffer.size()).isZero();
+        // 꺼낸 만큼 다시 넣을 수 있다.
+        assertThat(buffer.offer(record("5"))).isTrue();
+    }
+
+    private static AuditRecord record(String id) {
+        return new AuditRecord("Member", id, AuditAction.INSERT, null, "system", LocalDateTime.now());
+    }
+}
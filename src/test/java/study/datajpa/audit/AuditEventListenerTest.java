@@ -0,0 +1,58 @@
+package study.datajpa.audit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.RequestContextHolder;
+import study.datajpa.entity.AuditAction;
+import study.datajpa.entity.AuditEvent;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.AuditEventRepository;
+import study.datajpa.repository.MemberRepository;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// 커밋된 뒤에 이벤트가 남기 때문에 테스트를 `@Transactional`로 묶지 않는다.
+@SpringBootTest
+class AuditEventListenerTest {
+
+    @Autowired MemberRepository memberRepository;
+    @Autowired AuditEventRepository auditEventRepository;
+    @Autowired AuditFlusher auditFlusher;
+    @Autowired PlatformTransactionManager transactionManager;
+
+    @Test
+    public void recordsCommittedChanges() {
+        // `@SpringBootTest`는 테스트 스레드에 가짜 HTTP 요청을 걸어둬서, 배치처럼 요청 밖에서 변경한 상황을 만든다.
+        RequestContextHolder.resetRequestAttributes();
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+
+        Long id = tx.execute(status -> memberRepository.save(new Member("auditMember", 10)).getId());
+        tx.execute(status -> {
+            memberRepository.findById(id).get().setAge(11);
+            return null;
+        });
+        // 롤백된 변경은 남지 않는다.
+        tx.execute(status -> {
+            memberRepository.findById(id).get().setUsername("rolledBack");
+            status.setRollbackOnly();
+            return null;
+        });
+        tx.execute(status -> {
+            memberRepository.deleteById(id);
+            return null;
+        });
+
+        auditFlusher.flush();
+
+        List<AuditEvent> events = auditEventRepository.findByEntityNameAndEntityIdOrderByIdAsc(Member.class.getName(), String.valueOf(id));
+        assertThat(events).extracting(AuditEvent::getAction)
+                .containsExactly(AuditAction.INSERT, AuditAction.UPDATE, AuditAction.DELETE);
+        assertThat(events.get(1).getChangedFields()).isEqualTo("age");
+        assertThat(events).extracting(AuditEvent::getAuditor).containsOnly(RequestAuditorAware.SYSTEM_AUDITOR);
+    }
+}
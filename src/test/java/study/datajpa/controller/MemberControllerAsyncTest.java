@@ -0,0 +1,91 @@
+package study.datajpa.controller;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// 비동기 조회는 `repositoryExecutor` 스레드에서 따로 트랜잭션을 열기 때문에 테스트 데이터를 커밋해두고 지운다.
+// 스레드 하나, 큐 없이 띄워서 스레드가 바쁘면 바로 거절되게 만든다.
+@SpringBootTest(properties = {"app.async.pool-size=1", "app.async.queue-capacity=0"})
+@AutoConfigureMockMvc
+class MemberControllerAsyncTest {
+
+    @Autowired MockMvc mockMvc;
+    @Autowired MemberRepository memberRepository;
+    @Autowired ThreadPoolTaskExecutor repositoryExecutor;
+
+    Member member;
+
+    @AfterEach
+    public void tearDown() {
+        if (member != null) {
+            memberRepository.delete(member);
+        }
+    }
+
+    @Test
+    public void findMemberAsync() throws Exception {
+        member = memberRepository.save(new Member("asyncMember", 10));
+
+        MvcResult started = mockMvc.perform(get("/async/members/{id}", member.getId()))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().string("asyncMember"));
+    }
+
+    @Test
+    public void missingMemberIsNotFound() throws Exception {
+        MvcResult started = mockMvc.perform(get("/async/members/{id}", Long.MAX_VALUE))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void rejectedWhenExecutorIsBusy() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        // 하나뿐인 스레드를 잡아둔다.
+        repositoryExecutor.execute(() -> {
+            started.countDown();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        started.await(10, TimeUnit.SECONDS);
+
+        try {
+            mockMvc.perform(get("/async/members/{id}", 1L))
+                    .andExpect(request().asyncNotStarted())
+                    .andExpect(status().isServiceUnavailable())
+                    .andExpect(header().string(HttpHeaders.RETRY_AFTER, "1"));
+        } finally {
+            release.countDown();
+        }
+    }
+}
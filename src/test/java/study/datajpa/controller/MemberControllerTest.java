@@ -0,0 +1,140 @@
+package study.datajpa.controller;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.support.QueryCountExtension;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static study.datajpa.support.QueryCountAssertions.assertSelectCount;
+import static study.datajpa.support.QueryCountAssertions.resetQueryCount;
+
+// 요청은 테스트 트랜잭션 밖에서 처리되니까 회원을 커밋해두고 끝나면 지운다.
+@SpringBootTest
+@AutoConfigureMockMvc
+@ExtendWith(QueryCountExtension.class)
+class MemberControllerTest {
+
+    @Autowired MockMvc mockMvc;
+    @Autowired MemberRepository memberRepository;
+
+    Member member;
+
+    @BeforeEach
+    public void setUp() {
+        member = memberRepository.save(new Member("controllerMember", 10));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        memberRepository.deleteById(member.getId());
+    }
+
+    @Test
+    public void memberNotModified() throws Exception {
+        notModifiedWithoutLoading("/members/{id}");
+    }
+
+    @Test
+    public void member2NotModified() throws Exception {
+        notModifiedWithoutLoading("/members2/{id}");
+    }
+
+    @Test
+    public void memberModifiedAfterUpdate() throws Exception {
+        String eTag = mockMvc.perform(get("/members/{id}", member.getId()))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        Member found = memberRepository.findById(member.getId()).get();
+        found.setAge(11);
+        memberRepository.save(found);
+
+        mockMvc.perform(get("/members/{id}", member.getId()).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1\""));
+    }
+
+    @Test
+    public void membersPageWeakETag() throws Exception {
+        String eTag = mockMvc.perform(get("/members").param("size", "3").param("sort", "id,desc"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(eTag).startsWith("W/\"");
+
+        mockMvc.perform(get("/members").param("size", "3").param("sort", "id,desc")
+                        .header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, eTag))
+                .andExpect(content().string(""));
+    }
+
+    // `Page` JSON 에서 쓰는 필드만 내려간다. (`pageable`, `sort` 등은 없음)
+    @Test
+    public void membersPageWireFormat() throws Exception {
+        mockMvc.perform(get("/members").param("size", "1").param("sort", "id,desc"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.content.length()").value(1))
+                .andExpect(jsonPath("$.content[0].id").value(member.getId()))
+                .andExpect(jsonPath("$.content[0].username").value("controllerMember"))
+                .andExpect(jsonPath("$.content[0].teamName").isEmpty())
+                .andExpect(jsonPath("$.number").value(0))
+                .andExpect(jsonPath("$.size").value(1))
+                .andExpect(jsonPath("$.totalElements").isNumber())
+                .andExpect(jsonPath("$.totalPages").isNumber())
+                .andExpect(jsonPath("$.first").value(true))
+                .andExpect(jsonPath("$.estimated").value(false))
+                .andExpect(jsonPath("$.pageable").doesNotExist())
+                .andExpect(jsonPath("$.sort").doesNotExist());
+    }
+
+    // 한 페이지가 꽉 차서 `count`가 필요하면 요청한 방법으로 센다.
+    @Test
+    public void membersPageCountStrategy() throws Exception {
+        mockMvc.perform(get("/members").param("size", "1").param("sort", "id,desc").param("count", "estimated"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].id").value(member.getId()))
+                .andExpect(jsonPath("$.estimated").value(true));
+    }
+
+    // 큰 페이지는 ETag 필터가 본문을 모으지 않고 그대로 흘려보낸다.
+    @Test
+    public void largePageIsStreamedWithoutETag() throws Exception {
+        mockMvc.perform(get("/members").param("size", "101").param("sort", "id,desc"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.ETAG))
+                .andExpect(jsonPath("$.content[0].id").value(member.getId()))
+                .andExpect(jsonPath("$.size").value(101));
+    }
+
+    // 처음에는 `@Version` 그대로 ETag 를 받고, 같은 ETag 로 다시 물어보면 버전만 읽고 304
+    private void notModifiedWithoutLoading(String path) throws Exception {
+        mockMvc.perform(get(path, member.getId()))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"0\""))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache"))
+                .andExpect(content().string("controllerMember"));
+
+        resetQueryCount();
+        mockMvc.perform(get(path, member.getId()).header(HttpHeaders.IF_NONE_MATCH, "\"0\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"0\""))
+                .andExpect(content().string(""));
+        // `findVersionById()` 하나 - 회원 엔티티는 불러오지 않는다.
+        assertSelectCount(1);
+    }
+}
@@ -0,0 +1,70 @@
+package study.datajpa.datasource;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.config.ReplicaDataSourceProperties;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// 메모리 H2 두 개를 프라이머리, 레플리카로 놓고 어느 쪽 커넥션을 받는지 확인한다.
+class ReplicationRoutingDataSourceTest {
+
+    DataSource primary = new DriverManagerDataSource("jdbc:h2:mem:routing-primary;DB_CLOSE_DELAY=-1", "sa", "");
+    DataSource replica = new DriverManagerDataSource("jdbc:h2:mem:routing-replica;DB_CLOSE_DELAY=-1", "sa", "");
+    ReplicaDataSourceProperties properties;
+
+    @BeforeEach
+    void setUp() {
+        properties = new ReplicaDataSourceProperties();
+        properties.setMaxLag(Duration.ofSeconds(10));
+    }
+
+    @Test
+    public void readOnlyTransactionGoesToReplica() {
+        ReplicaLagMonitor monitor = new ReplicaLagMonitor(replica, properties);
+        monitor.check();
+        DataSource dataSource = routingDataSource(monitor);
+
+        assertThat(monitor.isAvailable()).isTrue();
+        assertThat(currentDatabase(dataSource, true)).contains("routing-replica");
+        assertThat(currentDatabase(dataSource, false)).contains("routing-primary");
+        // 트랜잭션이 없으면 프라이머리
+        assertThat(currentDatabase(dataSource)).contains("routing-primary");
+    }
+
+    @Test
+    public void laggingReplicaFallsBackToPrimary() {
+        // 복제가 30초 밀린 상황
+        properties.setLagQuery("select 30");
+        ReplicaLagMonitor monitor = new ReplicaLagMonitor(replica, properties);
+        monitor.check();
+        DataSource dataSource = routingDataSource(monitor);
+
+        assertThat(monitor.isAvailable()).isFalse();
+        assertThat(currentDatabase(dataSource, true)).contains("routing-primary");
+    }
+
+    private DataSource routingDataSource(ReplicaLagMonitor monitor) {
+        return new LazyConnectionDataSourceProxy(new ReplicationRoutingDataSource(primary, replica, monitor));
+    }
+
+    // 트랜잭션 안에서 받은 커넥션의 DB
+    private static String currentDatabase(DataSource dataSource, boolean readOnly) {
+        TransactionTemplate tx = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        tx.setReadOnly(readOnly);
+        return tx.execute(status -> currentDatabase(dataSource));
+    }
+
+    private static String currentDatabase(DataSource dataSource) {
+        return new JdbcTemplate(dataSource).execute((ConnectionCallback<String>) connection -> connection.getMetaData().getURL());
+    }
+}
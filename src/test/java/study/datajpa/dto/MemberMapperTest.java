@@ -0,0 +1,34 @@
+package study.datajpa.dto;
+
+import org.junit.jupiter.api.Test;
+import org.mapstruct.factory.Mappers;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MemberMapperTest {
+
+    // 스프링 없이도 생성된 구현체(`MemberMapperImpl`)를 가져올 수 있다.
+    MemberMapper memberMapper = Mappers.getMapper(MemberMapper.class);
+
+    @Test
+    public void toDto() {
+        Member member = new Member("member1", 10, new Team("teamA"));
+
+        MemberDto dto = memberMapper.toDto(member);
+
+        assertThat(dto.getUsername()).isEqualTo("member1");
+        assertThat(dto.getTeamName()).isEqualTo("teamA");
+    }
+
+    @Test
+    public void toDtoWithoutTeam() {
+        Member member = new Member("member1", 10);
+
+        MemberDto dto = memberMapper.toDto(member);
+
+        assertThat(dto.getUsername()).isEqualTo("member1");
+        assertThat(dto.getTeamName()).isNull();
+    }
+}
@@ -0,0 +1,76 @@
+package study.datajpa.index;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UsernameIndexTest {
+
+    @Test
+    public void mightContainEverythingUntilBuilt() {
+        UsernameIndex index = new UsernameIndex(0.01, 10, 4);
+
+        assertThat(index.isReady()).isFalse();
+        assertThat(index.mightContain("nobody")).isTrue();
+
+        index.startRebuild(100);
+        index.addToRebuild("member1");
+        // 만드는 중에 가입한 회원도 새 필터에 들어간다.
+        index.added("member2");
+        index.finishRebuild();
+
+        assertThat(index.mightContain("member1")).isTrue();
+        assertThat(index.mightContain("member2")).isTrue();
+        assertThat(index.mightContain("nobody")).isFalse();
+        assertThat(index.getAbsent()).isEqualTo(1);
+    }
+
+    @Test
+    public void changeDuringQueryIsNotCached() {
+        UsernameIndex index = new UsernameIndex(0.01, 10, 4);
+
+        long generation = index.generation();
+        // 조회하는 사이에 다른 트랜잭션이 같은 이름을 커밋했다.
+        index.changed("member1");
+        index.loaded("member1", new long[]{1L}, generation);
+        assertThat(index.cachedIds("member1")).isNull();
+
+        index.loaded("member1", new long[]{1L, 2L}, index.generation());
+        assertThat(index.cachedIds("member1")).containsExactly(1L, 2L);
+
+        index.changed("member1");
+        assertThat(index.cachedIds("member1")).isNull();
+    }
+
+    @Test
+    public void nearCacheIsBounded() {
+        UsernameIndex index = new UsernameIndex(0.01, 2, 1);
+
+        index.loaded("a", new long[]{1L}, index.generation());
+        index.loaded("b", new long[]{2L}, index.generation());
+        index.loaded("c", new long[]{3L}, index.generation());
+        // id 가 너무 많은 이름은 캐시하지 않는다.
+        index.loaded("d", new long[]{4L, 5L}, index.generation());
+
+        assertThat(index.getNearCacheSize()).isEqualTo(2);
+        assertThat(index.cachedIds("a")).isNull();
+        assertThat(index.cachedIds("d")).isNull();
+        assertThat(index.getNearCacheBytes()).isPositive();
+    }
+
+    @Test
+    public void observedFalsePositiveRate() {
+        UsernameIndex index = new UsernameIndex(0.01, 10, 4);
+        index.startRebuild(100);
+        index.addToRebuild("member1");
+        index.finishRebuild();
+
+        index.mightContain("nobody");
+        // 필터는 통과했는데 DB 에 없던 이름
+        index.loaded("ghost", new long[0], index.generation());
+
+        assertThat(index.getObservedFalsePositiveRate()).isEqualTo(0.5);
+        // 빈 결과도 캐시해서 다음에는 DB 에 가지 않는다.
+        assertThat(index.cachedIds("ghost")).isEmpty();
+    }
+}
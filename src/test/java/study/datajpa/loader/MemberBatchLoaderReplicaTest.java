@@ -0,0 +1,62 @@
+package study.datajpa.loader;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.repository.TeamRepository;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// 레플리카를 메모리 H2 로 띄우고, 프라이머리의 회원/팀 테이블을 복사한 다음 이름만 바꿔둔다. (복제는 안 되니까 직접)
+// 배치로 조회한 회원 이름이 레플리카 쪽이면 읽기 전용 트랜잭션으로 레플리카에서 읽은 것이다.
+// 뜰 때는 레플리카에 테이블이 없으니까 시작하자마자 레플리카를 읽는 username 인덱스는 끈다.
+@SpringBootTest(properties = {
+        "app.datasource.replica.url=" + MemberBatchLoaderReplicaTest.REPLICA_URL,
+        "app.username-index.enabled=false"
+})
+class MemberBatchLoaderReplicaTest {
+
+    static final String REPLICA_URL = "jdbc:h2:mem:batch-loader-replica;DB_CLOSE_DELAY=-1";
+
+    @Autowired MemberRepository memberRepository;
+    @Autowired TeamRepository teamRepository;
+    @Autowired MemberBatchLoader memberBatchLoader;
+    @Value("${spring.datasource.url}") String primaryUrl;
+    @Autowired PlatformTransactionManager transactionManager;
+
+    @Test
+    public void batchReadsFromReplica() {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        Long id = tx.execute(status -> {
+            Team team = teamRepository.save(new Team("replicaTeam"));
+            return memberRepository.save(new Member("primaryMember", 10, team)).getId();
+        });
+
+        List<String> script = new JdbcTemplate(new DriverManagerDataSource(primaryUrl, "sa", "")).queryForList("script drop table member, team", String.class);
+        JdbcTemplate replica = new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "sa", ""));
+        script.forEach(replica::execute);
+        replica.update("update member set username = ? where member_id = ?", "replicaMember", id);
+
+        // 트랜잭션 밖이라 `MemberBatchLoader`로 간다.
+        long requestsBefore = memberBatchLoader.getRequests();
+        Member member = memberRepository.findById(id).get();
+        assertThat(memberBatchLoader.getRequests()).isEqualTo(requestsBefore + 1);
+        assertThat(member.getUsername()).isEqualTo("replicaMember");
+        // 팀도 레플리카에서 초기화해서 준영속 상태로 읽을 수 있다.
+        assertThat(member.getTeam().getName()).isEqualTo("replicaTeam");
+
+        // 쓰기 트랜잭션 안에서는 원래대로 프라이머리
+        String username = tx.execute(status -> memberRepository.findById(id).get().getUsername());
+        assertThat(username).isEqualTo("primaryMember");
+    }
+}
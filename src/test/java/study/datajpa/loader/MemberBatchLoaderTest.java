@@ -0,0 +1,132 @@
+package study.datajpa.loader;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.repository.TeamRepository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// 여러 스레드가 트랜잭션 밖에서 `findById()`를 불러야 해서 테스트를 `@Transactional`로 묶지 않는다.
+// 동시에 들어온 호출이 확실히 한 배치로 모이도록 `window`를 넉넉히 준다.
+@SpringBootTest(properties = {"app.member-batch-loader.window=50ms", "app.member-batch-loader.concurrency=1"})
+class MemberBatchLoaderTest {
+
+    static final int THREADS = 16;
+
+    @Autowired MemberRepository memberRepository;
+    @Autowired TeamRepository teamRepository;
+    @Autowired MemberBatchLoader memberBatchLoader;
+    @Autowired PlatformTransactionManager transactionManager;
+    @PersistenceContext EntityManager entityManager;
+
+    @Test
+    public void concurrentFindByIdIsCoalesced() throws Exception {
+        List<Long> ids = new TransactionTemplate(transactionManager).execute(status -> {
+            Team team = teamRepository.save(new Team("batchTeam"));
+            List<Long> saved = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                saved.add(memberRepository.save(new Member("batchMember" + i, i, team)).getId());
+            }
+            return saved;
+        });
+
+        long requestsBefore = memberBatchLoader.getRequests();
+        long batchesBefore = memberBatchLoader.getBatches();
+        long deduplicatedBefore = memberBatchLoader.getDeduplicated();
+
+        // 16개 스레드가 회원 4명 + 없는 회원 하나를 나눠서 조회한다.
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Optional<Member>>> results = new ArrayList<>();
+        List<Long> requested = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            Long id = i % 5 == 4 ? -1L : ids.get(i % 5);
+            requested.add(id);
+            results.add(executor.submit(() -> {
+                start.await();
+                return memberRepository.findById(id);
+            }));
+        }
+        start.countDown();
+
+        for (int i = 0; i < THREADS; i++) {
+            Optional<Member> member = results.get(i).get();
+            if (requested.get(i) == -1L) {
+                assertThat(member).isEmpty();
+            } else {
+                assertThat(member.get().getId()).isEqualTo(requested.get(i));
+                // 팀은 같이 가져와서 트랜잭션 밖에서도 읽을 수 있다.
+                assertThat(member.get().getTeam().getName()).isEqualTo("batchTeam");
+            }
+        }
+        executor.shutdown();
+
+        assertThat(memberBatchLoader.getRequests() - requestsBefore).isEqualTo(THREADS);
+        // 같은 id 를 조회 중이면 결과를 같이 받는다.
+        assertThat(memberBatchLoader.getDeduplicated() - deduplicatedBefore).isPositive();
+        assertThat(memberBatchLoader.getBatches() - batchesBefore).isLessThan(THREADS);
+    }
+
+    @Test
+    public void sameIdGetsOwnCopy() throws Exception {
+        Long id = new TransactionTemplate(transactionManager).execute(status -> {
+            Team team = teamRepository.save(new Team("batchCopyTeam"));
+            return memberRepository.save(new Member("batchCopyMember", 10, team)).getId();
+        });
+
+        long deduplicatedBefore = memberBatchLoader.getDeduplicated();
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Optional<Member>>> results = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            results.add(executor.submit(() -> {
+                start.await();
+                return memberRepository.findById(id);
+            }));
+        }
+        start.countDown();
+        Member first = results.get(0).get().get();
+        Member second = results.get(1).get().get();
+        executor.shutdown();
+
+        // 한 조회 결과를 같이 받았어도 서로 다른 객체다. 한쪽이 고쳐도 다른 쪽은 그대로다.
+        assertThat(memberBatchLoader.getDeduplicated() - deduplicatedBefore).isEqualTo(1);
+        assertThat(first).isNotSameAs(second);
+        assertThat(first.getTeam()).isNotSameAs(second.getTeam());
+        first.setAge(20);
+        first.getTeam().setName("changedTeam");
+        assertThat(second.getAge()).isEqualTo(10);
+        assertThat(second.getTeam().getName()).isEqualTo("batchCopyTeam");
+        assertThat(second.getVersion()).isEqualTo(first.getVersion());
+        assertThat(second.getCreatedDate()).isEqualTo(first.getCreatedDate());
+    }
+
+    @Test
+    public void insideTransactionUsesPersistenceContext() {
+        Long id = new TransactionTemplate(transactionManager)
+                .execute(status -> memberRepository.save(new Member("batchMemberTx", 10)).getId());
+
+        long requestsBefore = memberBatchLoader.getRequests();
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            Member member = memberRepository.findById(id).get();
+            assertThat(entityManager.contains(member)).isTrue();
+        });
+        assertThat(memberBatchLoader.getRequests()).isEqualTo(requestsBefore);
+    }
+}
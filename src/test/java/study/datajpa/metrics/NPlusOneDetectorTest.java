@@ -0,0 +1,95 @@
+package study.datajpa.metrics;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// 하이버네이트가 부르는 `CountingStatementInspector`를 직접 불러서 같은 select 가 반복되는 상황을 만든다.
+class NPlusOneDetectorTest {
+
+    static final String TEAM_SELECT = "select team0_.team_id as team_id1_3_0_, team0_.name as name2_3_0_ from team team0_ where team0_.team_id=?";
+    static final String MEMBER_SELECT = "select member0_.member_id as member_i1_1_ from member member0_";
+
+    Logger detectorLogger = (Logger) LoggerFactory.getLogger(NPlusOneDetector.class);
+    ListAppender<ILoggingEvent> appender = new ListAppender<>();
+    QueryScope scope;
+
+    @BeforeEach
+    public void setUp() {
+        appender.start();
+        detectorLogger.addAppender(appender);
+        scope = QueryScope.begin("NPlusOneDetectorTest");
+    }
+
+    @AfterEach
+    public void tearDown() {
+        scope.close();
+        detectorLogger.detachAppender(appender);
+    }
+
+    @Test
+    public void logModeWarnsOnceAtThreshold() {
+        CountingStatementInspector inspector = new CountingStatementInspector(new NPlusOneDetector(NPlusOneDetector.Mode.LOG, 3));
+
+        inspector.inspect(MEMBER_SELECT);
+        for (int i = 0; i < 5; i++) {
+            inspector.inspect(TEAM_SELECT);
+        }
+
+        // 3번째에 한 번만 남기고, 그 뒤로는 같은 경고를 반복하지 않는다.
+        assertThat(appender.list).hasSize(1);
+        assertThat(appender.list.get(0).getFormattedMessage())
+                .contains("NPlusOneDetectorTest")
+                .contains("3번")
+                .contains(TEAM_SELECT);
+        assertThat(scope.getSelectCount()).isEqualTo(6);
+    }
+
+    @Test
+    public void failModeThrowsAtThreshold() {
+        CountingStatementInspector inspector = new CountingStatementInspector(new NPlusOneDetector(NPlusOneDetector.Mode.FAIL, 3));
+
+        inspector.inspect(TEAM_SELECT);
+        inspector.inspect(TEAM_SELECT);
+        inspector.inspect(MEMBER_SELECT);
+
+        assertThatThrownBy(() -> inspector.inspect(TEAM_SELECT))
+                .isInstanceOf(NPlusOneQueryException.class)
+                .hasMessageContaining("NPlusOneDetectorTest")
+                .hasMessageContaining("3번")
+                .hasMessageContaining(TEAM_SELECT);
+        assertThat(appender.list).isEmpty();
+    }
+
+    @Test
+    public void belowThresholdOrOffIsQuiet() {
+        CountingStatementInspector fail = new CountingStatementInspector(new NPlusOneDetector(NPlusOneDetector.Mode.FAIL, 3));
+        fail.inspect(TEAM_SELECT);
+        fail.inspect(TEAM_SELECT);
+
+        CountingStatementInspector off = new CountingStatementInspector(new NPlusOneDetector(NPlusOneDetector.Mode.OFF, 3));
+        for (int i = 0; i < 5; i++) {
+            off.inspect(TEAM_SELECT);
+        }
+
+        assertThat(appender.list).isEmpty();
+    }
+
+    @Test
+    public void outsideScopeIsIgnored() {
+        scope.close();
+        CountingStatementInspector inspector = new CountingStatementInspector(new NPlusOneDetector(NPlusOneDetector.Mode.FAIL, 2));
+
+        inspector.inspect(TEAM_SELECT);
+        inspector.inspect(TEAM_SELECT);
+
+        assertThat(appender.list).isEmpty();
+    }
+}
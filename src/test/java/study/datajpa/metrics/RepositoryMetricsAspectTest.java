@@ -0,0 +1,97 @@
+package study.datajpa.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberJpaRepository;
+import study.datajpa.repository.MemberRepository;
+
+import javax.persistence.EntityManager;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// 미터 레지스트리는 다른 테스트와 같이 쓰기 때문에 호출 전후 차이로 확인한다.
+@SpringBootTest
+@Transactional
+class RepositoryMetricsAspectTest {
+
+    @Autowired MemberRepository memberRepository;
+    @Autowired MemberJpaRepository memberJpaRepository;
+    @Autowired RepositoryMetricsEndpoint repositoryMetricsEndpoint;
+    @Autowired MeterRegistry meterRegistry;
+    @Autowired EntityManager em;
+
+    @BeforeEach
+    public void setUp() {
+        memberRepository.save(new Member("metricsMember", 10, null));
+        memberRepository.save(new Member("metricsMember", 20, null));
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    public void recordsSpringDataRepository() {
+        long invocations = timerCount("MemberRepository", "findByUsername");
+        double rows = summaryTotal("repository.rows", "MemberRepository", "findByUsername");
+        double statements = summaryTotal("repository.statements", "MemberRepository", "findByUsername");
+        double entities = summaryTotal("repository.entities.loaded", "MemberRepository", "findByUsername");
+
+        memberRepository.findByUsername("metricsMember");
+
+        // 프록시(`$Proxy..`) 이름이 아니라 리포지토리 인터페이스 이름으로 기록된다.
+        assertThat(timerCount("MemberRepository", "findByUsername")).isEqualTo(invocations + 1);
+        assertThat(summaryTotal("repository.rows", "MemberRepository", "findByUsername")).isEqualTo(rows + 2);
+        assertThat(summaryTotal("repository.statements", "MemberRepository", "findByUsername")).isEqualTo(statements + 1);
+        assertThat(summaryTotal("repository.entities.loaded", "MemberRepository", "findByUsername")).isEqualTo(entities + 2);
+    }
+
+    @Test
+    public void recordsRepositoryClass() {
+        long invocations = timerCount("MemberJpaRepository", "totalCount");
+        double statements = summaryTotal("repository.statements", "MemberJpaRepository", "totalCount");
+
+        memberJpaRepository.totalCount(10);
+
+        assertThat(timerCount("MemberJpaRepository", "totalCount")).isEqualTo(invocations + 1);
+        assertThat(summaryTotal("repository.statements", "MemberJpaRepository", "totalCount")).isEqualTo(statements + 1);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void endpointGroupsByMethod() {
+        memberRepository.findByUsername("metricsMember");
+
+        Map<String, Object> repositories = repositoryMetricsEndpoint.repositories();
+
+        assertThat(repositories).containsKey("MemberRepository.findByUsername");
+        Map<String, Object> findByUsername = (Map<String, Object>) repositories.get("MemberRepository.findByUsername");
+        assertThat(findByUsername).containsKeys("count", "meanMs", "maxMs", "p50Ms", "p99Ms", "p999Ms",
+                "rows", "statements", "entitiesLoaded");
+        assertThat(findByUsername.get("count")).isEqualTo(timerCount("MemberRepository", "findByUsername"));
+        assertThat((double) findByUsername.get("statements"))
+                .isEqualTo(summaryTotal("repository.statements", "MemberRepository", "findByUsername"));
+    }
+
+    private long timerCount(String repository, String method) {
+        Timer timer = meterRegistry.find("repository.invocations")
+                .tag("repository", repository)
+                .tag("method", method)
+                .timer();
+        return timer == null ? 0 : timer.count();
+    }
+
+    private double summaryTotal(String name, String repository, String method) {
+        DistributionSummary summary = meterRegistry.find(name)
+                .tag("repository", repository)
+                .tag("method", method)
+                .summary();
+        return summary == null ? 0 : summary.totalAmount();
+    }
+}
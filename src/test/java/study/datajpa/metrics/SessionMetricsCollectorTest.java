@@ -0,0 +1,115 @@
+package study.datajpa.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SessionMetricsCollectorTest {
+
+    @Test
+    public void windowForgetsOldBuckets() {
+        MutableClock clock = new MutableClock();
+        SessionMetricsCollector collector = new SessionMetricsCollector(Duration.ofSeconds(60), 6, clock, 100, 10, 5);
+
+        collector.record("GET /members/{id}", "GET /members/1", loaded(10), 1_000);
+        clock.advance(Duration.ofSeconds(30));
+        collector.record("GET /members/{id}", "GET /members/2", loaded(30), 3_000);
+
+        Map<String, Object> all = all(collector);
+        assertThat(all.get("requests")).isEqualTo(2L);
+        assertThat(metric(all, "entitiesLoaded")).containsEntry("total", 40L).containsEntry("max", 30L).containsEntry("mean", 20.0);
+
+        // 첫 번째 요청이 들어간 칸이 한 바퀴 지났다.
+        clock.advance(Duration.ofSeconds(35));
+        all = all(collector);
+        assertThat(all.get("requests")).isEqualTo(1L);
+        assertThat(metric(all, "entitiesLoaded")).containsEntry("total", 30L);
+
+        clock.advance(Duration.ofMinutes(5));
+        assertThat(all(collector).get("requests")).isEqualTo(0L);
+    }
+
+    @Test
+    public void alarmsOnTooManyEntities() {
+        SessionMetricsCollector collector = new SessionMetricsCollector(Duration.ofSeconds(60), 6, new MutableClock(), 100, 10, 2);
+
+        collector.record("GET /members", "GET /members", loaded(100), 1_000);
+        assertThat(collector.getAlarmCount()).isEqualTo(0);
+
+        collector.record("GET /members", "GET /members?size=1000", loaded(1_000), 1_000);
+        collector.record("GET /members", "GET /members?size=2000", loaded(2_000), 1_000);
+        collector.record("GET /members", "GET /members?size=3000", loaded(3_000), 1_000);
+
+        assertThat(collector.getAlarmCount()).isEqualTo(3);
+        // 최근 것부터 `recentAlarms`개만 남는다.
+        assertThat(recentAlarms(collector))
+                .extracting(alarm -> alarm.get("request"))
+                .containsExactly("GET /members?size=3000", "GET /members?size=2000");
+    }
+
+    @Test
+    public void routesOverLimitGoToOther() {
+        SessionMetricsCollector collector = new SessionMetricsCollector(Duration.ofSeconds(60), 6, new MutableClock(), 100, 2, 5);
+
+        collector.record("GET /a", "GET /a", loaded(1), 1_000);
+        collector.record("GET /b", "GET /b", loaded(1), 1_000);
+        collector.record("GET /c", "GET /c", loaded(1), 1_000);
+        collector.record("GET /a", "GET /a", loaded(1), 1_000);
+
+        @SuppressWarnings("unchecked")
+        Map<String, Map<String, Object>> routes = (Map<String, Map<String, Object>>) collector.summary().get("routes");
+        assertThat(routes).containsOnlyKeys("GET /a", "GET /b", SessionMetricsCollector.OTHER_ROUTE);
+        assertThat(routes.get("GET /a").get("requests")).isEqualTo(2L);
+    }
+
+    private static SessionMetrics loaded(long entities) {
+        return new SessionMetrics(1, entities, 0, 0, 0, 1, entities, 0, 1, 0, 0, 0, entities);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> all(SessionMetricsCollector collector) {
+        return (Map<String, Object>) collector.summary().get("all");
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> metric(Map<String, Object> summary, String name) {
+        return (Map<String, Object>) summary.get(name);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Map<String, Object>> recentAlarms(SessionMetricsCollector collector) {
+        Map<String, Object> alarms = (Map<String, Object>) collector.summary().get("alarms");
+        return (List<Map<String, Object>>) alarms.get("recent");
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now = Instant.parse("2021-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
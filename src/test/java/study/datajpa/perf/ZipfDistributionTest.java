@@ -0,0 +1,57 @@
+package study.datajpa.perf;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class ZipfDistributionTest {
+
+    private static final int SAMPLES = 200_000;
+
+    @Test
+    public void followsPowerLaw() {
+        int n = 100;
+        double exponent = 1.0;
+        long[] counts = sample(new ZipfDistribution(n, exponent), n);
+
+        double harmonic = 0;
+        for (int k = 1; k <= n; k++) {
+            harmonic += Math.pow(k, -exponent);
+        }
+        // 1등은 전체의 1 / H(100) = 약 19%, 2등은 그 절반
+        assertThat((double) counts[1] / SAMPLES).isCloseTo(1 / harmonic, within(0.01));
+        assertThat((double) counts[2] / SAMPLES).isCloseTo(0.5 / harmonic, within(0.01));
+    }
+
+    @Test
+    public void zeroExponentIsUniform() {
+        int n = 10;
+        long[] counts = sample(new ZipfDistribution(n, 0), n);
+
+        for (int k = 1; k <= n; k++) {
+            assertThat((double) counts[k] / SAMPLES).isCloseTo(0.1, within(0.01));
+        }
+    }
+
+    @Test
+    public void staysInRangeForLargeN() {
+        ZipfDistribution distribution = new ZipfDistribution(10_000_000, 1.1);
+        SplittableRandom random = new SplittableRandom(1);
+
+        for (int i = 0; i < SAMPLES; i++) {
+            assertThat(distribution.sample(random)).isBetween(1L, 10_000_000L);
+        }
+    }
+
+    private static long[] sample(ZipfDistribution distribution, int n) {
+        SplittableRandom random = new SplittableRandom(42);
+        long[] counts = new long[n + 1];
+        for (int i = 0; i < SAMPLES; i++) {
+            counts[(int) distribution.sample(random)]++;
+        }
+        return counts;
+    }
+}
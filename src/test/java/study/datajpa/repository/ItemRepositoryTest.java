@@ -5,6 +5,12 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import study.datajpa.entity.Item;
 
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
 @SpringBootTest
 class ItemRepositoryTest {
 
@@ -20,4 +26,23 @@ class ItemRepositoryTest {
          Item item = new Item("A");
          itemRepository.save(item);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void insertAllAndUpsertAll() {
+        int inserted = itemRepository.insertAll(items("ingest1", "ingest2", "ingest3"));
+
+        // 같은 메시지가 다시 들어와도 이미 있는 id는 건너뛴다.
+        int upserted = itemRepository.upsertAll(items("ingest2", "ingest3", "ingest4", "ingest5"));
+
+        assertThat(inserted).isEqualTo(3);
+        assertThat(upserted).isEqualTo(2);
+        assertThat(itemRepository.findAllById(Arrays.asList("ingest1", "ingest2", "ingest3", "ingest4", "ingest5")))
+                .hasSize(5);
+    }
+
+    private static List<Item> items(String... ids) {
+        return Arrays.stream(ids)
+                .map(Item::new)
+                .collect(Collectors.toList());
+    }
+}
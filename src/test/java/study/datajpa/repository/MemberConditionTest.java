@@ -0,0 +1,27 @@
+package study.datajpa.repository;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MemberConditionTest {
+
+    @Test
+    public void sameStructureSharesJpql() {
+        MemberCondition a = MemberSpec.username("m1").and(MemberSpec.teamName("teamA"));
+        // 순서와 값이 달라도 구조가 같으면 같은 JPQL
+        MemberCondition b = MemberSpec.teamName("teamB").and(MemberSpec.username("m2"));
+
+        assertThat(a.structureKey()).isEqualTo("USERNAME&TEAM_NAME");
+        assertThat(b.structureKey()).isEqualTo(a.structureKey());
+        assertThat(a.toJpql()).isEqualTo("select m from Member m join m.team t where m.username = :p0 and t.name = :p1");
+    }
+
+    @Test
+    public void blankTeamNameDropsJoin() {
+        MemberCondition condition = MemberSpec.username("m1").and(MemberSpec.teamName(""));
+
+        assertThat(condition.structureKey()).isEqualTo("USERNAME");
+        assertThat(condition.toJpql()).isEqualTo("select m from Member m where m.username = :p0");
+    }
+}
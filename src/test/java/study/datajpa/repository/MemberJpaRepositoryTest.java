@@ -4,10 +4,12 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.annotation.Rollback;
+import study.datajpa.dto.MemberVersion;
 import study.datajpa.entity.Member;
 
 import javax.transaction.Transactional;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.*;
@@ -17,6 +19,8 @@ import static org.assertj.core.api.Assertions.*;
 @Rollback(value = false)
 class MemberJpaRepositoryTest {
     @Autowired MemberJpaRepository memberJpaRepository;
+    @Autowired BulkJpaRepository bulkJpaRepository;
+    @Autowired MemberRepository memberRepository;
 
     @Test
     void testMember() {
@@ -132,4 +136,33 @@ class MemberJpaRepositoryTest {
         int resultCount = memberJpaRepository.bulkAgePlus(20);
         assertThat(resultCount).isEqualTo(2);
     }
-}
\ No newline at end of file
+
+    // 벌크 수정도 ETag(`@Version`)와 `Last-Modified`가 바뀌어야 조건부 GET 이 예전 304 를 주지 않는다.
+    @Test
+    @Rollback
+    public void bulkAgePlusBumpsVersion() {
+        Member member = memberJpaRepository.save(new Member("bulkVersionMember", 123470, null));
+        MemberVersion before = memberRepository.findVersionById(member.getId()).get();
+
+        memberJpaRepository.bulkAgePlus(123470);
+
+        MemberVersion after = memberRepository.findVersionById(member.getId()).get();
+        assertThat(after.getVersion()).isEqualTo(before.getVersion() + 1);
+        assertThat(after.getUpdatedDate()).isAfterOrEqualTo(before.getUpdatedDate());
+    }
+
+    @Test
+    public void persistAllInChunks() {
+        List<Member> members = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            members.add(new Member("bulkMember", i));
+        }
+
+        // 배치 크기(50)마다 `flush()` + `clear()` 되고, 시퀀스도 50개 단위로만 호출된다.
+        int savedCount = bulkJpaRepository.persistAll(members);
+
+        assertThat(savedCount).isEqualTo(120);
+        assertThat(members).allMatch(member -> member.getId() != null);
+        assertThat(memberJpaRepository.findByUsername("bulkMember").size()).isEqualTo(120);
+    }
+}
@@ -2,14 +2,22 @@ package study.datajpa.repository;
 
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.domain.*;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.test.annotation.Rollback;
+import study.datajpa.dto.CursorPage;
+import study.datajpa.dto.MemberCursor;
 import study.datajpa.dto.MemberDto;
+import study.datajpa.dto.MemberVersion;
 import study.datajpa.entity.Member;
 import study.datajpa.entity.Team;
+import study.datajpa.metrics.SessionMetrics;
+import study.datajpa.support.QueryCountAssertions;
+import study.datajpa.support.QueryCountExtension;
 
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
@@ -19,12 +27,17 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static study.datajpa.support.QueryCountAssertions.assertSelectCount;
+import static study.datajpa.support.QueryCountAssertions.resetQueryCount;
 
 @SpringBootTest
 @Transactional
 @Rollback(value = false)
+@ExtendWith(QueryCountExtension.class)
 public class MemberRepositoryTest {
     @Autowired MemberRepository memberRepository;
     @Autowired TeamRepository teamRepository;
@@ -179,6 +192,28 @@ public class MemberRepositoryTest {
         }
     }
 
+    @Test
+    public void streamMemberDto() {
+        Team t1 = new Team("ATeam");
+        teamRepository.save(t1);
+
+        memberRepository.save(new Member("streamMember1", 10, t1));
+        memberRepository.save(new Member("streamMember2", 10, null));
+
+        entityManager.flush();
+        entityManager.clear();
+
+        // `left join`이라 팀이 없는 회원도 빠지지 않는다.
+        // 다른 테스트가 커밋한 회원(이름 없는 회원 포함)이 남아있을 수 있어서 이름으로 거른다.
+        try (Stream<MemberDto> stream = memberRepository.streamMemberDto()) {
+            List<MemberDto> result = stream
+                    .filter(dto -> dto.getUsername() != null && dto.getUsername().startsWith("streamMember"))
+                    .collect(Collectors.toList());
+
+            assertThat(result).extracting("teamName").containsExactlyInAnyOrder("ATeam", null);
+        }
+    }
+
     @Test
     public void findByNames() {
         Member m1 = new Member("AAA", 10, null);
@@ -312,6 +347,106 @@ public class MemberRepositoryTest {
         Page<Member> memberPage = memberRepository.findSplitCountByAge(age, pageRequest);
     }
 
+    @Test
+    public void pagingKeyset() {
+        // 다른 테스트에서 남긴 회원과 섞이지 않는 나이대(123451~123454)를 쓴다.
+        // 전체 회원 나이를 올리는 벌크 테스트도 있어서 맨 앞에 온다는 보장이 없으니, 첫 페이지도 그 바로 위(123455)부터 읽는다.
+        memberRepository.save(new Member("member1", 123451, null));
+        memberRepository.save(new Member("member2", 123452, null));
+        memberRepository.save(new Member("member3", 123452, null));
+        memberRepository.save(new Member("member4", 123453, null));
+        memberRepository.save(new Member("member5", 123454, null));
+
+        int limit = 2;
+        PageRequest pageRequest = PageRequest.of(0, limit + 1);
+
+        CursorPage<Member> first = CursorPage.of(memberRepository.findNextByAgeDesc(123455, 0L, pageRequest), limit,
+                member -> MemberCursor.of(member.getAge(), member.getId()));
+
+        assertThat(first.getContent()).extracting("username").containsExactly("member5", "member4");
+        assertThat(first.isHasNext()).isTrue();
+
+        // 같은 나이(123452)가 두 페이지에 걸쳐 있어도 `id`로 이어가기 때문에 빠지거나 겹치는 row 가 없다.
+        MemberCursor cursor = MemberCursor.decode(first.getNextCursor());
+        CursorPage<Member> second = CursorPage.of(memberRepository.findNextByAgeDesc(cursor.getAgeKey(), cursor.getId(), pageRequest), limit,
+                member -> MemberCursor.of(member.getAge(), member.getId()));
+
+        assertThat(second.getContent()).extracting("username").containsExactly("member3", "member2");
+        assertThat(second.isHasNext()).isTrue();
+
+        cursor = MemberCursor.decode(second.getNextCursor());
+        CursorPage<Member> last = CursorPage.of(memberRepository.findNextByAgeDesc(cursor.getAgeKey(), cursor.getId(), pageRequest), limit,
+                member -> MemberCursor.of(member.getAge(), member.getId()));
+
+        assertThat(last.getContent().get(0).getUsername()).isEqualTo("member1");
+    }
+
+    @Test
+    @Rollback
+    public void pagingKeysetByAge() {
+        // 다른 테스트에서 남긴 회원과 섞이지 않는 나이
+        Member member1 = memberRepository.save(new Member("ageKeyset1", 123460, null));
+        Member member2 = memberRepository.save(new Member("ageKeyset2", 123460, null));
+        Member member3 = memberRepository.save(new Member("ageKeyset3", 123460, null));
+        memberRepository.save(new Member("otherAge", 123461, null));
+
+        List<Member> first = memberRepository.findByAgeOrderByIdDesc(123460, PageRequest.of(0, 2));
+        assertThat(first).containsExactly(member3, member2);
+
+        Member last = first.get(first.size() - 1);
+        List<Member> next = memberRepository.findNextByAge(123460, last.getId(), PageRequest.of(0, 2));
+        assertThat(next).containsExactly(member1);
+    }
+
+    @Test
+    @Rollback
+    public void pagingKeysetByUsernameWithNull() {
+        // 다른 테스트에서 남긴 이름보다 뒤에 오도록 `zzz`로 시작하게 했다. `username`이 없는 회원은 맨 앞(H2 인덱스 순서)
+        Member member1 = memberRepository.save(new Member("zzzKeyset1", 10, null));
+        Member member2 = memberRepository.save(new Member("zzzKeyset2", 10, null));
+        Member noName1 = memberRepository.save(new Member(null, 10, null));
+        Member noName2 = memberRepository.save(new Member(null, 10, null));
+
+        assertThat(memberRepository.findAllOrderByUsernameAsc(PageRequest.of(0, 1)))
+                .extracting(Member::getUsername).containsOnlyNulls();
+
+        MemberCursor start = MemberCursor.of("zzzKeyset0", 0L);
+        List<Member> named = memberRepository.findNextByUsernameAsc(start.getKey(), start.getId(), PageRequest.of(0, 2));
+        assertThat(named).containsExactly(member1, member2);
+
+        // 같은 이름 안에서는 `id`로 이어간다.
+        assertThat(memberRepository.findNextByUsernameAsc(member1.getUsername(), member1.getId(), PageRequest.of(0, 1)))
+                .containsExactly(member2);
+
+        // "null" 이라는 문자열이 아니라 `null`로 돌아와야 한다.
+        MemberCursor afterNoName1 = MemberCursor.decode(MemberCursor.of(noName1.getUsername(), noName1.getId()).encode());
+        assertThat(afterNoName1.getKey()).isNull();
+        assertThat(memberRepository.findNextByNullUsernameAsc(afterNoName1.getId(), PageRequest.of(0, 100)))
+                .contains(noName2)
+                .doesNotContain(noName1);
+
+        // `null` 구간이 끝나면 이름 있는 회원부터
+        assertThat(memberRepository.findNamedOrderByUsernameAsc(PageRequest.of(0, 100)))
+                .extracting(Member::getUsername).doesNotContainNull();
+    }
+
+    // 키셋 조회가 인덱스 범위를 타는지 H2 실행 계획으로 확인한다. (하이버네이트가 만드는 SQL 과 같은 조건)
+    @Test
+    public void pagingKeysetUsesIndexRange() {
+        assertThat(explain("select * from member m where m.username >= 'a' and (m.username > 'a' or m.member_id > 1)" +
+                " order by m.username, m.member_id limit 3"))
+                .contains("IDX_MEMBER_USERNAME_ID: USERNAME >= 'a'")
+                .contains("index sorted");
+        assertThat(explain("select * from member m where m.username is null and m.member_id > 1 order by m.member_id limit 3"))
+                .contains("IDX_MEMBER_USERNAME_ID: USERNAME IS NULL");
+        assertThat(explain("select * from member m where m.age = 10 and m.member_id < 100 order by m.member_id desc limit 3"))
+                .contains("IDX_MEMBER_AGE_ID: AGE = 10");
+    }
+
+    private String explain(String sql) {
+        return String.valueOf(entityManager.createNativeQuery("explain " + sql).getSingleResult());
+    }
+
     @Test
     public void bulkUpdate() {
         memberRepository.save(new Member("member1", 10, null));
@@ -355,6 +490,8 @@ public class MemberRepositoryTest {
         entityManager.flush();
         entityManager.clear();
 
+        resetQueryCount();
+
         // 조인을 적절히 해주지 않으면, `N+1` 문제가 발생한다.
         // ORM이 만들어주는 문제
         List<Member> members = memberRepository.findAll();
@@ -366,6 +503,134 @@ public class MemberRepositoryTest {
             System.out.println("member.getTeam().getClass() = " + member.getTeam().getClass());
             System.out.println("member.getTeam().getName() = " + member.getTeam().getName());
         }
+
+        // `findAll()`은 `@EntityGraph`로 팀까지 같이 가져오기 때문에 select 는 1번
+        assertSelectCount(1);
+    }
+
+    @Test
+    public void findMemberLazyBatchFetch() {
+        // given
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+
+        teamRepository.save(teamA);
+        teamRepository.save(teamB);
+
+        memberRepository.save(new Member("member1", 10, teamA));
+        memberRepository.save(new Member("member2", 15, teamB));
+
+        entityManager.flush();
+        entityManager.clear();
+        resetQueryCount();
+
+        // when
+        // 팀을 같이 가져오지 않는 쿼리라서 `member.getTeam()`은 프록시
+        List<Member> members = memberRepository.findMemberList(Pageable.unpaged());
+        for (Member member : members) {
+            if (member.getTeam() != null) {
+                member.getTeam().getName();
+            }
+        }
+
+        // then
+        // 회원 조회 1번 + 팀 프록시 초기화 (`default_batch_fetch_size=100`이라 팀 100개마다 1번)
+        long teamCount = members.stream()
+                .filter(member -> member.getTeam() != null)
+                .map(member -> member.getTeam().getId())
+                .distinct()
+                .count();
+        assertSelectCount(1 + (teamCount + 99) / 100);
+    }
+
+    @Test
+    public void findTeamMembersBatchFetch() {
+        // given
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+
+        teamRepository.save(teamA);
+        teamRepository.save(teamB);
+
+        memberRepository.save(new Member("member1", 10, teamA));
+        memberRepository.save(new Member("member2", 15, teamA));
+        memberRepository.save(new Member("member3", 20, teamB));
+
+        entityManager.flush();
+        entityManager.clear();
+        resetQueryCount();
+
+        // when
+        List<Team> teams = teamRepository.findAllById(Arrays.asList(teamA.getId(), teamB.getId()));
+        int memberCount = teams.stream()
+                .mapToInt(team -> team.getMembers().size())
+                .sum();
+
+        // then
+        // 팀 조회 1번 + 두 팀의 `members` 컬렉션을 `in (?, ?)` 한 번으로 초기화
+        assertThat(memberCount).isEqualTo(3);
+        assertSelectCount(2);
+    }
+
+    @Test
+    public void findVersionById() {
+        Member member = memberRepository.save(new Member("member1", 10));
+        entityManager.flush();
+
+        MemberVersion created = memberRepository.findVersionById(member.getId()).get();
+        assertThat(created.getVersion()).isEqualTo(0L);
+        assertThat(created.getLastModified()).isPositive();
+
+        // 수정되면 ETag 가 바뀐다.
+        member.setAge(11);
+        entityManager.flush();
+        MemberVersion updated = memberRepository.findVersionById(member.getId()).get();
+        assertThat(updated.getETag()).isNotEqualTo(created.getETag());
+
+        assertThat(memberRepository.findVersionById(-1L)).isEmpty();
+    }
+
+    @Test
+    public void sessionMetrics() {
+        // given
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+
+        teamRepository.save(teamA);
+        teamRepository.save(teamB);
+
+        Member member1 = new Member("member1", 10, teamA);
+        memberRepository.save(member1);
+        memberRepository.save(new Member("member2", 15, teamB));
+
+        entityManager.flush();
+        entityManager.clear();
+        resetQueryCount();
+
+        // when
+        // 회원만 조회하고 팀 프록시를 초기화한다.
+        List<Member> members = memberRepository.findMemberList(Pageable.unpaged());
+        for (Member member : members) {
+            if (member.getTeam() != null) {
+                member.getTeam().getName();
+            }
+        }
+        memberRepository.findMemberList(Pageable.unpaged());
+        members.get(0).changeTeam(teamB);
+        entityManager.flush();
+
+        // then
+        // 이 테스트 메소드 이름과 겹쳐서 클래스 이름을 붙인다.
+        SessionMetrics metrics = QueryCountAssertions.sessionMetrics();
+        assertThat(metrics.getEntitiesLoaded()).isGreaterThanOrEqualTo(members.size() + 2);
+        // 프록시 초기화는 연관 엔티티 fetch 로 따로 센다.
+        assertThat(metrics.getEntitiesFetched()).isGreaterThanOrEqualTo(1);
+        assertThat(metrics.getFlushes()).isEqualTo(1);
+        // 플러시 때 영속성 컨텍스트의 엔티티를 하나씩 변경 감지한다.
+        assertThat(metrics.getDirtyChecks()).isGreaterThanOrEqualTo(members.size());
+        assertThat(metrics.getMaxManagedEntities()).isGreaterThanOrEqualTo(members.size() + 2);
+        // 같은 JPQL 을 두 번 실행했다.
+        assertThat(metrics.getQueryPlanCacheHits()).isGreaterThanOrEqualTo(1);
     }
 
     @Test
@@ -390,6 +655,8 @@ public class MemberRepositoryTest {
         entityManager.flush();
         entityManager.clear();
 
+        resetQueryCount();
+
         // `join fetch`를 이용하면, `left outer join` 으로 다 가져와버린다.
         List<Member> members = memberRepository.findMemberFetchJoin();
 
@@ -399,6 +666,9 @@ public class MemberRepositoryTest {
             System.out.println("member.getTeam().getClass() = " + member.getTeam().getClass());
             System.out.println("member.getTeam().getName() = " + member.getTeam().getName());
         }
+
+        // 팀까지 한 번에 가져오므로 select 는 1번
+        assertSelectCount(1);
     }
 
     @Test
@@ -511,6 +781,37 @@ public class MemberRepositoryTest {
         Assertions.assertEquals(members.size(), 1);
     }
 
+    // 다시 돌려도 같은 결과가 나오도록 이 테스트만 롤백한다.
+    @Test
+    @Rollback
+    public void specTeamName() {
+        Team teamA = new Team("specTeamA");
+        Team teamB = new Team("specTeamB");
+        entityManager.persist(teamA);
+        entityManager.persist(teamB);
+        entityManager.persist(new Member("specMember1", 0, teamA));
+        entityManager.persist(new Member("specMember2", 0, teamA));
+        entityManager.persist(new Member("specMember1", 0, teamB));
+        entityManager.persist(new Member("specMember3", 0, null));
+
+        entityManager.flush();
+        entityManager.clear();
+
+        assertThat(memberRepository.findAll(MemberSpec.teamName("specTeamA")))
+                .extracting(Member::getUsername)
+                .containsExactlyInAnyOrder("specMember1", "specMember2");
+        assertThat(memberRepository.findAll(MemberSpec.username("specMember1").and(MemberSpec.teamName("specTeamB"))))
+                .extracting(member -> member.getTeam().getName())
+                .containsExactly("specTeamB");
+        // 팀 이름이 없으면 조인을 빼기 때문에 팀이 없는 회원도 나온다.
+        assertThat(memberRepository.findAll(MemberSpec.username("specMember3").and(MemberSpec.teamName(null))))
+                .hasSize(1);
+        // 람다로 만든 `Specification`은 Criteria 로 실행한다.
+        Specification<Member> lambda = (root, query, builder) -> builder.equal(root.get("team").get("name"), "specTeamA");
+        assertThat(memberRepository.findAll(lambda)).hasSize(2);
+        assertThat(memberRepository.findAll(lambda)).hasSize(2);
+    }
+
     @Test
     public void queryByExample() {
         Team teamA = new Team("teamA");
@@ -573,4 +874,91 @@ public class MemberRepositoryTest {
 //            System.out.println("usernameOnly = " + usernameOnly.getUsername());
 //        }
     }
+
+    @Test
+    public void nestedProjectionsSelectOnlyUsedColumns() {
+        Team teamA = new Team("projectionTeam");
+        entityManager.persist(teamA);
+        entityManager.persist(new Member("projectionMember", 10, teamA));
+        entityManager.persist(new Member("projectionMember", 20));
+
+        entityManager.flush();
+        entityManager.clear();
+        resetQueryCount();
+
+        // select r.username, j1.id, j1.name from Member r left join r.team j1 where r.username = ?
+        List<NestedClosedProjections> result = memberRepository.findProjectionsByUsername("projectionMember", NestedClosedProjections.class);
+
+        // 팀 엔티티를 따로 조회하지 않는다.
+        assertSelectCount(1);
+        assertThat(result).hasSize(2);
+        assertThat(result).extracting(NestedClosedProjections::getUsername).containsOnly("projectionMember");
+        // 팀이 없는 회원은 중첩 프로젝션도 `null`
+        assertThat(result).extracting(projection -> projection.getTeam() == null ? null : projection.getTeam().getName())
+                .containsExactlyInAnyOrder("projectionTeam", null);
+        // JDK 프록시가 아니라 만들어진 클래스
+        assertThat(result.get(0).getClass().getName()).endsWith("NestedClosedProjections$Projection");
+
+        // 원래 동작과 같은 결과
+        List<NestedClosedProjections> derived = memberRepository.findDerivedProjectionsByUsername("projectionMember", NestedClosedProjections.class);
+        assertThat(derived).extracting(projection -> projection.getTeam() == null ? null : projection.getTeam().getName())
+                .containsExactlyInAnyOrder("projectionTeam", null);
+    }
+
+    @Test
+    @Rollback
+    public void usernameWrittenOutsideListenerIsFound() {
+        Member member = new Member("bulkRenameOld", 10);
+        entityManager.persist(member);
+        entityManager.flush();
+
+        // 벌크 수정은 하이버네이트 리스너를 거치지 않는다. (다른 인스턴스, 네이티브 SQL 도 마찬가지)
+        // username 인덱스가 꺼져 있으니(기본값) 바로 DB 에서 찾는다.
+        entityManager.createQuery("update Member m set m.username = :username where m.id = :id")
+                .setParameter("username", "bulkRenameNew")
+                .setParameter("id", member.getId())
+                .executeUpdate();
+        entityManager.clear();
+
+        assertThat(memberRepository.findMembersByUsername("bulkRenameNew")).extracting(Member::getId)
+                .containsExactly(member.getId());
+    }
+
+    // 문자열 이어붙이기가 아니라서 JPQL 로 못 내리는 표현식 - 컴파일된 SpEL 로 계산한다.
+    public interface AgeNextYear {
+        @Value("#{target.age + 1}")
+        int getAgeNextYear();
+    }
+
+    // 엔티티가 아니면 이해할 수 없는 표현식 - 엔티티를 조회한다.
+    public interface TeamNameOnly {
+        @Value("#{target.team?.name}")
+        String getTeamName();
+    }
+
+    @Test
+    public void openAndDtoProjections() {
+        entityManager.persist(new Member("fallbackMember", 30));
+        entityManager.flush();
+        entityManager.clear();
+        resetQueryCount();
+
+        // `concat(coalesce(r.username, 'null'), ' ', cast(r.age as string))`를 DB 에서 계산한다.
+        List<UsernameOnly> open = memberRepository.findProjectionsByUsername("fallbackMember", UsernameOnly.class);
+        assertThat(open).extracting(UsernameOnly::getUsername).containsExactly("fallbackMember 30");
+        assertThat(open.get(0).getClass().getName()).endsWith("UsernameOnly$Projection");
+        assertSelectCount(1);
+
+        List<AgeNextYear> compiled = memberRepository.findProjectionsByUsername("fallbackMember", AgeNextYear.class);
+        assertThat(compiled).extracting(AgeNextYear::getAgeNextYear).containsExactly(31);
+
+        List<TeamNameOnly> fallback = memberRepository.findProjectionsByUsername("fallbackMember", TeamNameOnly.class);
+        assertThat(fallback).extracting(TeamNameOnly::getTeamName).containsOnlyNulls();
+
+        List<UsernameOnlyDto> dto = memberRepository.findProjectionsByUsername("fallbackMember", UsernameOnlyDto.class);
+        assertThat(dto).extracting(UsernameOnlyDto::getUsername).containsExactly("fallbackMember");
+
+        List<Member> entities = memberRepository.findProjectionsByUsername("fallbackMember", Member.class);
+        assertThat(entities).extracting(Member::getAge).containsExactly(30);
+    }
 }
@@ -0,0 +1,71 @@
+package study.datajpa.repository;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import study.datajpa.entity.Member;
+import study.datajpa.support.QueryCountExtension;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.transaction.Transactional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.datajpa.support.QueryCountAssertions.assertSelectCount;
+import static study.datajpa.support.QueryCountAssertions.resetQueryCount;
+
+// username 인덱스(`UsernameIndex`)는 단일 writer 전용이라 기본으로 꺼져 있다. 켜고 조회 경로를 본다.
+@SpringBootTest(properties = "app.username-index.enabled=true")
+@Transactional
+@ExtendWith(QueryCountExtension.class)
+class MemberUsernameIndexTest {
+    @Autowired MemberRepository memberRepository;
+    @PersistenceContext EntityManager entityManager;
+
+    @Test
+    public void usernameIndexLookups() {
+        entityManager.persist(new Member("indexMember", 10));
+        entityManager.flush();
+        entityManager.clear();
+
+        // 블룸 필터는 flush 때 들어가니까 같은 트랜잭션에서 바로 찾을 수 있다.
+        assertThat(memberRepository.findMemberByUsername("indexMember").getAge()).isEqualTo(10);
+        entityManager.clear();
+        // 두 번째는 니어 캐시의 id 로 찾는다.
+        assertThat(memberRepository.findOptionalMemberByUsername("indexMember")).isPresent();
+        entityManager.clear();
+
+        resetQueryCount();
+        // 없는 이름은 DB 에 가지 않는다.
+        assertThat(memberRepository.findMembersByUsername("indexMemberNotExists")).isEmpty();
+        assertThat(memberRepository.findOptionalMemberByUsername("indexMemberNotExists")).isEmpty();
+        assertSelectCount(0);
+    }
+
+    @Test
+    public void usernameIndexDropsRenamedMember() {
+        Member member = new Member("indexRenameOld", 10);
+        entityManager.persist(member);
+        entityManager.flush();
+        entityManager.clear();
+        // 니어 캐시에 `indexRenameOld -> member.id`가 들어간다.
+        assertThat(memberRepository.findMembersByUsername("indexRenameOld")).hasSize(1);
+        entityManager.clear();
+
+        // 벌크 수정은 리스너를 거치지 않아서 니어 캐시가 그대로 남는다.
+        entityManager.createQuery("update Member m set m.username = :username where m.id = :id")
+                .setParameter("username", "indexRenameNew")
+                .setParameter("id", member.getId())
+                .executeUpdate();
+        entityManager.clear();
+
+        // 캐시의 id 로 찾은 회원 이름이 다르면 버리고 다시 조회한다.
+        assertThat(memberRepository.findMembersByUsername("indexRenameOld")).isEmpty();
+        entityManager.clear();
+        resetQueryCount();
+        // 다시 조회한 빈 결과가 캐시됐다.
+        assertThat(memberRepository.findMembersByUsername("indexRenameOld")).isEmpty();
+        assertSelectCount(0);
+    }
+}
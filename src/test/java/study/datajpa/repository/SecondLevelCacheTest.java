@@ -0,0 +1,68 @@
+package study.datajpa.repository;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+
+import javax.persistence.EntityManagerFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// 2차 캐시는 트랜잭션(영속성 컨텍스트)을 넘어서 공유되는 캐시라서
+// 테스트 전체를 `@Transactional`로 묶지 않고, 트랜잭션을 하나씩 따로 연다.
+@SpringBootTest(properties = "app.cache.enabled=true")
+class SecondLevelCacheTest {
+
+    @Autowired MemberRepository memberRepository;
+    @Autowired EntityManagerFactory entityManagerFactory;
+    @Autowired PlatformTransactionManager transactionManager;
+
+    TransactionTemplate tx;
+    Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        tx = new TransactionTemplate(transactionManager);
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    public void findByIdHitsSecondLevelCache() {
+        Long id = tx.execute(status -> memberRepository.save(new Member("cachedMember", 10)).getId());
+
+        // 트랜잭션(영속성 컨텍스트)이 다르기 때문에 1차 캐시가 아니라 2차 캐시에서 가져온다.
+        tx.execute(status -> memberRepository.findById(id).get());
+        tx.execute(status -> memberRepository.findById(id).get());
+
+        assertThat(statistics.getSecondLevelCacheHitCount()).isGreaterThanOrEqualTo(2);
+    }
+
+    @Test
+    public void bulkUpdateEvictsSecondLevelCache() {
+        Long id = tx.execute(status -> memberRepository.save(new Member("cachedBulkMember", 500)).getId());
+        tx.execute(status -> memberRepository.findById(id).get());
+
+        tx.execute(status -> memberRepository.bulkAgePlus(500));
+
+        // 벌크 연산은 엔티티를 거치지 않지만, 하이버네이트가 `Member` 캐시 영역을 비워주기 때문에 바뀐 값이 나온다.
+        Member member = tx.execute(status -> memberRepository.findById(id).get());
+        assertThat(member.getAge()).isEqualTo(501);
+    }
+
+    @Test
+    public void namedQueryUsesQueryCache() {
+        tx.execute(status -> memberRepository.save(new Member("queryCachedMember", 10)));
+
+        tx.execute(status -> memberRepository.findByUsername("queryCachedMember"));
+        tx.execute(status -> memberRepository.findByUsername("queryCachedMember"));
+
+        assertThat(statistics.getQueryCacheHitCount()).isGreaterThanOrEqualTo(1);
+    }
+}
@@ -0,0 +1,79 @@
+package study.datajpa.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import study.datajpa.entity.BulkJob;
+import study.datajpa.entity.BulkJobChunk;
+import study.datajpa.entity.BulkJobStatus;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.BulkJobChunkRepository;
+import study.datajpa.repository.MemberRepository;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// 청크마다 트랜잭션을 따로 커밋하는 것을 확인해야 해서 테스트를 `@Transactional`로 묶지 않는다.
+@SpringBootTest(properties = {"app.bulk.chunk-size=10", "app.bulk.parallelism=3"})
+class BulkUpdateServiceTest {
+
+    @Autowired BulkUpdateService bulkUpdateService;
+    @Autowired MemberRepository memberRepository;
+    @Autowired BulkJobChunkRepository bulkJobChunkRepository;
+
+    @Test
+    public void agePlusInChunks() throws Exception {
+        List<Long> ids = saveMembers(25, 1000);
+
+        BulkJob job = bulkUpdateService.agePlus(1000).get(10, TimeUnit.SECONDS);
+
+        assertThat(job.getStatus()).isEqualTo(BulkJobStatus.COMPLETED);
+        assertThat(bulkJobChunkRepository.countByJobId(job.getId())).isEqualTo(job.getTotalChunks());
+        assertThat(memberRepository.findAllById(ids))
+                .extracting(Member::getAge)
+                .containsOnly(1001);
+    }
+
+    @Test
+    public void resumeSkipsCommittedChunks() throws Exception {
+        List<Long> ids = saveMembers(25, 2000);
+
+        // 이 테스트가 넣은 회원이 들어있는 청크 하나를 커밋하고 서버가 죽은 상황
+        // 다른 테스트가 커밋한 회원 때문에 작업의 `minId`는 테이블 전체 기준이라, 청크 경계를 거기에 맞춘다.
+        BulkJob job = bulkUpdateService.createAgePlusJob(2000);
+        long middleId = ids.get(ids.size() / 2);
+        long committedStart = job.getMinId() + (middleId - job.getMinId()) / job.getChunkSize() * job.getChunkSize();
+        long committedEnd = committedStart + job.getChunkSize();
+        bulkJobChunkRepository.save(new BulkJobChunk(job, committedStart, committedEnd, 0));
+
+        List<Long> committedIds = ids.stream()
+                .filter(id -> committedStart <= id && id < committedEnd)
+                .collect(Collectors.toList());
+        assertThat(committedIds).isNotEmpty().hasSizeLessThan(ids.size());
+
+        BulkJob resumed = bulkUpdateService.resume(job.getId()).get(10, TimeUnit.SECONDS);
+        // 한 번 더 실행해도 이미 끝난 청크는 다시 적용되지 않는다.
+        bulkUpdateService.resume(job.getId()).get(10, TimeUnit.SECONDS);
+
+        assertThat(resumed.getStatus()).isEqualTo(BulkJobStatus.COMPLETED);
+        assertThat(bulkJobChunkRepository.countByJobId(job.getId())).isEqualTo(job.getTotalChunks());
+        // 미리 커밋한 청크의 회원은 그대로, 나머지는 한 번만 올라간다.
+        for (Member member : memberRepository.findAllById(ids)) {
+            int expected = committedIds.contains(member.getId()) ? 2000 : 2001;
+            assertThat(member.getAge()).as("member id=%d", member.getId()).isEqualTo(expected);
+        }
+    }
+
+    private List<Long> saveMembers(int count, int age) {
+        List<Member> members = IntStream.range(0, count)
+                .mapToObj(i -> new Member("bulkUpdateMember" + i, age))
+                .collect(Collectors.toList());
+        return memberRepository.saveAll(members).stream()
+                .map(Member::getId)
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,111 @@
+package study.datajpa.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.IllegalTransactionStateException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.concurrency.OptimisticRetryTemplate;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberJpaRepository;
+import study.datajpa.repository.MemberRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BiFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// 여러 스레드가 각자 트랜잭션을 커밋해야 해서 테스트를 `@Transactional`로 묶지 않는다.
+// 낙관적 락은 8개 스레드가 한 행을 두고 계속 부딪히니까 시도 횟수를 넉넉히 준다.
+@SpringBootTest(properties = {"app.optimistic-retry.max-attempts=100", "app.optimistic-retry.max-backoff=20ms"})
+class MemberAgeServiceTest {
+
+    static final int THREADS = 8;
+    static final int UPDATES_PER_THREAD = 25;
+
+    @Autowired MemberAgeService memberAgeService;
+    @Autowired MemberRepository memberRepository;
+    @Autowired MemberJpaRepository memberJpaRepository;
+    @Autowired OptimisticRetryTemplate optimisticRetryTemplate;
+    @Autowired PlatformTransactionManager transactionManager;
+
+    @Test
+    public void pessimisticNoLostUpdates() throws Exception {
+        assertNoLostUpdates("contendedPessimistic", memberAgeService::addAgePessimistic);
+    }
+
+    @Test
+    public void optimisticNoLostUpdates() throws Exception {
+        assertNoLostUpdates("contendedOptimistic", memberAgeService::addAgeOptimistic);
+    }
+
+    @Test
+    public void serializedNoLostUpdates() throws Exception {
+        long conflictsBefore = optimisticRetryTemplate.getConflicts();
+        assertNoLostUpdates("contendedSerialized", memberAgeService::addAgeSerialized);
+        // 서버가 하나면 같은 키는 줄을 서서 들어가니까 충돌이 없다.
+        assertThat(optimisticRetryTemplate.getConflicts()).isEqualTo(conflictsBefore);
+    }
+
+    @Test
+    public void retryNeedsFreshTransaction() {
+        TransactionTemplate outer = new TransactionTemplate(transactionManager);
+        assertThatThrownBy(() -> outer.executeWithoutResult(status -> memberAgeService.addAgeOptimistic("anyone", 1)))
+                .isInstanceOf(IllegalTransactionStateException.class);
+    }
+
+    // 벌크 수정(`update versioned`)도 버전을 올리니까, 그 전에 회원을 읽어둔 낙관적 락 트랜잭션은 덮어쓰지 못하고 충돌한다.
+    @Test
+    public void bulkUpdateConflictsWithOptimisticWriter() {
+        Member member = memberRepository.save(new Member("bulkOptimisticMember", 123480));
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        TransactionTemplate requiresNew = new TransactionTemplate(transactionManager);
+        requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        try {
+            assertThatThrownBy(() -> tx.executeWithoutResult(status -> {
+                Member loaded = memberRepository.findById(member.getId()).get();
+                requiresNew.executeWithoutResult(inner -> memberJpaRepository.bulkAgePlus(123480));
+                loaded.setAge(loaded.getAge() + 10);
+            })).isInstanceOf(ObjectOptimisticLockingFailureException.class);
+
+            assertThat(memberRepository.findById(member.getId()).get().getAge()).isEqualTo(123481);
+        } finally {
+            memberRepository.deleteById(member.getId());
+        }
+    }
+
+    private void assertNoLostUpdates(String username, BiFunction<String, Integer, Integer> addAge) throws Exception {
+        Member member = memberRepository.save(new Member(username, 0));
+        assertThat(member.getVersion()).isEqualTo(0L);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                futures.add(executor.submit(() -> {
+                    for (int j = 0; j < UPDATES_PER_THREAD; j++) {
+                        addAge.apply(username, 1);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        Member updated = memberRepository.findById(member.getId()).get();
+        assertThat(updated.getAge()).isEqualTo(THREADS * UPDATES_PER_THREAD);
+        assertThat(updated.getVersion()).isEqualTo((long) THREADS * UPDATES_PER_THREAD);
+    }
+}
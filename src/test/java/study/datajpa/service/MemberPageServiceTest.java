@@ -0,0 +1,97 @@
+package study.datajpa.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.support.QueryCountExtension;
+
+import javax.persistence.EntityManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.datajpa.support.QueryCountAssertions.assertSelectCount;
+import static study.datajpa.support.QueryCountAssertions.resetQueryCount;
+
+// 다른 테스트와 겹치지 않는 나이를 쓴다.
+@SpringBootTest
+@Transactional
+@ExtendWith(QueryCountExtension.class)
+class MemberPageServiceTest {
+
+    static final int AGE = 7_707;
+
+    @Autowired MemberPageService memberPageService;
+    @Autowired MemberRepository memberRepository;
+    @Autowired PageCounter pageCounter;
+    @Autowired EntityManager em;
+
+    @BeforeEach
+    public void setUp() {
+        for (int i = 0; i < 5; i++) {
+            memberRepository.save(new Member("pageService" + i, AGE, null));
+        }
+        em.flush();
+        em.clear();
+        pageCounter.evict("members:age=" + AGE);
+    }
+
+    @Test
+    public void defaultIsExact() {
+        assertThat(pageCounter.getDefaultStrategy()).isEqualTo(CountStrategy.EXACT);
+
+        PageRequest pageRequest = PageRequest.of(1, 2, Sort.by(Sort.Direction.DESC, "username"));
+        resetQueryCount();
+        Page<Member> first = memberPageService.findByAge(AGE, pageRequest, null);
+        Page<Member> second = memberPageService.findByAge(AGE, pageRequest, null);
+
+        assertThat(first.getTotalElements()).isEqualTo(5);
+        assertThat(second.getTotalElements()).isEqualTo(5);
+        assertThat(first.getContent()).extracting(Member::getUsername).containsExactly("pageService2", "pageService1");
+        // 내용 + `count` 가 매번
+        assertSelectCount(4);
+    }
+
+    @Test
+    public void cachedCountIsSharedBetweenRepositories() {
+        PageRequest pageRequest = PageRequest.of(1, 2);
+        resetQueryCount();
+        Page<Member> dataJpa = memberPageService.findByAge(AGE, pageRequest, CountStrategy.CACHED);
+        Page<Member> pureJpa = memberPageService.findByAgeWithJpa(AGE, pageRequest, CountStrategy.CACHED);
+
+        assertThat(dataJpa.getTotalElements()).isEqualTo(5);
+        assertThat(pureJpa.getTotalElements()).isEqualTo(5);
+        assertThat(pureJpa.getTotalPages()).isEqualTo(3);
+        // `count`는 처음 한번만
+        assertSelectCount(3);
+    }
+
+    @Test
+    public void lastPageSkipsCount() {
+        resetQueryCount();
+        Page<Member> page = memberPageService.findByAgeWithJpa(AGE, PageRequest.of(2, 2), CountStrategy.EXACT);
+
+        assertThat(page.getContent()).hasSize(1);
+        assertThat(page.getTotalElements()).isEqualTo(5);
+        assertThat(page.isLast()).isTrue();
+        assertSelectCount(1);
+    }
+
+    @Test
+    public void splitCountMatchesRepositoryPage() {
+        PageRequest pageRequest = PageRequest.of(0, 2, Sort.by(Sort.Direction.DESC, "id"));
+
+        Page<Member> page = memberPageService.findSplitCount(pageRequest, CountStrategy.EXACT);
+        Page<Member> original = memberRepository.findSplitCountByAge(AGE, pageRequest);
+
+        assertThat(page.getTotalElements()).isEqualTo(original.getTotalElements());
+        // 같은 영속성 컨텍스트라 같은 인스턴스가 나온다.
+        assertThat(page.getContent()).containsExactlyElementsOf(original.getContent());
+    }
+}
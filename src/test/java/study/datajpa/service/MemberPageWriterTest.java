@@ -0,0 +1,71 @@
+package study.datajpa.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.repository.TeamRepository;
+
+import java.io.ByteArrayOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// 다른 테스트가 커밋한 회원이 남아있을 수 있어서, id 내림차순 첫 페이지(방금 넣은 회원)만 내용을 확인한다.
+@SpringBootTest
+@Transactional
+class MemberPageWriterTest {
+
+    @Autowired MemberPageWriter memberPageWriter;
+    @Autowired MemberRepository memberRepository;
+    @Autowired TeamRepository teamRepository;
+    @Autowired ObjectMapper objectMapper;
+
+    @Test
+    public void writesCompactPage() throws Exception {
+        Team team = teamRepository.save(new Team("teamA"));
+        for (int i = 0; i < 5; i++) {
+            memberRepository.save(new Member("pageWriter" + i, i, i == 4 ? null : team));
+        }
+        memberRepository.flush();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int rows = memberPageWriter.write(PageRequest.of(0, 3, Sort.by(Sort.Direction.DESC, "id")), CountStrategy.EXACT, out);
+
+        JsonNode page = objectMapper.readTree(out.toByteArray());
+        long total = memberRepository.count();
+        assertThat(rows).isEqualTo(3);
+        assertThat(page.get("content")).hasSize(3);
+        assertThat(page.get("content").get(0).get("username").asText()).isEqualTo("pageWriter4");
+        assertThat(page.get("content").get(0).get("teamName").isNull()).isTrue();
+        assertThat(page.get("content").get(1).get("teamName").asText()).isEqualTo("teamA");
+        assertThat(page.get("number").asInt()).isEqualTo(0);
+        assertThat(page.get("size").asInt()).isEqualTo(3);
+        assertThat(page.get("totalElements").asLong()).isEqualTo(total);
+        assertThat(page.get("totalPages").asInt()).isEqualTo((int) ((total + 2) / 3));
+        assertThat(page.get("first").asBoolean()).isTrue();
+        assertThat(page.get("last").asBoolean()).isEqualTo(total <= 3);
+        assertThat(page.get("estimated").asBoolean()).isFalse();
+        // `Page` JSON 에서 뺀 필드
+        assertThat(page.has("pageable")).isFalse();
+        assertThat(page.has("sort")).isFalse();
+    }
+
+    @Test
+    public void emptyPageUsesCount() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        // 아무도 없는 먼 페이지 - 내용이 비어 있으면 `count`로 전체 개수를 구한다.
+        memberPageWriter.write(PageRequest.of(1_000_000, 3), CountStrategy.EXACT, out);
+
+        JsonNode page = objectMapper.readTree(out.toByteArray());
+        assertThat(page.get("content")).isEmpty();
+        assertThat(page.get("totalElements").asLong()).isEqualTo(memberRepository.count());
+        assertThat(page.get("last").asBoolean()).isTrue();
+    }
+}
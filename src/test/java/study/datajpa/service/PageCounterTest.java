@@ -0,0 +1,61 @@
+package study.datajpa.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import study.datajpa.dto.CountedPage;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PageCounterTest {
+
+    // 스레드를 따로 띄우지 않고 호출한 스레드에서 바로 실행한다.
+    PageCounter pageCounter = new PageCounter(Runnable::run, Duration.ofMinutes(1), CountStrategy.EXACT);
+
+    List<String> content = Arrays.asList("a", "b", "c");
+    AtomicInteger countCalls = new AtomicInteger();
+
+    @Test
+    public void cachedCountRunsCountOnce() {
+        PageRequest pageRequest = PageRequest.of(1, 3);
+
+        Page<String> first = pageCounter.getPage(pageRequest, CountStrategy.CACHED, "key",
+                () -> content, this::count, null);
+        Page<String> second = pageCounter.getPage(pageRequest, CountStrategy.CACHED, "key",
+                () -> content, this::count, null);
+
+        assertThat(first.getTotalElements()).isEqualTo(100);
+        assertThat(second.getTotalElements()).isEqualTo(100);
+        assertThat(countCalls.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void estimatedCountIsFlagged() {
+        Page<String> page = pageCounter.getPage(PageRequest.of(1, 3), CountStrategy.ESTIMATED, "key",
+                () -> content, this::count, () -> 90);
+
+        assertThat(page.getTotalElements()).isEqualTo(90);
+        assertThat(((CountedPage<String>) page).isEstimated()).isTrue();
+        assertThat(countCalls.get()).isEqualTo(0);
+    }
+
+    @Test
+    public void skipCountWhenFirstPageIsNotFull() {
+        // 첫 페이지인데 `size`보다 적게 나왔으면 그게 전체 개수다.
+        Page<String> page = pageCounter.getPage(PageRequest.of(0, 10), CountStrategy.CONCURRENT, "key",
+                () -> content, this::count, null);
+
+        assertThat(page.getTotalElements()).isEqualTo(3);
+        assertThat(((CountedPage<String>) page).isEstimated()).isFalse();
+    }
+
+    private long count() {
+        countCalls.incrementAndGet();
+        return 100;
+    }
+}
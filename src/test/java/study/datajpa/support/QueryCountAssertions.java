@@ -0,0 +1,52 @@
+package study.datajpa.support;
+
+import study.datajpa.metrics.QueryScope;
+import study.datajpa.metrics.SessionMetrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// 테스트에서 실행된 SQL 개수를 고정해두기 위한 검증 메소드
+// `QueryCountExtension`이 열어둔 범위 안에서 센다. 데이터 준비에 쓴 SQL 은 `resetQueryCount()`로 빼고 세면 된다.
+//   entityManager.flush();
+//   entityManager.clear();
+//   resetQueryCount();
+//   memberRepository.findMemberFetchJoin();
+//   assertSelectCount(1);
+public final class QueryCountAssertions {
+
+    private QueryCountAssertions() {
+    }
+
+    public static void resetQueryCount() {
+        scope().reset();
+    }
+
+    public static void assertSelectCount(long expected) {
+        assertThat(scope().getSelectCount()).as("select 실행 횟수").isEqualTo(expected);
+    }
+
+    public static void assertInsertCount(long expected) {
+        assertThat(scope().getInsertCount()).as("insert 실행 횟수").isEqualTo(expected);
+    }
+
+    public static void assertUpdateCount(long expected) {
+        assertThat(scope().getUpdateCount()).as("update 실행 횟수").isEqualTo(expected);
+    }
+
+    public static void assertDeleteCount(long expected) {
+        assertThat(scope().getDeleteCount()).as("delete 실행 횟수").isEqualTo(expected);
+    }
+
+    // 불러온 엔티티, 플러시, 변경 감지, 캐시 히트 등
+    public static SessionMetrics sessionMetrics() {
+        return scope().getSessionMetrics();
+    }
+
+    private static QueryScope scope() {
+        QueryScope scope = QueryScope.current();
+        if (scope == null) {
+            throw new IllegalStateException("열린 QueryScope 가 없습니다. 테스트 클래스에 @ExtendWith(QueryCountExtension.class)를 붙여주세요.");
+        }
+        return scope;
+    }
+}
@@ -0,0 +1,34 @@
+package study.datajpa.support;
+
+import org.junit.jupiter.api.extension.AfterEachCallback;
+import org.junit.jupiter.api.extension.BeforeEachCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import study.datajpa.metrics.QueryScope;
+
+// 테스트 메소드 하나를 `QueryScope` 하나로 묶는다.
+// `@ExtendWith(QueryCountExtension.class)`를 붙이면 테스트 안에서 `QueryCountAssertions`를 쓸 수 있고,
+// 같은 select 가 반복되면 `app.query.n-plus-one.mode`에 따라 로그를 남기거나 실패한다.
+// 테스트가 끝나면 그 동안의 세션 지표(불러온 엔티티, 플러시, 변경 감지 등)를 로그로 남긴다.
+public class QueryCountExtension implements BeforeEachCallback, AfterEachCallback {
+
+    private static final Logger log = LoggerFactory.getLogger(QueryCountExtension.class);
+
+    private static final ExtensionContext.Namespace NAMESPACE = ExtensionContext.Namespace.create(QueryCountExtension.class);
+
+    @Override
+    public void beforeEach(ExtensionContext context) {
+        QueryScope scope = QueryScope.begin(context.getRequiredTestClass().getSimpleName() + "." + context.getDisplayName());
+        context.getStore(NAMESPACE).put(QueryScope.class, scope);
+    }
+
+    @Override
+    public void afterEach(ExtensionContext context) {
+        QueryScope scope = context.getStore(NAMESPACE).remove(QueryScope.class, QueryScope.class);
+        if (scope != null) {
+            log.info("{} - {}", scope.getName(), scope.getSessionMetrics());
+            scope.close();
+        }
+    }
+}